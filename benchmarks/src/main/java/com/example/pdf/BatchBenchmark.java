@@ -0,0 +1,79 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BatchPdfConverter} 与逐个调用 {@link HtmlToPdfConverter#convertToPdf} 的吞吐量 (文档/秒) 对比
+ * <p>
+ * {@code parallelism=1} 时两者的差值即为每个文档重复初始化配置的开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class BatchBenchmark {
+
+    private static final int DOCUMENTS = 32;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Param({SampleDocuments.PLAIN, SampleDocuments.TABLE})
+    public String kind;
+
+    @Param({"10"})
+    public int rows;
+
+    private byte[] html;
+    private String fontDir;
+    private BatchPdfConverter batchConverter;
+
+    @Setup
+    public void setUp() {
+        html = SampleDocuments.html(kind, rows);
+        fontDir = SampleDocuments.fontDir();
+        batchConverter = BatchPdfConverter.builder().customFontDir(fontDir).parallelism(parallelism).build();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOCUMENTS)
+    public long singleCallLoop() throws IOException {
+        long totalBytes = 0;
+        for (int i = 0; i < DOCUMENTS; i++) {
+            DiscardingOutputStream pdf = new DiscardingOutputStream();
+            HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(html), fontDir, pdf, PageSize.A4, false);
+            totalBytes += pdf.getCount();
+        }
+        return totalBytes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOCUMENTS)
+    public int batch() throws InterruptedException {
+        List<BatchPdfConverter.BatchItem> items = new ArrayList<>(DOCUMENTS);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            items.add(BatchPdfConverter.BatchItem.of("doc-" + i, () -> new ByteArrayInputStream(html), DiscardingOutputStream::new));
+        }
+        return batchConverter.convert(items).getSucceeded();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 输出PDF字节的三种方式的耗时 (毫秒)；配合 {@code -prof gc} 查看每次转换的分配字节数 ({@code gc.alloc.rate.norm})
+ * <p>
+ * {@code byteArray} 为 {@link ByteArrayOutputStream} 加 {@code toByteArray()} (原有方式)，
+ * {@code pooledCopy} 在池中的缓冲区内写出后复制一份大小正好的数组，
+ * {@code pooled} 直接交出池中的缓冲区 ({@link PooledBuffer})，用完后归还。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BufferPoolBenchmark {
+
+    @Param({"2000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+    private byte[] html;
+    private String fontDir;
+    private ByteBufferPool pool;
+
+    @Setup
+    public void setUp() {
+        html = SampleDocuments.html(SampleDocuments.TABLE, rows);
+        fontDir = SampleDocuments.fontDir();
+        pool = ByteBufferPool.builder().direct(direct).build();
+    }
+
+    @Benchmark
+    public int byteArray() throws IOException {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(html), fontDir, pdf, PageSize.A4, true);
+        return pdf.toByteArray().length;
+    }
+
+    @Benchmark
+    public int pooledCopy() throws IOException {
+        PooledOutputStream pdf = new PooledOutputStream(pool);
+        HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(html), fontDir, pdf, PageSize.A4, true);
+        return pdf.toByteArray().length;
+    }
+
+    @Benchmark
+    public int pooled() throws IOException {
+        PooledOutputStream pdf = new PooledOutputStream(pool);
+        HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(html), fontDir, pdf, PageSize.A4, true);
+        try (PooledBuffer result = pdf.toPooledBuffer()) {
+            return result.size();
+        }
+    }
+}
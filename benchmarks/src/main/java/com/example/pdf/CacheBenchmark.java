@@ -0,0 +1,100 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CachingPdfConverter} 命中时的耗时，与未命中 (完整转换) 对比
+ * <p>
+ * {@code directoryHitToFile} 输出到文件，走 {@code FileChannel.transferTo} 的文件间直接传输。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+    @Param({SampleDocuments.PLAIN, SampleDocuments.TABLE})
+    public String kind;
+
+    @Param({"200"})
+    public int rows;
+
+    private byte[] html;
+    private String fontDir;
+    private Path cacheDir;
+    private File outputFile;
+    private CachingPdfConverter memoryCache;
+    private CachingPdfConverter directoryCache;
+
+    @Setup
+    public void setUp() throws IOException {
+        html = SampleDocuments.html(kind, rows);
+        fontDir = SampleDocuments.fontDir();
+        cacheDir = Files.createTempDirectory("pdf-cache-bench");
+        outputFile = File.createTempFile("pdf-cache-bench", ".pdf");
+        memoryCache = CachingPdfConverter.builder().customFontDir(fontDir)
+                .store(new MemoryPdfCacheStore(64L * 1024 * 1024)).build();
+        directoryCache = CachingPdfConverter.builder().customFontDir(fontDir)
+                .store(new DirectoryPdfCacheStore(cacheDir, 64L * 1024 * 1024)).build();
+        memoryCache.convert(new ByteArrayInputStream(html), new DiscardingOutputStream());
+        directoryCache.convert(new ByteArrayInputStream(html), new DiscardingOutputStream());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        directoryCache.getStore().clear();
+        Files.deleteIfExists(cacheDir);
+        Files.deleteIfExists(outputFile.toPath());
+    }
+
+    @Benchmark
+    public long miss() throws IOException {
+        DiscardingOutputStream pdf = new DiscardingOutputStream();
+        HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(html), fontDir, pdf, PageSize.A4, false);
+        return pdf.getCount();
+    }
+
+    @Benchmark
+    public long memoryHit() throws IOException {
+        DiscardingOutputStream pdf = new DiscardingOutputStream();
+        memoryCache.convert(new ByteArrayInputStream(html), pdf);
+        return pdf.getCount();
+    }
+
+    @Benchmark
+    public long directoryHit() throws IOException {
+        DiscardingOutputStream pdf = new DiscardingOutputStream();
+        directoryCache.convert(new ByteArrayInputStream(html), pdf);
+        return pdf.getCount();
+    }
+
+    @Benchmark
+    public long directoryHitToFile() throws IOException {
+        try (FileOutputStream pdf = new FileOutputStream(outputFile)) {
+            directoryCache.convert(new ByteArrayInputStream(html), pdf);
+            return pdf.getChannel().position();
+        }
+    }
+}
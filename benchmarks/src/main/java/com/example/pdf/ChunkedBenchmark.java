@@ -0,0 +1,100 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 由多个独立 section 组成的报表，整篇串行转换与 {@link ChunkedPdfConverter} 分块并行转换的单文档耗时 (毫秒) 对比
+ * <p>
+ * 两者都带页码。{@code parallelism=1} 时的差值即为切分、合并本身的开销；并行收益取决于机器核数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ChunkedBenchmark {
+
+    @Param({"1", "8"})
+    public int parallelism;
+
+    @Param({"16"})
+    public int sections;
+
+    @Param({"100"})
+    public int rowsPerSection;
+
+    private byte[] html;
+    private String fontDir;
+    private ForkJoinPool pool;
+    private ChunkedPdfConverter chunkedConverter;
+
+    @Setup
+    public void setUp() {
+        html = sectionedHtml(sections, rowsPerSection);
+        fontDir = SampleDocuments.fontDir();
+        pool = new ForkJoinPool(parallelism);
+        chunkedConverter = ChunkedPdfConverter.builder()
+                .customFontDir(fontDir)
+                .addPageFoot(true)
+                .pool(pool)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long serial() throws IOException {
+        DiscardingOutputStream pdf = new DiscardingOutputStream();
+        HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(html), fontDir, pdf, PageSize.A4, true);
+        return pdf.getCount();
+    }
+
+    @Benchmark
+    public long chunked() throws IOException {
+        DiscardingOutputStream pdf = new DiscardingOutputStream();
+        chunkedConverter.convert(new ByteArrayInputStream(html), pdf);
+        return pdf.getCount();
+    }
+
+    private static byte[] sectionedHtml(int sections, int rowsPerSection) {
+        StringBuilder html = new StringBuilder(sections * rowsPerSection * 120);
+        html.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset='UTF-8'>\n<style>\n")
+                .append("body { font-family: 'Microsoft YaHei', sans-serif; font-size: 10px; }\n")
+                .append("section { page-break-before: always; }\n")
+                .append("table { width: 100%; border-collapse: collapse; }\n")
+                .append("td { border: 1px solid #999; padding: 2px; }\n")
+                .append("</style>\n</head>\n<body>\n");
+        for (int s = 1; s <= sections; s++) {
+            html.append("<section><h2>Customer ").append(s).append("</h2><table>\n");
+            for (int i = 1; i <= rowsPerSection; i++) {
+                html.append("<tr><td>").append(i).append("</td><td>Item&nbsp;").append(i)
+                        .append("</td><td>").append(i % 7 + 1).append("</td><td>12.50</td></tr>\n");
+            }
+            html.append("</table></section>\n");
+        }
+        html.append("</body>\n</html>\n");
+        return html.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
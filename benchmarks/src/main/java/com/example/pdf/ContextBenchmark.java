@@ -0,0 +1,63 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次调用 {@link HtmlToPdfConverter#convertToPdf} 与复用 {@link ConverterContext} 的单文档耗时 (微秒) 对比
+ * <p>
+ * 两者的差值即为每次调用重新创建转换配置和字体提供者 (及其字体匹配缓存) 的开销，小文档上占比最大。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ContextBenchmark {
+
+    @Param({SampleDocuments.PLAIN, SampleDocuments.TABLE})
+    public String kind;
+
+    @Param({"10"})
+    public int rows;
+
+    private byte[] html;
+    private String fontDir;
+    private ConverterContext context;
+
+    @Setup
+    public void setUp() {
+        html = SampleDocuments.html(kind, rows);
+        fontDir = SampleDocuments.fontDir();
+        context = ConverterContext.builder().customFontDir(fontDir).pageSize(PageSize.A4).build();
+    }
+
+    @Benchmark
+    public long perCall() throws IOException {
+        DiscardingOutputStream pdf = new DiscardingOutputStream();
+        HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(html), fontDir, pdf, PageSize.A4, false);
+        return pdf.getCount();
+    }
+
+    @Benchmark
+    public long sharedContext() throws IOException {
+        DiscardingOutputStream pdf = new DiscardingOutputStream();
+        HtmlToPdfConverter.convert(context, new ByteArrayInputStream(html), pdf);
+        return pdf.getCount();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HtmlToPdfConverter#convertToPdf} 端到端耗时
+ * <p>
+ * {@code addPageFoot=true} 时在写出过程中同步添加页码，两者的差值即为页码的开销。
+ * {@code rows} 决定输入大小和页数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionBenchmark {
+
+    @Param({SampleDocuments.PLAIN, SampleDocuments.TABLE, SampleDocuments.CJK})
+    public String kind;
+
+    @Param({"10", "200", "2000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean addPageFoot;
+
+    private byte[] html;
+    private String fontDir;
+
+    @Setup
+    public void setUp() {
+        html = SampleDocuments.html(kind, rows);
+        fontDir = SampleDocuments.fontDir();
+    }
+
+    @Benchmark
+    public long convertToPdf() throws IOException {
+        DiscardingOutputStream pdf = new DiscardingOutputStream();
+        HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(html), fontDir, pdf, PageSize.A4, addPageFoot);
+        return pdf.getCount();
+    }
+}
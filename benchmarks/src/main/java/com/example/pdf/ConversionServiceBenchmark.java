@@ -0,0 +1,80 @@
+package com.example.pdf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PdfConversionService} 负载测试：吞吐量 (文档/秒) 随工作线程数的变化
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ConversionServiceBenchmark {
+
+    private static final int JOBS = 64;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({SampleDocuments.TABLE})
+    public String kind;
+
+    @Param({"50"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean useVirtualThreads;
+
+    private PdfConversionService service;
+    private byte[] html;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        html = SampleDocuments.html(kind, rows);
+        service = PdfConversionService.builder()
+                .customFontDir(SampleDocuments.fontDir())
+                .threads(threads)
+                .queueCapacity(JOBS)
+                .useVirtualThreads(useVirtualThreads)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JOBS)
+    public int convertConcurrently() {
+        List<CompletableFuture<byte[]>> results = new ArrayList<>(JOBS);
+        for (int i = 0; i < JOBS; i++) {
+            results.add(service.submit(html));
+        }
+        int totalBytes = 0;
+        for (CompletableFuture<byte[]> result : results) {
+            totalBytes += result.join().length;
+        }
+        return totalBytes;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.pdf;
+
+import java.io.OutputStream;
+
+/**
+ * 丢弃写入内容、只统计字节数的输出流，避免把输出缓冲计入转换耗时
+ */
+final class DiscardingOutputStream extends OutputStream {
+
+    private long count;
+
+    @Override
+    public void write(int b) {
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        count += len;
+    }
+
+    long getCount() {
+        return count;
+    }
+}
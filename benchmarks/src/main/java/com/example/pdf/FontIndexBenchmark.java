@@ -0,0 +1,63 @@
+package com.example.pdf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 字体目录的覆盖索引：没有缓存 (逐个解析字体) 与从磁盘缓存读取覆盖位图的耗时 (毫秒) 对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FontIndexBenchmark {
+
+    private Path fontDir;
+    private Path coldCacheDir;
+    private Path warmCacheDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        fontDir = Paths.get(SampleDocuments.fontDir());
+        coldCacheDir = Files.createTempDirectory("font-index-cold");
+        warmCacheDir = Files.createTempDirectory("font-index-warm");
+        FontCoverageIndex.build(fontDir, warmCacheDir);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearColdCache() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(coldCacheDir)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int uncached() throws IOException {
+        return FontCoverageIndex.build(fontDir, coldCacheDir).getEntries().size();
+    }
+
+    @Benchmark
+    public int cached() throws IOException {
+        return FontCoverageIndex.build(fontDir, warmCacheDir).getEntries().size();
+    }
+}
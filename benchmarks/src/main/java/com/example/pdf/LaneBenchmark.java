@@ -0,0 +1,101 @@
+package com.example.pdf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 两份大报表排在一批小回执之前时，回执全部完成所需的时间 (毫秒)
+ * <p>
+ * {@code shared} 为两个线程的 {@link PdfConversionService}，{@code laned} 为各一个线程的小/大任务通道
+ * ({@link LanedConversionService})，线程总数相同。大报表在每次调用后等待完成，不计入耗时。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class LaneBenchmark {
+
+    private static final int LARGE_JOBS = 2;
+    private static final int RECEIPTS = 20;
+
+    @Param({"shared", "laned"})
+    public String scheduler;
+
+    @Param({"2000"})
+    public int largeRows;
+
+    private byte[] largeHtml;
+    private byte[] receiptHtml;
+    private PdfConversionService shared;
+    private LanedConversionService laned;
+    private final List<CompletableFuture<byte[]>> largeResults = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        largeHtml = SampleDocuments.html(SampleDocuments.TABLE, largeRows);
+        receiptHtml = SampleDocuments.html(SampleDocuments.PLAIN, 5);
+        String fontDir = SampleDocuments.fontDir();
+        if ("shared".equals(scheduler)) {
+            shared = PdfConversionService.builder().customFontDir(fontDir).threads(2).queueCapacity(64).build();
+        } else {
+            laned = LanedConversionService.builder().customFontDir(fontDir)
+                    .smallLane(1, 64).largeLane(1, 8).build();
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void awaitLargeJobs() {
+        for (CompletableFuture<byte[]> result : largeResults) {
+            result.join();
+        }
+        largeResults.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (shared != null) {
+            shared.close();
+        }
+        if (laned != null) {
+            laned.close();
+        }
+    }
+
+    @Benchmark
+    public long receiptsBehindLargeReports() {
+        for (int i = 0; i < LARGE_JOBS; i++) {
+            largeResults.add(submit(largeHtml));
+        }
+        List<CompletableFuture<byte[]>> receipts = new ArrayList<>(RECEIPTS);
+        for (int i = 0; i < RECEIPTS; i++) {
+            receipts.add(submit(receiptHtml));
+        }
+        long bytes = 0;
+        for (CompletableFuture<byte[]> receipt : receipts) {
+            bytes += receipt.join().length;
+        }
+        return bytes;
+    }
+
+    private CompletableFuture<byte[]> submit(byte[] html) {
+        return shared != null ? shared.submit(html) : laned.submit(html);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.pdf;
+
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.kernel.events.Event;
+import com.itextpdf.kernel.events.IEventHandler;
+import com.itextpdf.kernel.events.PdfDocumentEvent;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.layout.Canvas;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.properties.TextAlignment;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个页面事件处理器的每页耗时，以及生成文档的大小 ({@code outputBytes} 辅助指标)
+ * <p>
+ * {@code legacyPerPageFont} 复现了修改前每页调用 {@code PdfFontFactory.createFont} 的页脚，作为对照。
+ * {@code allSeparate} 将页眉、页脚、水印、页码分别注册为处理器 (每页四个内容流)，
+ * {@code allDecorator} 将它们交给一个 {@link PageDecorator} (每页一个内容流)。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageHandlerBenchmark {
+
+    private static final int PAGES = 100;
+
+    @Param({"header", "ender", "watermark", "watermarkXObject", "legacyPerPageFont", "allSeparate", "allDecorator"})
+    public String handler;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class OutputSize {
+        // 最近一次生成的文档大小，而非累计值
+        public long outputBytes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGES)
+    public void decoratePages(OutputSize outputSize) {
+        DiscardingOutputStream out = new DiscardingOutputStream();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfWriter(out))) {
+            pdfDoc.setDefaultPageSize(PageSize.A4);
+            List<IEventHandler> handlers = createHandlers();
+            for (IEventHandler pageHandler : handlers) {
+                pdfDoc.addEventHandler(PdfDocumentEvent.END_PAGE, pageHandler);
+            }
+            for (int i = 0; i < PAGES; i++) {
+                pdfDoc.addNewPage();
+            }
+            for (IEventHandler pageHandler : handlers) {
+                if (pageHandler instanceof PageDecorator) {
+                    ((PageDecorator) pageHandler).finishDocument(pdfDoc);
+                } else if (pageHandler instanceof PageNumberEventHandler) {
+                    ((PageNumberEventHandler) pageHandler).writeTotalPages(pdfDoc);
+                }
+            }
+        }
+        outputSize.outputBytes = out.getCount();
+    }
+
+    private List<IEventHandler> createHandlers() {
+        switch (handler) {
+            case "allSeparate":
+                List<IEventHandler> separate = new ArrayList<>();
+                for (PageDecoration decoration : allDecorations()) {
+                    // 内置的装饰同时也是处理器
+                    separate.add((IEventHandler) decoration);
+                }
+                return separate;
+            case "allDecorator":
+                return Collections.<IEventHandler>singletonList(new PageDecorator(allDecorations()));
+            default:
+                return Collections.singletonList(createHandler());
+        }
+    }
+
+    private static List<PageDecoration> allDecorations() {
+        return Arrays.<PageDecoration>asList(
+                new WaterMarkEventHandler("内部资料 Confidential").setUseFormXObject(true),
+                new PageHeaderEventHandler("页眉 Page Header"),
+                new PageEnderEventHandler("页脚 Page Footer"),
+                new PageNumberEventHandler());
+    }
+
+    private IEventHandler createHandler() {
+        switch (handler) {
+            case "header":
+                return new PageHeaderEventHandler("页眉 Page Header");
+            case "ender":
+                return new PageEnderEventHandler("页脚 Page Footer");
+            case "watermark":
+                return new WaterMarkEventHandler("内部资料 Confidential");
+            case "watermarkXObject":
+                return new WaterMarkEventHandler("内部资料 Confidential").setUseFormXObject(true);
+            default:
+                return new LegacyPerPageFontHandler("页脚 Page Footer");
+        }
+    }
+
+    /**
+     * 修改前的页脚写法：每页重新创建 STSongStd-Light 字体
+     */
+    private static final class LegacyPerPageFontHandler implements IEventHandler {
+        private final String content;
+
+        private LegacyPerPageFontHandler(String content) {
+            this.content = content;
+        }
+
+        @Override
+        public void handleEvent(Event event) {
+            PdfDocumentEvent pdfDocumentEvent = (PdfDocumentEvent) event;
+            PdfPage page = pdfDocumentEvent.getPage();
+            Rectangle pageSize = page.getPageSize();
+            PdfDocument pdfDoc = pdfDocumentEvent.getDocument();
+            PdfFont pdfFont;
+            try {
+                pdfFont = PdfFontFactory.createFont("STSongStd-Light", PdfEncodings.IDENTITY_H);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            PdfCanvas pdfCanvas = new PdfCanvas(page.newContentStreamBefore(), page.getResources(), pdfDoc);
+            try (Canvas canvas = new Canvas(pdfCanvas, pageSize)) {
+                float x = (pageSize.getLeft() + pageSize.getRight()) / 2;
+                canvas.showTextAligned(new Paragraph(content).setFontSize(7).setFont(pdfFont), x, pageSize.getBottom() + 32, TextAlignment.CENTER);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.pdf;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基准测试使用的HTML样本，按类型和行数生成
+ */
+final class SampleDocuments {
+
+    static final String PLAIN = "plain";
+    static final String TABLE = "table";
+    static final String CJK = "cjk";
+
+    private SampleDocuments() {
+    }
+
+    /**
+     * @param kind {@link #PLAIN}、{@link #TABLE} 或 {@link #CJK}
+     * @param rows 段落或表格行数，决定文档大小和页数
+     * @return UTF-8 编码的HTML
+     */
+    static byte[] html(String kind, int rows) {
+        StringBuilder html = new StringBuilder(rows * 160);
+        html.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset='UTF-8'>\n<title>Benchmark</title>\n")
+                .append("<style>\n")
+                .append("body { font-family: 'Microsoft YaHei', sans-serif; font-size: 10px; }\n")
+                .append("table { width: 100%; border-collapse: collapse; }\n")
+                .append("td, th { border: 1px solid #999; padding: 2px; }\n")
+                .append("</style>\n</head>\n<body>\n");
+        if (TABLE.equals(kind)) {
+            html.append("<table>\n<tr><th>No.</th><th>Item</th><th>Qty</th><th>Price</th><th>Amount</th><th>Remark</th></tr>\n");
+            for (int i = 1; i <= rows; i++) {
+                html.append("<tr><td>").append(i)
+                        .append("</td><td>Item&nbsp;").append(i)
+                        .append("</td><td>").append(i % 7 + 1)
+                        .append("</td><td>12.50</td><td>").append((i % 7 + 1) * 12.5)
+                        .append("</td><td>Remark for row ").append(i).append("</td></tr>\n");
+            }
+            html.append("</table>\n");
+        } else if (CJK.equals(kind)) {
+            for (int i = 1; i <= rows; i++) {
+                html.append("<p>第").append(i)
+                        .append("段：经确认产品与装箱清单吻合，已完成安装并能正常使用。客户签收后请妥善保管本单据，如有疑问请联系客服。</p>\n");
+            }
+        } else {
+            for (int i = 1; i <= rows; i++) {
+                html.append("<p>Paragraph ").append(i)
+                        .append(": The quick brown fox jumps over the lazy dog.&nbsp;Lorem ipsum dolor sit amet, consectetur adipiscing elit.</p>\n");
+            }
+        }
+        html.append("</body>\n</html>\n");
+        return html.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 字体目录，通过 {@code -Dbenchmark.fontDir=...} 指定，默认使用 STSongStd-Light 回退字体
+     */
+    static String fontDir() {
+        return System.getProperty("benchmark.fontDir");
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.pdf;
+
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.itextpdf.html2pdf.HtmlConverter;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.font.FontProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 转换流程各阶段的单独耗时：实体预处理、字体提供者、HTML排版、重新打开复制
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StageBenchmark {
+
+    @Param({SampleDocuments.PLAIN, SampleDocuments.TABLE, SampleDocuments.CJK})
+    public String kind;
+
+    @Param({"10", "200", "2000"})
+    public int rows;
+
+    private byte[] html;
+    private byte[] pdf;
+    private String fontDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        html = SampleDocuments.html(kind, rows);
+        fontDir = SampleDocuments.fontDir();
+        ByteArrayOutputStream pdfBytes = new ByteArrayOutputStream();
+        HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(html), fontDir, pdfBytes, PageSize.A4, false);
+        pdf = pdfBytes.toByteArray();
+    }
+
+    /**
+     * 当前的流式实体替换
+     */
+    @Benchmark
+    public long readInputStream() throws IOException {
+        try (InputStream processed = HtmlToPdfConverter.readInputStream(new ByteArrayInputStream(html))) {
+            return drain(processed);
+        }
+    }
+
+    /**
+     * 替换前的实现：整篇读入、解码、正则替换、再编码
+     */
+    @Benchmark
+    public long legacyReadInputStream() throws IOException {
+        try (InputStream processed = legacyReadInputStream(new ByteArrayInputStream(html))) {
+            return drain(processed);
+        }
+    }
+
+    @Benchmark
+    public FontProvider fontProviderFromRegistry() {
+        return FontRegistry.newFontProvider(fontDir);
+    }
+
+    /**
+     * 每次都重新解析字体目录，相当于没有 {@link FontRegistry} 缓存时的开销
+     */
+    @Benchmark
+    public FontProvider fontProviderUncached() {
+        FontRegistry.invalidate(fontDir);
+        return FontRegistry.newFontProvider(fontDir);
+    }
+
+    @Benchmark
+    public long convertToDocument() throws IOException {
+        DiscardingOutputStream out = new DiscardingOutputStream();
+        PdfDocument pdfDocument = new PdfDocument(new PdfWriter(out));
+        pdfDocument.setDefaultPageSize(PageSize.A4);
+        ConverterProperties properties = new ConverterProperties();
+        properties.setFontProvider(FontRegistry.newFontProvider(fontDir));
+        Document document = HtmlConverter.convertToDocument(new ByteArrayInputStream(html), pdfDocument, properties);
+        document.close();
+        return out.getCount();
+    }
+
+    /**
+     * 原 addPageFoot 路径中的第二遍：读取已生成的PDF并完整重写；现在页码在首次写出时添加，保留作对比
+     */
+    @Benchmark
+    public long reopenCopy() throws IOException {
+        DiscardingOutputStream out = new DiscardingOutputStream();
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)), new PdfWriter(out))) {
+            return pdfDocument.getNumberOfPages();
+        }
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int len;
+        while ((len = in.read(buffer)) != -1) {
+            total += len;
+        }
+        return total;
+    }
+
+    private static InputStream legacyReadInputStream(InputStream inputStreamToProcess) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int len;
+        while ((len = inputStreamToProcess.read(buffer)) != -1) {
+            baos.write(buffer, 0, len);
+        }
+        String content = baos.toString(StandardCharsets.UTF_8.name());
+        Pattern compile = Pattern.compile("\\&[a-zA-Z]{1,10};", Pattern.CASE_INSENSITIVE);
+        Matcher matcher = compile.matcher(content);
+        String replaceAll = matcher.replaceAll(" ");
+        return new ByteArrayInputStream(replaceAll.getBytes(StandardCharsets.UTF_8));
+    }
+}
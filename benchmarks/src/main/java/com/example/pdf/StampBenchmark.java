@@ -0,0 +1,72 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 为已有PDF添加水印和页码：{@link PdfDecorationStamper} 增量追加与整份重写 (读入后以普通模式写出) 的耗时 (毫秒) 对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StampBenchmark {
+
+    @Param({"2000"})
+    public int rows;
+
+    private byte[] pdf;
+    private List<PageDecoration> decorations;
+
+    @Setup
+    public void setUp() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(SampleDocuments.html(SampleDocuments.TABLE, rows)),
+                SampleDocuments.fontDir(), out, PageSize.A4, false);
+        pdf = out.toByteArray();
+        decorations = Arrays.<PageDecoration>asList(new WaterMarkEventHandler("DRAFT").setUseFormXObject(true),
+                new PageNumberEventHandler());
+    }
+
+    @Benchmark
+    public long append() throws IOException {
+        DiscardingOutputStream out = new DiscardingOutputStream();
+        PdfDecorationStamper.stamp(new ByteArrayInputStream(pdf), out, decorations);
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long rewrite() throws IOException {
+        DiscardingOutputStream out = new DiscardingOutputStream();
+        PageDecorator decorator = new PageDecorator(decorations);
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)), new PdfWriter(out))) {
+            for (int i = 1; i <= pdfDoc.getNumberOfPages(); i++) {
+                decorator.decorate(pdfDoc.getPage(i));
+            }
+            decorator.finishDocument(pdfDoc);
+        }
+        return out.getCount();
+    }
+}
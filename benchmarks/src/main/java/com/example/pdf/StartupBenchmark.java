@@ -0,0 +1,55 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 新进程中第一次转换的耗时 (毫秒)：每个 fork 只测量一次，不做 JMH 预热
+ * <p>
+ * {@code warmUp=true} 时先调用 {@link ConverterWarmUp#warmUp(String)} (不计入耗时)，对比服务扩容后首个请求的延迟。
+ * 测量 AppCDS 的效果时，用 {@code -jvmArgsAppend -XX:SharedArchiveFile=...} 指定归档。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+    @Param({"false", "true"})
+    public boolean warmUp;
+
+    private byte[] html;
+    private String fontDir;
+
+    @Setup
+    public void setUp() {
+        html = SampleDocuments.html(SampleDocuments.TABLE, 50);
+        fontDir = SampleDocuments.fontDir();
+        if (warmUp) {
+            ConverterWarmUp.warmUp(fontDir);
+        }
+    }
+
+    @Benchmark
+    public long firstConversion() throws IOException {
+        DiscardingOutputStream pdf = new DiscardingOutputStream();
+        HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(html), fontDir, pdf, PageSize.A4, true);
+        return pdf.getCount();
+    }
+}
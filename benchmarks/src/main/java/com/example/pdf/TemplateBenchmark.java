@@ -0,0 +1,75 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PdfTemplate} 渲染与每次完整解析HTML的 {@link HtmlToPdfConverter#convertToPdf} 对比
+ * <p>
+ * 两者输入相同：冷路径先用字符串替换填入数据再完整转换，模板路径复用已解析的DOM。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateBenchmark {
+
+    @Param({SampleDocuments.PLAIN, SampleDocuments.TABLE})
+    public String kind;
+
+    @Param({"10", "200"})
+    public int rows;
+
+    private String templateHtml;
+    private String fontDir;
+    private PdfTemplate template;
+    private Map<String, Object> data;
+
+    @Setup
+    public void setUp() throws IOException {
+        templateHtml = new String(SampleDocuments.html(kind, rows), StandardCharsets.UTF_8)
+                .replace("<body>\n", "<body>\n<h1 title='${number}'>Invoice ${number}</h1>\n<p>Customer: ${customer}</p>\n");
+        fontDir = SampleDocuments.fontDir();
+        template = PdfTemplate.compile(new ByteArrayInputStream(templateHtml.getBytes(StandardCharsets.UTF_8)), fontDir, PageSize.A4, false);
+        data = new HashMap<>();
+        data.put("number", "INV-2024-0001");
+        data.put("customer", "ACME Corporation");
+    }
+
+    @Benchmark
+    public long coldConversion() throws IOException {
+        String html = templateHtml;
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            html = html.replace("${" + entry.getKey() + "}", String.valueOf(entry.getValue()));
+        }
+        DiscardingOutputStream pdf = new DiscardingOutputStream();
+        HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)), fontDir, pdf, PageSize.A4, false);
+        return pdf.getCount();
+    }
+
+    @Benchmark
+    public long templateRender() throws IOException {
+        DiscardingOutputStream pdf = new DiscardingOutputStream();
+        template.render(data, pdf);
+        return pdf.getCount();
+    }
+}
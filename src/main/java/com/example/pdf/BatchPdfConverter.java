@@ -0,0 +1,334 @@
+package com.example.pdf;
+
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.styledxmlparser.resolver.resource.IResourceRetriever;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * 批量PDF转换
+ * <p>
+ * 一批文档共享同一份转换配置 (字体目录、页面大小、页码)。每个工作线程只创建一次
+ * {@link ConverterProperties} (含字体提供者及其字体匹配缓存)，并在该线程处理的所有文档间复用，
+ * 避免逐个调用 {@link HtmlToPdfConverter#convertToPdf} 时重复的字体和配置初始化。
+ * <p>
+ * 单个文档失败不会中断整批转换，失败项记录在 {@link BatchResult#getFailures()} 中；
+ * 失败文档的输出可能只写入了一部分，调用方应丢弃。
+ */
+public class BatchPdfConverter {
+
+    private static final Logger LOGGER = Logger.getLogger(BatchPdfConverter.class.getName());
+
+    private final String customFontDir;
+    private final PageSize pageSize;
+    private final boolean addPageFoot;
+    private final boolean subsetFonts;
+    private final String baseUri;
+    private final IResourceRetriever resourceRetriever;
+    private final int parallelism;
+    private final ConversionListener listener;
+
+    private BatchPdfConverter(Builder builder) {
+        this.customFontDir = builder.customFontDir;
+        this.pageSize = builder.pageSize;
+        this.addPageFoot = builder.addPageFoot;
+        this.subsetFonts = builder.subsetFonts;
+        this.baseUri = builder.baseUri;
+        this.resourceRetriever = builder.resourceRetriever;
+        this.parallelism = builder.parallelism;
+        this.listener = builder.listener;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 转换一批文档，全部完成后返回
+     *
+     * @param items 待转换的文档
+     * @return 成功数和失败明细
+     */
+    public BatchResult convert(List<BatchItem> items) throws InterruptedException {
+        return convert(items.iterator());
+    }
+
+    /**
+     * 转换一批文档，文档按需从流中取出，不会一次性全部载入内存
+     *
+     * @param items 待转换的文档
+     * @return 成功数和失败明细
+     */
+    public BatchResult convert(Stream<BatchItem> items) throws InterruptedException {
+        return convert(items.iterator());
+    }
+
+    private BatchResult convert(Iterator<BatchItem> items) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        ItemQueue queue = new ItemQueue(items);
+        List<BatchFailure> failures = Collections.synchronizedList(new ArrayList<BatchFailure>());
+        AtomicInteger succeeded = new AtomicInteger();
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, daemonThreadFactory());
+        try {
+            List<Future<?>> running = new ArrayList<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                running.add(workers.submit(() -> runWorker(queue, succeeded, failures)));
+            }
+            for (Future<?> worker : running) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    // 单个文档的异常在 runWorker 中处理，这里只剩取数失败或 Error
+                    throw new IllegalStateException("Batch conversion aborted", e.getCause());
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return new BatchResult(succeeded.get(), failures, System.nanoTime() - startNanos);
+    }
+
+    private void runWorker(ItemQueue queue, AtomicInteger succeeded, List<BatchFailure> failures) {
+        // 每个工作线程一份配置，线程内顺序复用
+        ConverterProperties properties = HtmlToPdfConverter.newConverterProperties(customFontDir, subsetFonts, baseUri, resourceRetriever);
+        BatchItem item;
+        while (!Thread.currentThread().isInterrupted() && (item = queue.next()) != null) {
+            try {
+                convertItem(item, properties);
+                succeeded.incrementAndGet();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Failed to convert batch item " + item.getId() + ": " + e.getMessage(), e);
+                failures.add(new BatchFailure(item.getId(), e));
+            }
+        }
+    }
+
+    private void convertItem(BatchItem item, ConverterProperties properties) throws IOException {
+        try (InputStream htmlInputStream = item.source.open();
+             OutputStream outputStream = item.sink.open()) {
+            HtmlToPdfConverter.convertWithProperties(htmlInputStream, properties, outputStream, pageSize, HtmlToPdfConverter.pageFoot(addPageFoot), listener);
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "pdf-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 多个工作线程共享的取数入口
+     */
+    private static final class ItemQueue {
+        private final Iterator<BatchItem> items;
+
+        ItemQueue(Iterator<BatchItem> items) {
+            this.items = items;
+        }
+
+        synchronized BatchItem next() {
+            return items.hasNext() ? items.next() : null;
+        }
+    }
+
+    /**
+     * HTML来源，每个文档打开一次
+     */
+    public interface HtmlSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * PDF输出目标，每个文档打开一次，转换结束后关闭
+     */
+    public interface PdfSink {
+        OutputStream open() throws IOException;
+    }
+
+    /**
+     * 批量转换中的一个文档
+     */
+    public static final class BatchItem {
+        private final String id;
+        private final HtmlSource source;
+        private final PdfSink sink;
+
+        private BatchItem(String id, HtmlSource source, PdfSink sink) {
+            this.id = id;
+            this.source = source;
+            this.sink = sink;
+        }
+
+        /**
+         * @param id     文档标识，用于失败报告
+         * @param source HTML来源
+         * @param sink   PDF输出目标
+         */
+        public static BatchItem of(String id, HtmlSource source, PdfSink sink) {
+            return new BatchItem(id, source, sink);
+        }
+
+        /**
+         * HTML文件转换为PDF文件，以HTML文件路径作为标识
+         */
+        public static BatchItem of(File htmlFile, File pdfFile) {
+            return new BatchItem(htmlFile.getPath(), () -> new FileInputStream(htmlFile), () -> new FileOutputStream(pdfFile));
+        }
+
+        public String getId() {
+            return id;
+        }
+    }
+
+    /**
+     * 单个文档的失败信息
+     */
+    public static final class BatchFailure {
+        private final String id;
+        private final Throwable error;
+
+        BatchFailure(String id, Throwable error) {
+            this.id = id;
+            this.error = error;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+    }
+
+    /**
+     * 整批转换的结果
+     */
+    public static final class BatchResult {
+        private final int succeeded;
+        private final List<BatchFailure> failures;
+        private final long elapsedNanos;
+
+        BatchResult(int succeeded, List<BatchFailure> failures, long elapsedNanos) {
+            this.succeeded = succeeded;
+            this.failures = Collections.unmodifiableList(new ArrayList<>(failures));
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getSucceeded() {
+            return succeeded;
+        }
+
+        public List<BatchFailure> getFailures() {
+            return failures;
+        }
+
+        public boolean isAllSucceeded() {
+            return failures.isEmpty();
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    public static final class Builder {
+        private String customFontDir;
+        private PageSize pageSize = PageSize.A4;
+        private boolean addPageFoot;
+        private boolean subsetFonts = true;
+        private String baseUri;
+        private IResourceRetriever resourceRetriever;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private ConversionListener listener = ConversionListener.NO_OP;
+
+        private Builder() {
+        }
+
+        public Builder customFontDir(String customFontDir) {
+            this.customFontDir = customFontDir;
+            return this;
+        }
+
+        public Builder pageSize(PageSize pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public Builder addPageFoot(boolean addPageFoot) {
+            this.addPageFoot = addPageFoot;
+            return this;
+        }
+
+        /**
+         * 嵌入字体时是否只嵌入用到的字形，默认 {@code true}，见 {@link FontRegistry#newFontProvider(String, boolean)}
+         */
+        public Builder subsetFonts(boolean subsetFonts) {
+            this.subsetFonts = subsetFonts;
+            return this;
+        }
+
+        /**
+         * 图片、样式表等相对地址的基准 (目录路径或URL)，默认相对于当前工作目录
+         */
+        public Builder baseUri(String baseUri) {
+            this.baseUri = baseUri;
+            return this;
+        }
+
+        /**
+         * 所有工作线程共用的资源读取器，需要线程安全。使用 {@link CachingResourceRetriever} 时，
+         * 整批文档引用的同一图片、样式表只读取一次，且每个文档排版前并发预取其引用的资源
+         */
+        public Builder resourceRetriever(IResourceRetriever resourceRetriever) {
+            this.resourceRetriever = resourceRetriever;
+            return this;
+        }
+
+        /**
+         * 同时进行转换的文档数
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be at least 1");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * 所有文档共用的指标监听器，需要线程安全
+         */
+        public Builder listener(ConversionListener listener) {
+            this.listener = listener != null ? listener : ConversionListener.NO_OP;
+            return this;
+        }
+
+        public BatchPdfConverter build() {
+            return new BatchPdfConverter(this);
+        }
+    }
+}
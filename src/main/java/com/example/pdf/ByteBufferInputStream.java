@@ -0,0 +1,48 @@
+package com.example.pdf;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 直接从 {@link ByteBuffer} (堆内、直接或内存映射缓冲区) 读取的输入流，不复制整个缓冲区
+ * <p>
+ * 读取的是缓冲区的一个视图 ({@link ByteBuffer#duplicate()})，不改变调用方缓冲区的位置。
+ */
+final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.remaining());
+        buffer.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) {
+        int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.pdf;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按大小分级的字节缓冲区池，用于转换过程中的中间结果和输出PDF
+ * <p>
+ * 容量按2的幂分级 (从 {@code minBufferSize} 到 {@code maxBufferSize})，申请时取不小于所需容量的最小一级，
+ * 归还后供同级的下一次申请复用，避免高并发下反复分配数MB的短命数组 (这类数组通常直接进入老年代)。
+ * 池中保留的总字节数不超过 {@code maxRetainedBytes}，超出时归还的缓冲区直接丢弃；超过最大一级的申请不经过池。
+ * 可选使用直接内存 ({@link ByteBuffer#allocateDirect(int)})，缓冲区不占用Java堆。
+ * <p>
+ * 线程安全。缓冲区归还后不得继续使用。
+ */
+public final class ByteBufferPool {
+
+    private final int minShift;
+    private final int maxShift;
+    private final long maxRetainedBytes;
+    private final boolean direct;
+    private final ConcurrentLinkedDeque<ByteBuffer>[] classes;
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private ByteBufferPool(Builder builder) {
+        this.minShift = shiftFor(builder.minBufferSize);
+        this.maxShift = shiftFor(builder.maxBufferSize);
+        this.maxRetainedBytes = builder.maxRetainedBytes;
+        this.direct = builder.direct;
+        this.classes = new ConcurrentLinkedDeque[maxShift - minShift + 1];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new ConcurrentLinkedDeque<>();
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 申请容量不小于 {@code minCapacity} 的缓冲区，位置为0，界限为容量
+     */
+    public ByteBuffer acquire(int minCapacity) {
+        int shift = shiftFor(Math.max(minCapacity, 1 << minShift));
+        if (shift > maxShift) {
+            misses.increment();
+            return allocate(minCapacity);
+        }
+        ByteBuffer buffer = classes[shift - minShift].pollFirst();
+        if (buffer == null) {
+            misses.increment();
+            return allocate(1 << shift);
+        }
+        hits.increment();
+        retainedBytes.addAndGet(-buffer.capacity());
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * 归还缓冲区；不属于任何一级 (例如超过最大一级或类型不同) 的缓冲区直接丢弃
+     */
+    public void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (buffer.isDirect() != direct || Integer.bitCount(capacity) != 1) {
+            return;
+        }
+        int shift = Integer.numberOfTrailingZeros(capacity);
+        if (shift < minShift || shift > maxShift) {
+            return;
+        }
+        if (retainedBytes.addAndGet(capacity) > maxRetainedBytes) {
+            retainedBytes.addAndGet(-capacity);
+            return;
+        }
+        // 后进先出，最近用过的缓冲区更可能还在CPU缓存中
+        classes[shift - minShift].offerFirst(buffer);
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * 命中率 (0 到 1)，尚无申请时为0
+     */
+    public double getHitRate() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * 池中当前保留 (空闲) 的字节数
+     */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    // 不小于 size 的最小的2的幂的指数
+    private static int shiftFor(int size) {
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "ByteBufferPool{direct=" + direct + ", hits=" + getHits() + ", misses=" + getMisses()
+                + ", retainedBytes=" + getRetainedBytes() + '}';
+    }
+
+    public static final class Builder {
+        private int minBufferSize = 64 * 1024;
+        private int maxBufferSize = 32 * 1024 * 1024;
+        private long maxRetainedBytes = 128L * 1024 * 1024;
+        private boolean direct;
+
+        private Builder() {
+        }
+
+        /**
+         * 最小一级和最大一级的容量，向上取整为2的幂，默认 64KB 和 32MB
+         */
+        public Builder bufferSizes(int minBufferSize, int maxBufferSize) {
+            if (minBufferSize < 1 || maxBufferSize < minBufferSize || maxBufferSize > (1 << 30)) {
+                throw new IllegalArgumentException("invalid buffer sizes: " + minBufferSize + ", " + maxBufferSize);
+            }
+            this.minBufferSize = minBufferSize;
+            this.maxBufferSize = maxBufferSize;
+            return this;
+        }
+
+        /**
+         * 池中最多保留的空闲字节数，默认 128MB；0 表示不保留 (每次都重新分配)
+         */
+        public Builder maxRetainedBytes(long maxRetainedBytes) {
+            if (maxRetainedBytes < 0) {
+                throw new IllegalArgumentException("maxRetainedBytes must not be negative");
+            }
+            this.maxRetainedBytes = maxRetainedBytes;
+            return this;
+        }
+
+        /**
+         * 是否使用直接内存，默认 {@code false}
+         */
+        public Builder direct(boolean direct) {
+            this.direct = direct;
+            return this;
+        }
+
+        public ByteBufferPool build() {
+            return new ByteBufferPool(this);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 带结果缓存的PDF转换
+ * <p>
+ * 缓存键为 SHA-256 (转换选项 + 字符实体替换后的HTML)，因此 {@code &nbsp;} 与 {@code &#160;} 等
+ * 排版结果相同的写法共用同一条目。命中时直接从 {@link PdfCacheStore} 将PDF写入输出流，不进行转换；
+ * 未命中时完整转换后先写出PDF，再保存到缓存，保存失败只记录日志。
+ * <p>
+ * 键只包含字体目录的路径，不包含目录中的字体文件；更新字体后请调用 {@link PdfCacheStore#clear()}。
+ * <p>
+ * HTML引用的图片和样式表 ({@code <img src>}、{@code <link rel="stylesheet" href>}) 按 {@code baseUri} 解析
+ * (未设置时相对于当前工作目录)。默认键中包含这些资源的地址，本地文件 ({@code file:}) 还包含修改时间和大小，
+ * 修改 logo、样式表后不会继续使用旧的PDF；远程资源只按地址区分，内容变化后请清空缓存或改用带版本的地址。
+ * 样式表内 {@code @import}、{@code url(...)} 引用的文件不在键中。资源从不修改 (例如地址带版本号) 时
+ * 可用 {@link Builder#resourcesInKey(boolean)} 关闭，命中时不再解析HTML。
+ * <p>
+ * 实例线程安全，同一键的并发未命中会各自转换一次。
+ */
+public class CachingPdfConverter {
+
+    private static final Logger LOGGER = Logger.getLogger(CachingPdfConverter.class.getName());
+    // 转换结果的格式变化 (如页码样式) 时递增，使旧条目失效
+    private static final String KEY_VERSION = "2";
+
+    private final String customFontDir;
+    private final PageSize pageSize;
+    private final boolean addPageFoot;
+    private final String baseUri;
+    private final boolean resourcesInKey;
+    private final PdfCacheStore store;
+    private final ConversionListener listener;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesServed = new AtomicLong();
+
+    private CachingPdfConverter(Builder builder) {
+        this.customFontDir = builder.customFontDir;
+        this.pageSize = builder.pageSize;
+        this.addPageFoot = builder.addPageFoot;
+        this.baseUri = builder.baseUri;
+        this.resourcesInKey = builder.resourcesInKey;
+        this.store = builder.store;
+        this.listener = builder.listener;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * html转pdf，结果相同时直接使用缓存
+     *
+     * @param htmlInputStream HTML输入流 (UTF-8)，读取后关闭
+     * @param outputStream    输出流
+     * @return 是否命中缓存
+     */
+    public boolean convert(InputStream htmlInputStream, OutputStream outputStream) throws IOException {
+        byte[] html;
+        String key;
+        try (InputStream in = htmlInputStream) {
+            html = readAll(in);
+            key = cacheKey(html);
+        }
+
+        long served = store.writeTo(key, outputStream);
+        if (served >= 0) {
+            hits.incrementAndGet();
+            bytesServed.addAndGet(served);
+            return true;
+        }
+        misses.incrementAndGet();
+
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(html), customFontDir, baseUri, null, pdf, pageSize,
+                HtmlToPdfConverter.pageFoot(addPageFoot), listener);
+        pdf.writeTo(outputStream);
+        try {
+            store.put(key, pdf.toByteArray());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not store converted PDF in cache: " + e.getMessage(), e);
+        }
+        return false;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * 命中时从缓存写出的字节总数
+     */
+    public long getBytesServed() {
+        return bytesServed.get();
+    }
+
+    /**
+     * 命中率，尚无请求时为 0
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public PdfCacheStore getStore() {
+        return store;
+    }
+
+    private String cacheKey(byte[] html) throws IOException {
+        MessageDigest digest = newDigest();
+        PageSize effectivePageSize = pageSize != null ? pageSize : PageSize.A4;
+        String options = KEY_VERSION
+                + '\n' + FontRegistry.toKey(customFontDir)
+                + '\n' + effectivePageSize.getWidth() + 'x' + effectivePageSize.getHeight()
+                + '\n' + addPageFoot
+                + '\n' + (baseUri != null ? baseUri : "") + '\n';
+        digest.update(options.getBytes(StandardCharsets.UTF_8));
+        // 与转换时相同的字符实体替换
+        byte[] normalizedHtml;
+        try (InputStream normalized = new DigestInputStream(HtmlToPdfConverter.readInputStream(new ByteArrayInputStream(html)), digest)) {
+            normalizedHtml = readAll(normalized);
+        }
+        if (resourcesInKey) {
+            for (URL url : HtmlDocuments.resourceUrls(HtmlDocuments.parseNormalized(new ByteArrayInputStream(normalizedHtml)), baseUri)) {
+                digest.update(('\n' + resourceStamp(url)).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * 资源在键中的表示：地址，本地文件另加修改时间和大小
+     */
+    private static String resourceStamp(URL url) {
+        String stamp = url.toExternalForm();
+        if (!"file".equalsIgnoreCase(url.getProtocol())) {
+            return stamp;
+        }
+        try {
+            Path file = Paths.get(url.toURI());
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return stamp + ' ' + attributes.lastModifiedTime().toMillis() + ' ' + attributes.size();
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            // 文件不存在或无法读取：之后出现时键随之变化
+            return stamp + " missing";
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // 每个JRE都必须支持 SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    public static final class Builder {
+        private String customFontDir;
+        private PageSize pageSize = PageSize.A4;
+        private boolean addPageFoot;
+        private String baseUri;
+        private boolean resourcesInKey = true;
+        private PdfCacheStore store;
+        private ConversionListener listener = ConversionListener.NO_OP;
+
+        private Builder() {
+        }
+
+        public Builder customFontDir(String customFontDir) {
+            this.customFontDir = customFontDir;
+            return this;
+        }
+
+        public Builder pageSize(PageSize pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public Builder addPageFoot(boolean addPageFoot) {
+            this.addPageFoot = addPageFoot;
+            return this;
+        }
+
+        /**
+         * 图片、样式表等相对地址的基准 (目录路径或URL)，默认为当前工作目录
+         */
+        public Builder baseUri(String baseUri) {
+            this.baseUri = baseUri;
+            return this;
+        }
+
+        /**
+         * 缓存键是否包含引用的图片和样式表 (地址，本地文件另加修改时间和大小)，默认 {@code true}
+         * <p>
+         * 资源从不修改时可关闭，命中时不再解析HTML；关闭后修改资源需调用 {@link PdfCacheStore#clear()}。
+         */
+        public Builder resourcesInKey(boolean resourcesInKey) {
+            this.resourcesInKey = resourcesInKey;
+            return this;
+        }
+
+        /**
+         * 缓存存储，例如 {@link MemoryPdfCacheStore} 或 {@link DirectoryPdfCacheStore}
+         */
+        public Builder store(PdfCacheStore store) {
+            this.store = store;
+            return this;
+        }
+
+        /**
+         * 未命中时实际转换的指标监听器；命中时不进行转换，不会通知监听器
+         */
+        public Builder listener(ConversionListener listener) {
+            this.listener = listener != null ? listener : ConversionListener.NO_OP;
+            return this;
+        }
+
+        public CachingPdfConverter build() {
+            if (store == null) {
+                throw new IllegalStateException("store is required");
+            }
+            return new CachingPdfConverter(this);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.pdf;
+
+import com.itextpdf.styledxmlparser.resolver.resource.DefaultResourceRetriever;
+import com.itextpdf.styledxmlparser.resolver.resource.IResourceRetriever;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 带缓存的图片、样式表读取器，可在多个文档、多个线程间共享
+ * <p>
+ * 读取结果 (原始字节) 按URL缓存在内存中，按总字节数限制容量，超出后淘汰最久未使用的条目；
+ * 同一URL的并发读取只访问一次来源。配置到转换中后 (例如 {@link BatchPdfConverter.Builder#resourceRetriever})，
+ * 转换会在排版前并发预取HTML中所有 {@code <img src>} 和 {@code <link rel="stylesheet" href>}，
+ * 排版时直接从缓存读取，不再逐个串行下载。
+ * <p>
+ * 缓存的是原始字节而非解码后的图片：html2pdf 的图片对象属于单个PDF文档，且未提供跨文档复用解码结果的入口；
+ * 同一文档内对同一图片的多次引用仍由 html2pdf 只解码一次。读取失败的URL不缓存。
+ * 超过 {@code maxEntryBytes} 的资源不缓存，记住这些URL后不再预取，排版时直接读取。
+ * <p>
+ * 预取使用实例自己的守护线程池，实例通常在进程内长期共享；不再使用时调用 {@link #close()} 关闭线程池，
+ * 关闭后仍可读取资源，但不再预取。
+ */
+public class CachingResourceRetriever implements IResourceRetriever, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(CachingResourceRetriever.class.getName());
+    private static final int MAX_OVERSIZED_URLS = 1024;
+
+    private final IResourceRetriever delegate;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final long prefetchTimeoutMillis;
+    private final ExecutorService prefetchExecutor;
+
+    // 按访问顺序排列，最久未使用的在最前
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+    // 已知超过 maxEntryBytes 的URL，按访问顺序只保留最近的一部分
+    private final LinkedHashMap<String, Boolean> oversized = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_OVERSIZED_URLS;
+        }
+    };
+    private final ConcurrentMap<String, CompletableFuture<byte[]>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private CachingResourceRetriever(Builder builder) {
+        this.delegate = builder.delegate;
+        this.maxBytes = builder.maxBytes;
+        this.maxEntryBytes = Math.min(builder.maxEntryBytes, builder.maxBytes);
+        this.prefetchTimeoutMillis = builder.prefetchTimeoutMillis;
+        this.prefetchExecutor = Executors.newFixedThreadPool(builder.prefetchThreads, daemonThreadFactory());
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public InputStream getInputStreamByUrl(URL url) throws IOException {
+        byte[] bytes = getByteArrayByUrl(url);
+        return bytes != null ? new ByteArrayInputStream(bytes) : null;
+    }
+
+    @Override
+    public byte[] getByteArrayByUrl(URL url) throws IOException {
+        String key = url.toExternalForm();
+        byte[] cached = getCached(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        if (isOversized(key)) {
+            misses.incrementAndGet();
+            return delegate.getByteArrayByUrl(url);
+        }
+        CompletableFuture<byte[]> load = new CompletableFuture<>();
+        CompletableFuture<byte[]> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            // 其他线程 (通常是预取) 正在读取同一URL
+            hits.incrementAndGet();
+            return await(inFlight);
+        }
+        misses.incrementAndGet();
+        try {
+            byte[] bytes = delegate.getByteArrayByUrl(url);
+            if (bytes != null) {
+                put(key, bytes);
+            }
+            load.complete(bytes);
+            return bytes;
+        } catch (IOException | RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    /**
+     * 并发读取一组URL放入缓存，读取失败只记录日志 (排版时会再次尝试并由 html2pdf 报告)
+     *
+     * @param urls 资源URL
+     * @return 全部读取结束 (成功或失败) 时完成
+     */
+    public CompletableFuture<Void> prefetch(Collection<URL> urls) {
+        List<CompletableFuture<?>> fetches = new ArrayList<>(urls.size());
+        for (URL url : urls) {
+            String key = url.toExternalForm();
+            if (getCached(key) != null || isOversized(key)) {
+                continue;
+            }
+            try {
+                fetches.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        getByteArrayByUrl(url);
+                    } catch (IOException | RuntimeException e) {
+                        LOGGER.log(Level.FINE, "Prefetch failed for " + url + ": " + e.getMessage(), e);
+                    }
+                }, prefetchExecutor));
+            } catch (RejectedExecutionException e) {
+                // 已关闭，排版时按需读取
+                break;
+            }
+        }
+        return CompletableFuture.allOf(fetches.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * 排版前等待预取的最长时间 (毫秒)
+     */
+    public long getPrefetchTimeoutMillis() {
+        return prefetchTimeoutMillis;
+    }
+
+    /**
+     * 关闭预取线程池并中断正在进行的预取；缓存内容保留，之后的读取不再预取
+     */
+    @Override
+    public void close() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        oversized.clear();
+        sizeBytes = 0;
+    }
+
+    private synchronized byte[] getCached(String key) {
+        return entries.get(key);
+    }
+
+    private synchronized boolean isOversized(String key) {
+        return oversized.containsKey(key);
+    }
+
+    private synchronized void put(String key, byte[] bytes) {
+        if (bytes.length > maxEntryBytes) {
+            oversized.put(key, Boolean.TRUE);
+            return;
+        }
+        byte[] previous = entries.put(key, bytes);
+        if (previous != null) {
+            sizeBytes -= previous.length;
+        }
+        sizeBytes += bytes.length;
+        Iterator<Map.Entry<String, byte[]>> eldest = entries.entrySet().iterator();
+        while (sizeBytes > maxBytes) {
+            sizeBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> load) throws IOException {
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for resource", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "pdf-resource-prefetch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static final class Builder {
+        private IResourceRetriever delegate = new DefaultResourceRetriever();
+        private long maxBytes = 64L * 1024 * 1024;
+        private long maxEntryBytes = 8L * 1024 * 1024;
+        private int prefetchThreads = 8;
+        private long prefetchTimeoutMillis = 10_000;
+
+        private Builder() {
+        }
+
+        /**
+         * 实际读取资源的读取器，默认为 html2pdf 的 {@link DefaultResourceRetriever}
+         */
+        public Builder delegate(IResourceRetriever delegate) {
+            this.delegate = delegate;
+            return this;
+        }
+
+        /**
+         * 缓存的资源总字节数上限，默认 64MB
+         */
+        public Builder maxBytes(long maxBytes) {
+            if (maxBytes < 1) {
+                throw new IllegalArgumentException("maxBytes must be positive");
+            }
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * 单个资源可缓存的最大字节数，更大的资源每次重新读取，默认 8MB
+         */
+        public Builder maxEntryBytes(long maxEntryBytes) {
+            if (maxEntryBytes < 1) {
+                throw new IllegalArgumentException("maxEntryBytes must be positive");
+            }
+            this.maxEntryBytes = maxEntryBytes;
+            return this;
+        }
+
+        /**
+         * 同时预取的资源数，默认 8
+         */
+        public Builder prefetchThreads(int prefetchThreads) {
+            if (prefetchThreads < 1) {
+                throw new IllegalArgumentException("prefetchThreads must be at least 1");
+            }
+            this.prefetchThreads = prefetchThreads;
+            return this;
+        }
+
+        /**
+         * 转换在排版前等待预取的最长时间，超时后未读到的资源在排版时按需读取，默认 10 秒
+         */
+        public Builder prefetchTimeout(long timeout, TimeUnit unit) {
+            if (timeout < 0) {
+                throw new IllegalArgumentException("prefetchTimeout must not be negative");
+            }
+            this.prefetchTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        public CachingResourceRetriever build() {
+            return new CachingResourceRetriever(this);
+        }
+    }
+}
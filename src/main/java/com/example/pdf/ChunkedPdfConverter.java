@@ -0,0 +1,322 @@
+package com.example.pdf;
+
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.itextpdf.io.source.IRandomAccessSource;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.ReaderProperties;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.kernel.utils.PdfMerger;
+import com.itextpdf.styledxmlparser.jsoup.nodes.Document;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * 分块并行转换：将由多个独立部分组成的长文档 (例如每个客户一个 {@code <section>} 的报表)
+ * 按分界元素切分，在 {@link ForkJoinPool} 中并行排版各块，再按顺序用 {@link PdfMerger} 合并，
+ * 最后在合并后的文档上统一绘制页码等页面装饰。
+ * <p>
+ * 切分位置见 {@link HtmlDocuments#splitAtBoundaries}：只在 {@code body} 的直接子元素之间切分，
+ * 每块从新的一页开始，因此分界元素应当本来就另起一页。块之间的页内链接、CSS 计数器不再连续；
+ * 每块分别嵌入自己用到的字形子集，同一字体在合并结果中会出现多份子集。
+ * <p>
+ * 合并写出时使用 iText smart mode，各块中内容相同的对象 (如相同的图片) 只写出一次。
+ * 各块的中间PDF写入 {@link ByteBufferPool} 的缓冲区，合并时直接从缓冲区读取，合并后立即归还。
+ * 实例线程安全，可在多个线程间共享。
+ */
+public class ChunkedPdfConverter {
+
+    private final String customFontDir;
+    private final PageSize pageSize;
+    private final List<? extends PageDecoration> decorations;
+    private final String chunkSelector;
+    private final ForkJoinPool pool;
+    private final ConversionListener listener;
+    private final ByteBufferPool bufferPool;
+
+    private ChunkedPdfConverter(Builder builder) {
+        this.customFontDir = builder.customFontDir;
+        this.pageSize = builder.pageSize;
+        this.decorations = builder.decorations;
+        this.chunkSelector = builder.chunkSelector;
+        this.pool = builder.pool;
+        this.listener = builder.listener;
+        this.bufferPool = builder.bufferPool != null ? builder.bufferPool : ByteBufferPool.builder().maxRetainedBytes(0).build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * html转pdf，各部分并行排版
+     *
+     * @param htmlInputStream HTML输入流 (UTF-8)，读取后关闭
+     * @param outputStream    输出流
+     * @return 实际切分得到的块数
+     */
+    public int convert(InputStream htmlInputStream, OutputStream outputStream) throws IOException {
+        ConversionRecorder recorder = new ConversionRecorder(listener);
+        try {
+            int chunkCount = convert(htmlInputStream, outputStream, recorder);
+            recorder.completed();
+            return chunkCount;
+        } catch (IOException | RuntimeException | Error e) {
+            recorder.failed(e);
+            throw e;
+        }
+    }
+
+    private int convert(InputStream htmlInputStream, OutputStream outputStream, ConversionRecorder recorder) throws IOException {
+        recorder.startStage();
+        Document html;
+        try (InputStream countedInput = recorder.countInput(htmlInputStream)) {
+            html = HtmlDocuments.parse(countedInput);
+        }
+        List<Document> chunks = HtmlDocuments.splitAtBoundaries(html, chunkSelector);
+        ChunkTasks tasks = new ChunkTasks(chunks.size());
+        for (Document chunk : chunks) {
+            tasks.submit(pool, () -> convertChunk(chunk));
+        }
+        recorder.endStage(ConversionStage.HTML_LAYOUT);
+
+        // 按顺序等待并合并，后面的块在合并前面的块时继续排版
+        recorder.startStage();
+        try (PdfWriter pdfWriter = new PdfWriter(recorder.countOutput(outputStream), new WriterProperties().useSmartMode())) {
+            PdfDocument merged = new PdfDocument(pdfWriter);
+            recorder.trackPages(merged);
+            PdfMerger merger = new PdfMerger(merged).setCloseSourceDocuments(true);
+            PageDecorator decorator = decorations.isEmpty() ? null : new PageDecorator(decorations);
+            for (ForkJoinTask<PooledBuffer> task : tasks.tasks) {
+                try (PooledBuffer chunkBytes = await(task)) {
+                    PdfDocument chunkPdf = new PdfDocument(new PdfReader(new BufferSource(chunkBytes.buffer()), new ReaderProperties()));
+                    int firstPage = merged.getNumberOfPages() + 1;
+                    merger.merge(chunkPdf, 1, chunkPdf.getNumberOfPages());
+                    // 合并的页面不会触发页面事件，逐页装饰后即写出
+                    for (int i = firstPage; i <= merged.getNumberOfPages(); i++) {
+                        if (decorator != null) {
+                            decorator.decorate(merged.getPage(i));
+                        }
+                        merged.getPage(i).flush();
+                    }
+                }
+            }
+            if (decorator != null) {
+                decorator.finishDocument(merged);
+            }
+            merged.close();
+        } catch (IOException | RuntimeException | Error e) {
+            // 某块失败或合并失败：停止其余块并归还已完成块的缓冲区
+            tasks.cancelAll();
+            throw e;
+        }
+        recorder.endStage(ConversionStage.PDF_WRITE);
+        return chunks.size();
+    }
+
+    private PooledBuffer convertChunk(Document chunk) throws IOException {
+        ConverterProperties properties = HtmlToPdfConverter.newConverterProperties(customFontDir);
+        PooledOutputStream pdf = new PooledOutputStream(bufferPool);
+        try {
+            HtmlToPdfConverter.convertDocument(HtmlDocuments.toDocumentNode(chunk), properties, pdf, pageSize,
+                    Collections.<PageDecoration>emptyList(), ConversionListener.NO_OP);
+        } catch (IOException | RuntimeException | Error e) {
+            pdf.discard();
+            throw e;
+        }
+        return pdf.toPooledBuffer();
+    }
+
+    /**
+     * 等待一块完成
+     */
+    private static PooledBuffer await(ForkJoinTask<PooledBuffer> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for chunk conversion", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 一次转换中各块的排版任务
+     * <p>
+     * 放弃时取消尚未完成的块，并归还已完成块的缓冲区；放弃后才完成的块由任务自己归还
+     * (已开始的 {@link ForkJoinTask} 不响应取消，其结果不会再被读取)。
+     */
+    private static final class ChunkTasks {
+        private final List<ForkJoinTask<PooledBuffer>> tasks;
+        // 已排版完成的块，重复归还无效果
+        private final Queue<PooledBuffer> results = new ConcurrentLinkedQueue<>();
+        private volatile boolean abandoned;
+
+        ChunkTasks(int size) {
+            this.tasks = new ArrayList<>(size);
+        }
+
+        void submit(ForkJoinPool pool, Callable<PooledBuffer> chunk) {
+            tasks.add(pool.submit(() -> {
+                PooledBuffer result = chunk.call();
+                // 先登记再检查，与 cancelAll 先标记再归还的顺序配合，每个结果至少被一方归还
+                results.add(result);
+                if (abandoned) {
+                    result.release();
+                }
+                return result;
+            }));
+        }
+
+        void cancelAll() {
+            abandoned = true;
+            for (ForkJoinTask<PooledBuffer> task : tasks) {
+                task.cancel(true);
+            }
+            PooledBuffer result;
+            while ((result = results.poll()) != null) {
+                result.release();
+            }
+        }
+    }
+
+    /**
+     * 直接读取缓冲区的PDF数据源；关闭时不释放缓冲区 (由 {@link PooledBuffer} 归还)
+     */
+    private static final class BufferSource implements IRandomAccessSource {
+        private final ByteBuffer buffer;
+
+        BufferSource(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int get(long position) {
+            return position < buffer.limit() ? buffer.get((int) position) & 0xFF : -1;
+        }
+
+        @Override
+        public int get(long position, byte[] bytes, int off, int len) {
+            if (position >= buffer.limit()) {
+                return -1;
+            }
+            int n = (int) Math.min(len, buffer.limit() - position);
+            ByteBuffer view = buffer.duplicate();
+            view.position((int) position);
+            view.get(bytes, off, n);
+            return n;
+        }
+
+        @Override
+        public long length() {
+            return buffer.limit();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static final class Builder {
+        private String customFontDir;
+        private PageSize pageSize = PageSize.A4;
+        private List<? extends PageDecoration> decorations = Collections.<PageDecoration>emptyList();
+        private String chunkSelector = "section";
+        private ForkJoinPool pool = ForkJoinPool.commonPool();
+        private ConversionListener listener = ConversionListener.NO_OP;
+        private ByteBufferPool bufferPool;
+
+        private Builder() {
+        }
+
+        public Builder customFontDir(String customFontDir) {
+            this.customFontDir = customFontDir;
+            return this;
+        }
+
+        public Builder pageSize(PageSize pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * 是否添加 "第X页/共Y页" 页码，按合并后的文档编号
+         */
+        public Builder addPageFoot(boolean addPageFoot) {
+            this.decorations = HtmlToPdfConverter.pageFoot(addPageFoot);
+            return this;
+        }
+
+        /**
+         * 合并后在每页绘制的装饰，页码等按合并后的文档计算
+         */
+        public Builder decorations(List<? extends PageDecoration> decorations) {
+            this.decorations = decorations != null ? decorations : Collections.<PageDecoration>emptyList();
+            return this;
+        }
+
+        /**
+         * 分界元素的CSS选择器，在匹配的 {@code body} 直接子元素之前切分，默认 {@code section}
+         */
+        public Builder chunkSelector(String chunkSelector) {
+            this.chunkSelector = chunkSelector;
+            return this;
+        }
+
+        /**
+         * 排版各块使用的线程池，默认 {@link ForkJoinPool#commonPool()}
+         */
+        public Builder pool(ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * 整个文档的指标监听器；HTML_LAYOUT 为解析和切分，PDF_WRITE 包含等待各块排版及合并
+         */
+        public Builder listener(ConversionListener listener) {
+            this.listener = listener != null ? listener : ConversionListener.NO_OP;
+            return this;
+        }
+
+        /**
+         * 各块中间PDF使用的缓冲区池，可与转换服务共享；默认不复用缓冲区
+         */
+        public Builder bufferPool(ByteBufferPool bufferPool) {
+            this.bufferPool = bufferPool;
+            return this;
+        }
+
+        public ChunkedPdfConverter build() {
+            if (chunkSelector == null || chunkSelector.trim().isEmpty()) {
+                throw new IllegalStateException("chunkSelector is required");
+            }
+            return new ChunkedPdfConverter(this);
+        }
+    }
+}
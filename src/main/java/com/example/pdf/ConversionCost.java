@@ -0,0 +1,104 @@
+package com.example.pdf;
+
+/**
+ * 转换任务的成本估算，由 {@link #estimate(byte[])} 对HTML字节做一次线性扫描得到，不解析文档
+ * <p>
+ * 只统计标签的开头 ({@code <} 后跟字母)，注释、脚本中的类似文本也会被计入，作为粗略估算足够。
+ * 内存估算为经验值：html2pdf 在写出前保留整个元素树及其渲染器，占用大致与输入大小和元素数成正比；
+ * 图片按每张 {@link #BYTES_PER_IMAGE} 计算 (解码后的图片不在HTML字节中)。
+ */
+public final class ConversionCost {
+
+    /** 每个输入字节估算的内存 */
+    public static final long BYTES_PER_INPUT_BYTE = 8;
+    /** 每个元素估算的内存 (元素、样式及渲染器) */
+    public static final long BYTES_PER_ELEMENT = 512;
+    /** 每张图片估算的内存 */
+    public static final long BYTES_PER_IMAGE = 1024 * 1024;
+
+    private final long inputBytes;
+    private final int elements;
+    private final int tableRows;
+    private final int images;
+
+    ConversionCost(long inputBytes, int elements, int tableRows, int images) {
+        this.inputBytes = inputBytes;
+        this.elements = elements;
+        this.tableRows = tableRows;
+        this.images = images;
+    }
+
+    /**
+     * 扫描HTML (UTF-8或任何兼容ASCII的编码) 估算成本
+     *
+     * @param html HTML字节
+     * @return 成本估算
+     */
+    public static ConversionCost estimate(byte[] html) {
+        int elements = 0;
+        int tableRows = 0;
+        int images = 0;
+        int last = html.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (html[i] != '<' || !isLetter(html[i + 1])) {
+                continue;
+            }
+            elements++;
+            if (isTag(html, i + 1, 't', 'r')) {
+                tableRows++;
+            } else if (isTag(html, i + 1, 'i', 'm', 'g')) {
+                images++;
+            }
+        }
+        return new ConversionCost(html.length, elements, tableRows, images);
+    }
+
+    // 标签名与 name 相同 (不区分大小写)，且其后是空白、'>' 或 '/'
+    private static boolean isTag(byte[] html, int start, char... name) {
+        int end = start + name.length;
+        if (end >= html.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if ((html[start + i] | 0x20) != name[i]) {
+                return false;
+            }
+        }
+        byte next = html[end];
+        return next == '>' || next == '/' || next == ' ' || next == '\t' || next == '\n' || next == '\r';
+    }
+
+    private static boolean isLetter(byte b) {
+        int lower = b | 0x20;
+        return lower >= 'a' && lower <= 'z';
+    }
+
+    public long getInputBytes() {
+        return inputBytes;
+    }
+
+    public int getElements() {
+        return elements;
+    }
+
+    public int getTableRows() {
+        return tableRows;
+    }
+
+    public int getImages() {
+        return images;
+    }
+
+    /**
+     * 转换过程中估算的内存占用峰值
+     */
+    public long getEstimatedMemoryBytes() {
+        return inputBytes * BYTES_PER_INPUT_BYTE + elements * BYTES_PER_ELEMENT + images * BYTES_PER_IMAGE;
+    }
+
+    @Override
+    public String toString() {
+        return "ConversionCost{inputBytes=" + inputBytes + ", elements=" + elements + ", tableRows=" + tableRows
+                + ", images=" + images + ", estimatedMemoryBytes=" + getEstimatedMemoryBytes() + '}';
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.pdf;
+
+/**
+ * 转换过程的指标回调
+ * <p>
+ * 回调在执行转换的线程上同步调用，实现需要线程安全且尽量轻量。
+ * 默认实现 {@link #NO_OP} 不做任何事。
+ */
+public interface ConversionListener {
+
+    ConversionListener NO_OP = new ConversionListener() {
+    };
+
+    /**
+     * 某个阶段结束
+     *
+     * @param stage         阶段
+     * @param durationNanos 耗时 (纳秒)
+     */
+    default void onStage(ConversionStage stage, long durationNanos) {
+    }
+
+    /**
+     * 转换成功完成
+     *
+     * @param metrics 本次转换的汇总指标
+     */
+    default void onConversion(ConversionMetrics metrics) {
+    }
+
+    /**
+     * 转换失败
+     *
+     * @param error   失败原因
+     * @param metrics 失败前已采集的指标
+     */
+    default void onFailure(Throwable error, ConversionMetrics metrics) {
+    }
+
+    /**
+     * 是否通过线程分配计数器采集分配字节数；需要JVM支持，开销很小但不为零
+     */
+    default boolean measureAllocations() {
+        return false;
+    }
+}
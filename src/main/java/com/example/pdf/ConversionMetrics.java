@@ -0,0 +1,79 @@
+package com.example.pdf;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 一次转换的汇总指标，不可修改
+ */
+public final class ConversionMetrics {
+
+    /** 未采集或JVM不支持时的取值 */
+    public static final long UNAVAILABLE = -1;
+
+    private final Map<ConversionStage, Long> stageNanos;
+    private final long totalNanos;
+    private final long inputBytes;
+    private final long outputBytes;
+    private final int pageCount;
+    private final long allocatedBytes;
+
+    ConversionMetrics(Map<ConversionStage, Long> stageNanos, long totalNanos, long inputBytes, long outputBytes,
+                      int pageCount, long allocatedBytes) {
+        this.stageNanos = stageNanos.isEmpty()
+                ? Collections.<ConversionStage, Long>emptyMap()
+                : Collections.unmodifiableMap(new EnumMap<>(stageNanos));
+        this.totalNanos = totalNanos;
+        this.inputBytes = inputBytes;
+        this.outputBytes = outputBytes;
+        this.pageCount = pageCount;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * 各阶段耗时 (纳秒)，只包含实际执行过的阶段
+     */
+    public Map<ConversionStage, Long> getStageNanos() {
+        return stageNanos;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * 读取的HTML字节数
+     */
+    public long getInputBytes() {
+        return inputBytes;
+    }
+
+    /**
+     * 写入调用方输出流的PDF字节数
+     */
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * 转换线程分配的堆内存字节数，未开启 {@link ConversionListener#measureAllocations()} 时为 {@link #UNAVAILABLE}
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ConversionMetrics{stageNanos=" + stageNanos
+                + ", totalNanos=" + totalNanos
+                + ", inputBytes=" + inputBytes
+                + ", outputBytes=" + outputBytes
+                + ", pageCount=" + pageCount
+                + ", allocatedBytes=" + allocatedBytes + '}';
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.events.IEventHandler;
+import com.itextpdf.kernel.events.PdfDocumentEvent;
+import com.itextpdf.kernel.pdf.PdfDocument;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 在一次转换中采集阶段耗时和计数，并通知 {@link ConversionListener}
+ */
+final class ConversionRecorder {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final ConversionListener listener;
+    private final Map<ConversionStage, Long> stageNanos = new EnumMap<>(ConversionStage.class);
+    private final long startNanos;
+    private final long startAllocatedBytes;
+    private long stageStartNanos;
+
+    private CountingInputStream input;
+    private CountingOutputStream output;
+    private int pageCount;
+
+    ConversionRecorder(ConversionListener listener) {
+        this.listener = listener != null ? listener : ConversionListener.NO_OP;
+        this.startAllocatedBytes = this.listener.measureAllocations() ? currentThreadAllocatedBytes() : ConversionMetrics.UNAVAILABLE;
+        this.startNanos = System.nanoTime();
+        this.stageStartNanos = startNanos;
+    }
+
+    /**
+     * 包装HTML输入流以统计读取字节数
+     */
+    CountingInputStream countInput(InputStream htmlInputStream) {
+        input = new CountingInputStream(htmlInputStream);
+        return input;
+    }
+
+    /**
+     * 包装调用方输出流以统计写出字节数
+     */
+    CountingOutputStream countOutput(OutputStream outputStream) {
+        output = new CountingOutputStream(outputStream);
+        return output;
+    }
+
+    /**
+     * 通过页面插入/删除事件统计最终页数；文档关闭后已无法查询页数，而关闭时可能删除末尾空白页
+     */
+    void trackPages(PdfDocument pdfDocument) {
+        IEventHandler pageCounter = event -> {
+            if (PdfDocumentEvent.INSERT_PAGE.equals(event.getType())) {
+                pageCount++;
+            } else {
+                pageCount--;
+            }
+        };
+        pdfDocument.addEventHandler(PdfDocumentEvent.INSERT_PAGE, pageCounter);
+        pdfDocument.addEventHandler(PdfDocumentEvent.REMOVE_PAGE, pageCounter);
+    }
+
+    void startStage() {
+        stageStartNanos = System.nanoTime();
+    }
+
+    void endStage(ConversionStage stage) {
+        long duration = System.nanoTime() - stageStartNanos;
+        Long previous = stageNanos.get(stage);
+        stageNanos.put(stage, previous == null ? duration : previous + duration);
+        listener.onStage(stage, duration);
+    }
+
+    void completed() {
+        listener.onConversion(snapshot());
+    }
+
+    void failed(Throwable error) {
+        listener.onFailure(error, snapshot());
+    }
+
+    private ConversionMetrics snapshot() {
+        long allocatedBytes = ConversionMetrics.UNAVAILABLE;
+        if (startAllocatedBytes != ConversionMetrics.UNAVAILABLE) {
+            long current = currentThreadAllocatedBytes();
+            if (current != ConversionMetrics.UNAVAILABLE) {
+                allocatedBytes = current - startAllocatedBytes;
+            }
+        }
+        return new ConversionMetrics(stageNanos, System.nanoTime() - startNanos,
+                input != null ? input.getCount() : 0,
+                output != null ? output.getCount() : 0,
+                pageCount, allocatedBytes);
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+            if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return ConversionMetrics.UNAVAILABLE;
+    }
+}
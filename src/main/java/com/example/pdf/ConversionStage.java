@@ -0,0 +1,13 @@
+package com.example.pdf;
+
+/**
+ * 一次转换中被单独计时的阶段
+ */
+public enum ConversionStage {
+    /** 获取字体提供者 (首次使用某字体目录时包含字体解析) */
+    FONT_SETUP,
+    /** HTML解析、CSS计算及排版 ({@code HtmlConverter.convertToDocument})，实体预处理在读取时同步完成 */
+    HTML_LAYOUT,
+    /** 关闭文档：完成剩余排版并写出PDF */
+    PDF_WRITE
+}
@@ -0,0 +1,228 @@
+package com.example.pdf;
+
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.styledxmlparser.resolver.resource.IResourceRetriever;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 不可变的转换配置，构建一次后可在多个线程间共享，见 {@link HtmlToPdfConverter#convert(ConverterContext, java.io.InputStream, java.io.OutputStream)}
+ * <p>
+ * 字体在首次使用时由 {@link FontRegistry} 加载；每个线程首次转换时创建一份 {@link ConverterProperties}
+ * (含字体提供者及其字体匹配缓存)，之后该线程的转换直接复用，只做与单个文档有关的工作；
+ * 每次转换结束后清空字体提供者中属于该文档的字体，不持有已完成的文档。
+ * <p>
+ * 实例应长期持有 (例如整个应用一个)，不要按请求创建 (包括用 {@link #toBuilder()} 派生)：
+ * 每个实例在用过它的每个线程中各留一份转换配置，线程池中的线程长期存活时，
+ * 这些配置要等实例被回收后才会逐步清理，同时也失去了复用的意义。
+ */
+public final class ConverterContext {
+
+    /**
+     * HTML字符实体的预处理方式
+     */
+    public enum EntityPolicy {
+        /** 命名实体及 {@code &#160;} 替换为空格后再解析，见 {@link EntityNormalizingInputStream} (默认，与原有行为一致) */
+        REPLACE_WITH_SPACE,
+        /** 不做预处理，由HTML解析器按标准解码 */
+        PARSER
+    }
+
+    private final String customFontDir;
+    private final boolean subsetFonts;
+    private final PageSize pageSize;
+    private final float xOffset;
+    private final float yOffset;
+    private final List<PageDecoration> decorations;
+    private final EntityPolicy entityPolicy;
+    private final String baseUri;
+    private final IResourceRetriever resourceRetriever;
+    private final ConversionListener listener;
+
+    private final ThreadLocal<ConverterProperties> threadProperties = ThreadLocal.withInitial(this::newConverterProperties);
+
+    private ConverterContext(Builder builder) {
+        this.customFontDir = builder.customFontDir;
+        this.subsetFonts = builder.subsetFonts;
+        this.pageSize = builder.pageSize;
+        this.xOffset = builder.xOffset;
+        this.yOffset = builder.yOffset;
+        this.decorations = Collections.unmodifiableList(new ArrayList<PageDecoration>(builder.decorations));
+        this.entityPolicy = builder.entityPolicy;
+        this.baseUri = builder.baseUri;
+        this.resourceRetriever = builder.resourceRetriever;
+        this.listener = builder.listener;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 以当前配置为初始值的构建器
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .customFontDir(customFontDir)
+                .subsetFonts(subsetFonts)
+                .pageSize(pageSize)
+                .offset(xOffset, yOffset)
+                .decorations(decorations)
+                .entityPolicy(entityPolicy)
+                .baseUri(baseUri)
+                .resourceRetriever(resourceRetriever)
+                .listener(listener);
+    }
+
+    public String getCustomFontDir() {
+        return customFontDir;
+    }
+
+    public boolean isSubsetFonts() {
+        return subsetFonts;
+    }
+
+    public PageSize getPageSize() {
+        return pageSize;
+    }
+
+    public float getXOffset() {
+        return xOffset;
+    }
+
+    public float getYOffset() {
+        return yOffset;
+    }
+
+    public List<PageDecoration> getDecorations() {
+        return decorations;
+    }
+
+    public EntityPolicy getEntityPolicy() {
+        return entityPolicy;
+    }
+
+    public String getBaseUri() {
+        return baseUri;
+    }
+
+    public IResourceRetriever getResourceRetriever() {
+        return resourceRetriever;
+    }
+
+    public ConversionListener getListener() {
+        return listener;
+    }
+
+    /**
+     * 当前线程复用的转换配置，只能在当前线程内依次使用
+     */
+    ConverterProperties getThreadProperties() {
+        return threadProperties.get();
+    }
+
+    /**
+     * 按本配置新建转换配置
+     */
+    ConverterProperties newConverterProperties() {
+        return HtmlToPdfConverter.newConverterProperties(customFontDir, subsetFonts, baseUri, resourceRetriever);
+    }
+
+    public static final class Builder {
+        private String customFontDir;
+        private boolean subsetFonts = true;
+        private PageSize pageSize = PageSize.A4;
+        private float xOffset = HtmlToPdfConverter.DEFAULT_X_OFFSET;
+        private float yOffset = HtmlToPdfConverter.DEFAULT_Y_OFFSET;
+        private List<? extends PageDecoration> decorations = Collections.<PageDecoration>emptyList();
+        private EntityPolicy entityPolicy = EntityPolicy.REPLACE_WITH_SPACE;
+        private String baseUri;
+        private IResourceRetriever resourceRetriever;
+        private ConversionListener listener = ConversionListener.NO_OP;
+
+        private Builder() {
+        }
+
+        public Builder customFontDir(String customFontDir) {
+            this.customFontDir = customFontDir;
+            return this;
+        }
+
+        /**
+         * 嵌入字体时是否只嵌入用到的字形，默认 {@code true}，见 {@link FontRegistry#newFontProvider(String, boolean)}
+         */
+        public Builder subsetFonts(boolean subsetFonts) {
+            this.subsetFonts = subsetFonts;
+            return this;
+        }
+
+        /**
+         * 页面大小，默认 A4
+         */
+        public Builder pageSize(PageSize pageSize) {
+            this.pageSize = pageSize != null ? pageSize : PageSize.A4;
+            return this;
+        }
+
+        /**
+         * 第一页内容的位移 (pt)，默认不移动
+         */
+        public Builder offset(float xOffset, float yOffset) {
+            this.xOffset = xOffset;
+            this.yOffset = yOffset;
+            return this;
+        }
+
+        /**
+         * 是否添加 "第X页/共Y页" 页码，会替换已设置的装饰
+         */
+        public Builder addPageFoot(boolean addPageFoot) {
+            this.decorations = HtmlToPdfConverter.pageFoot(addPageFoot);
+            return this;
+        }
+
+        /**
+         * 页面装饰，按绘制顺序排列；装饰实例会在所有线程的转换间共用
+         */
+        public Builder decorations(List<? extends PageDecoration> decorations) {
+            this.decorations = decorations != null ? decorations : Collections.<PageDecoration>emptyList();
+            return this;
+        }
+
+        public Builder entityPolicy(EntityPolicy entityPolicy) {
+            this.entityPolicy = entityPolicy != null ? entityPolicy : EntityPolicy.REPLACE_WITH_SPACE;
+            return this;
+        }
+
+        /**
+         * 图片、样式表等相对地址的基准 (目录路径或URL)，默认相对于当前工作目录
+         */
+        public Builder baseUri(String baseUri) {
+            this.baseUri = baseUri;
+            return this;
+        }
+
+        /**
+         * 资源读取器，需要线程安全，例如 {@link CachingResourceRetriever}
+         */
+        public Builder resourceRetriever(IResourceRetriever resourceRetriever) {
+            this.resourceRetriever = resourceRetriever;
+            return this;
+        }
+
+        /**
+         * 所有转换共用的指标监听器，需要线程安全
+         */
+        public Builder listener(ConversionListener listener) {
+            this.listener = listener != null ? listener : ConversionListener.NO_OP;
+            return this;
+        }
+
+        public ConverterContext build() {
+            return new ConverterContext(this);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * 转换预热，在服务开始接收请求前调用，把首次转换的冷启动开销 (类加载、字体解析、默认样式表解析、JIT编译) 提前
+ * <p>
+ * 预热会加载字体目录 (之后所有转换共用 {@link FontRegistry} 中的字体)，并用内置的示例文档
+ * (样式、表格、中文、字符实体、图片、分页以及全部页面装饰) 完整转换几次，结果直接丢弃。
+ * <p>
+ * 也可以作为主类运行，配合 {@code -XX:ArchiveClassesAtExit} 生成 AppCDS 类数据归档，见 README 中的 appcds 构建配置。
+ */
+public final class ConverterWarmUp {
+
+    private static final Logger LOGGER = Logger.getLogger(ConverterWarmUp.class.getName());
+    private static final String SAMPLE = "warm-up.html";
+
+    /** 默认的示例转换次数，足以让解析、排版的热点方法完成JIT编译 */
+    public static final int DEFAULT_ITERATIONS = 10;
+
+    private ConverterWarmUp() {
+    }
+
+    /**
+     * 加载字体目录并转换内置示例 {@link #DEFAULT_ITERATIONS} 次
+     *
+     * @param customFontDir 自定义字体目录，与之后转换使用的目录相同
+     * @return 预热耗时 (毫秒)
+     */
+    public static long warmUp(String customFontDir) {
+        return warmUp(customFontDir, DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * 加载字体目录并转换内置示例
+     *
+     * @param customFontDir 自定义字体目录，与之后转换使用的目录相同
+     * @param iterations    示例转换次数，0 表示只加载字体
+     * @return 预热耗时 (毫秒)
+     */
+    public static long warmUp(String customFontDir, int iterations) {
+        long start = System.nanoTime();
+        FontRegistry.getFontPrograms(customFontDir);
+        List<PageDecoration> decorations = decorations();
+        convertSample(iterations, (html, pdf) ->
+                HtmlToPdfConverter.convertToPdf(html, customFontDir, pdf, PageSize.A4, decorations, ConversionListener.NO_OP));
+        return finished(start, iterations);
+    }
+
+    /**
+     * 用共享配置转换内置示例，同时创建当前线程复用的转换配置
+     *
+     * @param context    之后转换使用的配置
+     * @param iterations 示例转换次数
+     * @return 预热耗时 (毫秒)
+     */
+    public static long warmUp(ConverterContext context, int iterations) {
+        long start = System.nanoTime();
+        convertSample(iterations, (html, pdf) -> HtmlToPdfConverter.convert(context, html, pdf));
+        return finished(start, iterations);
+    }
+
+    private static void convertSample(int iterations, SampleConversion conversion) {
+        byte[] sample = sample();
+        for (int i = 0; i < iterations; i++) {
+            try {
+                conversion.convert(new ByteArrayInputStream(sample), new DiscardingOutputStream());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static long finished(long startNanos, int iterations) {
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        LOGGER.info("Converter warm-up finished in " + millis + " ms (" + iterations + " sample conversions).");
+        return millis;
+    }
+
+    /**
+     * 内置示例文档 (UTF-8)
+     */
+    static byte[] sample() {
+        try (InputStream in = ConverterWarmUp.class.getResourceAsStream(SAMPLE)) {
+            if (in == null) {
+                throw new IllegalStateException("Warm-up sample " + SAMPLE + " is missing from the classpath");
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<PageDecoration> decorations() {
+        return Arrays.<PageDecoration>asList(new WaterMarkEventHandler("Warm-up").setUseFormXObject(true),
+                new PageHeaderEventHandler("Warm-up"),
+                new PageEnderEventHandler("Warm-up"),
+                new PageNumberEventHandler());
+    }
+
+    private interface SampleConversion {
+        void convert(InputStream html, OutputStream pdf) throws IOException;
+    }
+
+    private static final class DiscardingOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+    /**
+     * 预热后退出，用于生成 AppCDS 归档：
+     * {@code java -XX:ArchiveClassesAtExit=html2pdf.jsa -jar html2pdf-example.jar [字体目录] [次数]}
+     */
+    public static void main(String[] args) {
+        String customFontDir = args.length > 0 ? args[0] : null;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+        warmUp(customFontDir, iterations);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.pdf;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 磁盘目录中的PDF缓存，每个条目一个文件，按总字节数限制容量
+ * <p>
+ * 命中时通过 {@link FileChannel#transferTo} 写出：输出流为 {@link FileOutputStream} 时直接在文件之间传输，
+ * 由操作系统完成复制 (零拷贝)；其他输出流经由通道包装写出。命中会更新文件的修改时间，
+ * 超出容量时按修改时间淘汰最久未使用的文件。写入先写临时文件再原子重命名，读取方不会看到写了一半的文件。
+ * <p>
+ * 目录可在进程重启后继续使用；多个进程共用同一目录时，容量按各自的统计分别控制。
+ */
+public class DirectoryPdfCacheStore implements PdfCacheStore {
+
+    private static final Logger LOGGER = Logger.getLogger(DirectoryPdfCacheStore.class.getName());
+    private static final String SUFFIX = ".pdf";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+    private long sizeBytes;
+
+    /**
+     * @param directory 缓存目录，不存在时创建
+     * @param maxBytes  缓存文件总字节数上限
+     */
+    public DirectoryPdfCacheStore(Path directory, long maxBytes) throws IOException {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        for (Path file : listEntries()) {
+            sizeBytes += sizeOf(file);
+        }
+        synchronized (this) {
+            evict();
+        }
+    }
+
+    @Override
+    public long writeTo(String key, OutputStream outputStream) throws IOException {
+        Path file = entry(key);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // 目标通道不关闭，调用方的输出流保持打开
+            WritableByteChannel target = outputStream instanceof FileOutputStream
+                    ? ((FileOutputStream) outputStream).getChannel()
+                    : Channels.newChannel(outputStream);
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            touch(file);
+            return size;
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] pdf) throws IOException {
+        if (pdf.length > maxBytes) {
+            return;
+        }
+        Path file = entry(key);
+        Path temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+        try {
+            Files.write(temp, pdf);
+            synchronized (this) {
+                long previousSize = sizeOf(file);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                sizeBytes += pdf.length - previousSize;
+                evict();
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    @Override
+    public synchronized void clear() throws IOException {
+        for (Path file : listEntries()) {
+            Files.deleteIfExists(file);
+        }
+        sizeBytes = 0;
+    }
+
+    private Path entry(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    /**
+     * 删除最久未使用的文件直到不超过容量，调用方持有锁
+     */
+    private void evict() throws IOException {
+        if (sizeBytes <= maxBytes) {
+            return;
+        }
+        List<Path> files = listEntries();
+        Map<Path, FileTime> lastUsed = new HashMap<>();
+        for (Path file : files) {
+            lastUsed.put(file, lastModified(file));
+        }
+        files.sort(Comparator.comparing(lastUsed::get));
+        for (int i = 0; i < files.size() && sizeBytes > maxBytes; i++) {
+            long size = sizeOf(files.get(i));
+            if (Files.deleteIfExists(files.get(i))) {
+                sizeBytes -= size;
+            }
+        }
+    }
+
+    private List<Path> listEntries() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // 只影响淘汰顺序
+            LOGGER.log(Level.FINE, "Could not update last used time of " + file, e);
+        }
+    }
+
+    private static long sizeOf(Path file) throws IOException {
+        try {
+            return Files.size(file);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path file) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (NoSuchFileException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.pdf;
+
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 页眉、页脚、水印等装饰使用的字体
+ * <p>
+ * 字体缓存在 {@link PdfDocument} 自身的字体表中，同一文档内所有处理器共用同一个字体字典，
+ * 文档关闭后随文档一起释放。
+ */
+final class DocumentFonts {
+
+    private static final Logger LOGGER = Logger.getLogger(DocumentFonts.class.getName());
+    static final String DECORATION_FONT = "STSongStd-Light";
+
+    private DocumentFonts() {
+    }
+
+    /**
+     * 获取文档中的装饰字体，不存在时创建并登记到文档
+     *
+     * @param pdfDoc  PDF文档
+     * @param purpose 用途，仅用于日志
+     * @return 字体；STSongStd-Light 不可用时返回文档默认字体
+     */
+    static PdfFont getDecorationFont(PdfDocument pdfDoc, String purpose) {
+        try {
+            return PdfFontFactory.createFont(DECORATION_FONT, PdfEncodings.IDENTITY_H, pdfDoc);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "STSongStd-Light font for " + purpose + " not found, using default font.", e);
+            return pdfDoc.getDefaultFont();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.pdf;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 流式替换HTML中的字符实体，替代整篇读入后再用正则替换的做法
+ * <p>
+ * 规则与原先的 {@code &[a-zA-Z]{1,10};} 替换保持一致：命名实体 (如 {@code &nbsp;}) 替换为一个空格。
+ * 数字实体中，指向不换行空格 U+00A0 的 {@code &#160;} / {@code &#xA0;} 同样替换为空格；
+ * 其余数字实体原样保留，由HTML解析器正确解码 (例如 {@code &#60;} 不能被提前解码为 {@code <})。
+ * <p>
+ * 实体语法只包含ASCII字符，而UTF-8等ASCII兼容编码中多字节字符的每个字节都不小于 0x80，
+ * 因此可以直接按字节处理，无需先解码为字符串。内存占用为固定的读缓冲区加上最长一个实体。
+ */
+public class EntityNormalizingInputStream extends FilterInputStream {
+
+    private static final int MAX_NAME_LENGTH = 10;
+    // 允许前导零，如 &#00160;
+    private static final int MAX_DIGITS = 8;
+    private static final int NBSP = 0xA0;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPos;
+    private int bufferLen;
+
+    // 未能构成实体、需要原样输出的字节
+    private final byte[] pending = new byte[MAX_DIGITS + 4];
+    private int pendingPos;
+    private int pendingLen;
+
+    // 结束候选实体的 '&'，需作为新的候选起点重新处理
+    private boolean ampersandPushedBack;
+
+    public EntityNormalizingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        return nextProcessedByte();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int count = 0;
+        while (count < len) {
+            // 快速路径：没有待输出字节时，直接复制到下一个 '&' 为止
+            if (pendingPos == pendingLen && !ampersandPushedBack && bufferPos < bufferLen) {
+                int end = Math.min(bufferLen, bufferPos + (len - count));
+                int start = bufferPos;
+                while (bufferPos < end && buffer[bufferPos] != '&') {
+                    bufferPos++;
+                }
+                int copied = bufferPos - start;
+                if (copied > 0) {
+                    System.arraycopy(buffer, start, b, off + count, copied);
+                    count += copied;
+                    continue;
+                }
+            }
+            if (count > 0 && pendingPos == pendingLen && !ampersandPushedBack && bufferPos == bufferLen && in.available() <= 0) {
+                // 避免为了凑满调用方缓冲区而阻塞
+                return count;
+            }
+            int next = nextProcessedByte();
+            if (next == -1) {
+                return count == 0 ? -1 : count;
+            }
+            b[off + count++] = (byte) next;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && nextProcessedByte() != -1) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (pendingLen - pendingPos) + (bufferLen - bufferPos);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        // mark/reset 不支持
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private int nextProcessedByte() throws IOException {
+        if (pendingPos < pendingLen) {
+            return pending[pendingPos++] & 0xFF;
+        }
+        int b;
+        if (ampersandPushedBack) {
+            ampersandPushedBack = false;
+            b = '&';
+        } else {
+            b = nextRawByte();
+        }
+        if (b != '&') {
+            return b;
+        }
+        return readEntity();
+    }
+
+    /**
+     * 已读到 '&'，继续读取直到能判断是否为实体
+     *
+     * @return 替换后的空格，或原样输出的第一个字节 (其余字节放入 pending)
+     */
+    private int readEntity() throws IOException {
+        pendingPos = 0;
+        pendingLen = 0;
+        pending[pendingLen++] = '&';
+
+        int b = nextRawByte();
+        if (b == '#') {
+            pending[pendingLen++] = '#';
+            return readNumericEntity();
+        }
+        int nameLength = 0;
+        while (isAsciiLetter(b) && nameLength < MAX_NAME_LENGTH) {
+            pending[pendingLen++] = (byte) b;
+            nameLength++;
+            b = nextRawByte();
+        }
+        if (b == ';' && nameLength > 0) {
+            pendingLen = 0;
+            return ' ';
+        }
+        return rejectEntity(b);
+    }
+
+    private int readNumericEntity() throws IOException {
+        int b = nextRawByte();
+        int radix = 10;
+        if (b == 'x' || b == 'X') {
+            pending[pendingLen++] = (byte) b;
+            radix = 16;
+            b = nextRawByte();
+        }
+        int value = 0;
+        int digits = 0;
+        int digit;
+        while (digits < MAX_DIGITS && (digit = Character.digit(b, radix)) >= 0 && b < 0x80) {
+            pending[pendingLen++] = (byte) b;
+            value = value * radix + digit;
+            digits++;
+            b = nextRawByte();
+        }
+        if (b == ';' && digits > 0) {
+            if (value == NBSP) {
+                pendingLen = 0;
+                return ' ';
+            }
+            pending[pendingLen++] = ';';
+            return pending[pendingPos++] & 0xFF;
+        }
+        return rejectEntity(b);
+    }
+
+    /**
+     * 不构成实体：原样输出已读的字节，终止字节若是 '&' 则作为下一个候选的起点
+     */
+    private int rejectEntity(int terminator) {
+        if (terminator == '&') {
+            ampersandPushedBack = true;
+        } else if (terminator != -1) {
+            pending[pendingLen++] = (byte) terminator;
+        }
+        return pending[pendingPos++] & 0xFF;
+    }
+
+    private int nextRawByte() throws IOException {
+        if (bufferPos == bufferLen) {
+            int n = in.read(buffer, 0, buffer.length);
+            if (n <= 0) {
+                return -1;
+            }
+            bufferPos = 0;
+            bufferLen = n;
+        }
+        return buffer[bufferPos++] & 0xFF;
+    }
+
+    private static boolean isAsciiLetter(int b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.pdf;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.TrueTypeFont;
+import com.itextpdf.io.font.otf.Glyph;
+import com.itextpdf.layout.font.Range;
+import com.itextpdf.layout.font.RangeBuilder;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 字体目录的字形覆盖索引：目录中每个 TrueType/OpenType 字体 (.ttf/.otf) 覆盖的 Unicode 码位
+ * <p>
+ * 覆盖位图按字体文件内容的 SHA-256 持久化在缓存目录 (默认为当前用户的 {@code ~/.cache/html2pdf-font-index}，
+ * 可用系统属性 {@value #CACHE_DIR_PROPERTY} 指定)，文件内容不变时下次启动直接读取位图，不再解析字体；
+ * 文件被替换后哈希不同，自动重新解析。同一字体出现在多个目录中时共用一份缓存。
+ * <p>
+ * 缓存目录不存在时只为所有者创建 (支持 POSIX 权限的文件系统上为 {@code rwx------})；
+ * 已存在但属于其他用户的目录不会使用，以免读到他人放入的位图。缓存目录不可用或不可写时只在内存中使用。
+ */
+final class FontCoverageIndex {
+
+    static final String CACHE_DIR_PROPERTY = "html2pdf.fontIndexDir";
+
+    private static final Logger LOGGER = Logger.getLogger(FontCoverageIndex.class.getName());
+    private static final int MAGIC = 0x46434958; // "FCIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private final List<Entry> entries;
+    private final int parsedFonts;
+
+    private FontCoverageIndex(List<Entry> entries, int parsedFonts) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.parsedFonts = parsedFonts;
+    }
+
+    /**
+     * 默认的缓存目录：系统属性 {@value #CACHE_DIR_PROPERTY}，否则为当前用户缓存目录下的 {@code html2pdf-font-index}
+     */
+    static Path defaultCacheDir() {
+        String dir = System.getProperty(CACHE_DIR_PROPERTY);
+        if (dir != null) {
+            return Paths.get(dir);
+        }
+        String xdgCacheHome = System.getenv("XDG_CACHE_HOME");
+        Path userCache = xdgCacheHome != null && !xdgCacheHome.isEmpty()
+                ? Paths.get(xdgCacheHome) : Paths.get(System.getProperty("user.home"), ".cache");
+        return userCache.resolve("html2pdf-font-index");
+    }
+
+    /**
+     * 扫描字体目录 (不含子目录)，按文件名排序
+     *
+     * @param fontDir  字体目录
+     * @param cacheDir 覆盖位图的缓存目录
+     * @return 索引；无法读取或解析的字体被跳过
+     */
+    static FontCoverageIndex build(Path fontDir, Path cacheDir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(fontDir)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                if ((name.endsWith(".ttf") || name.endsWith(".otf")) && Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files);
+        boolean persistent = prepareCacheDir(cacheDir);
+
+        List<Entry> entries = new ArrayList<>(files.size());
+        int parsed = 0;
+        for (Path file : files) {
+            try {
+                String hash = sha256(file);
+                Path cacheFile = cacheDir.resolve(hash + ".cov");
+                BitSet coverage = persistent ? readCoverage(cacheFile) : null;
+                if (coverage == null) {
+                    // 不使用 iText 全局缓存，与 FontRegistry 一致；解析结果只用于提取覆盖范围
+                    coverage = coverage(FontProgramFactory.createFont(file.toString(), false));
+                    parsed++;
+                    if (persistent) {
+                        writeCoverage(cacheFile, coverage);
+                    }
+                }
+                entries.add(new Entry(file, hash, coverage));
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Skipping font that could not be indexed: " + file, e);
+            }
+        }
+        return new FontCoverageIndex(entries, parsed);
+    }
+
+    List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * 构建索引时实际解析的字体数 (缓存未命中)
+     */
+    int getParsedFonts() {
+        return parsedFonts;
+    }
+
+    /**
+     * 按文件名顺序第一个覆盖该码位的字体
+     *
+     * @return 字体文件，没有字体覆盖时为 {@code null}
+     */
+    Path fontFor(int codePoint) {
+        for (Entry entry : entries) {
+            if (entry.coverage.get(codePoint)) {
+                return entry.file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 字体程序覆盖的码位；TrueType/OpenType 取自 cmap，其他字体 (如 STSongStd-Light 等CJK CID字体) 逐个检查基本多文种平面
+     */
+    static BitSet coverage(FontProgram program) {
+        BitSet coverage = new BitSet();
+        if (program instanceof TrueTypeFont) {
+            for (Integer codePoint : ((TrueTypeFont) program).getActiveCmap().keySet()) {
+                if (codePoint >= 0) {
+                    coverage.set(codePoint);
+                }
+            }
+        } else {
+            for (int codePoint = 0; codePoint <= Character.MAX_VALUE; codePoint++) {
+                Glyph glyph = program.getGlyph(codePoint);
+                if (glyph != null && glyph.getCode() > 0) {
+                    coverage.set(codePoint);
+                }
+            }
+        }
+        return coverage;
+    }
+
+    /**
+     * 转换为 iText 字体选择使用的范围，连续码位合并为一段
+     */
+    static Range toRange(BitSet coverage) {
+        RangeBuilder builder = new RangeBuilder();
+        int start = coverage.nextSetBit(0);
+        while (start >= 0) {
+            int end = coverage.nextClearBit(start);
+            builder.addRange(start, end - 1);
+            start = coverage.nextSetBit(end);
+        }
+        return builder.create();
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 准备缓存目录：不存在时只为所有者创建，已存在时检查属于当前用户
+     *
+     * @return 目录可用时为 {@code true}，否则只在内存中使用
+     */
+    static boolean prepareCacheDir(Path cacheDir) {
+        boolean posix = cacheDir.getFileSystem().supportedFileAttributeViews().contains("posix");
+        try {
+            if (!Files.isDirectory(cacheDir)) {
+                Path parent = cacheDir.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                try {
+                    if (posix) {
+                        Files.createDirectory(cacheDir, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+                    } else {
+                        Files.createDirectory(cacheDir);
+                    }
+                } catch (FileAlreadyExistsException e) {
+                    // 并发启动的进程已经创建，下面同样检查所有者
+                }
+            }
+            if (posix) {
+                UserPrincipal owner = Files.getOwner(cacheDir);
+                UserPrincipal currentUser = cacheDir.getFileSystem().getUserPrincipalLookupService()
+                        .lookupPrincipalByName(System.getProperty("user.name"));
+                if (!owner.equals(currentUser)) {
+                    LOGGER.warning("Font coverage cache " + cacheDir + " is owned by " + owner.getName()
+                            + ", not by the current user; coverage is kept in memory only.");
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Font coverage cache directory " + cacheDir + " is not usable; coverage is kept in memory only.", e);
+            return false;
+        }
+    }
+
+    private static BitSet readCoverage(Path cacheFile) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(cacheFile))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            int count = in.readInt();
+            // 分配前按文件大小校验个数，损坏的文件不会导致内存溢出
+            if (count < 0 || count > (Files.size(cacheFile) - HEADER_BYTES) / Long.BYTES) {
+                LOGGER.fine("Ignoring corrupt font coverage cache " + cacheFile + ": " + count + " words");
+                return null;
+            }
+            long[] words = new long[count];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+            return BitSet.valueOf(words);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Ignoring unreadable font coverage cache " + cacheFile, e);
+            return null;
+        }
+    }
+
+    private static void writeCoverage(Path cacheFile, BitSet coverage) {
+        try {
+            Path tmp = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp);
+                 DataOutputStream data = new DataOutputStream(out)) {
+                long[] words = coverage.toLongArray();
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+                data.writeInt(words.length);
+                for (long word : words) {
+                    data.writeLong(word);
+                }
+            }
+            // 先写临时文件再改名，并发启动的进程不会读到写了一半的文件
+            try {
+                Files.move(tmp, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Font coverage could not be cached in " + cacheFile.getParent(), e);
+        }
+    }
+
+    /**
+     * 一个字体文件及其覆盖的码位
+     */
+    static final class Entry {
+        private final Path file;
+        private final String sha256;
+        private final BitSet coverage;
+
+        Entry(Path file, String sha256, BitSet coverage) {
+            this.file = file;
+            this.sha256 = sha256;
+            this.coverage = coverage;
+        }
+
+        Path getFile() {
+            return file;
+        }
+
+        String getSha256() {
+            return sha256;
+        }
+
+        boolean covers(int codePoint) {
+            return coverage.get(codePoint);
+        }
+
+        int getCoveredCodePoints() {
+            return coverage.cardinality();
+        }
+
+        /**
+         * 覆盖的码位，转换为 iText 字体选择使用的范围
+         */
+        Range toRange() {
+            return FontCoverageIndex.toRange(coverage);
+        }
+
+        @Override
+        public String toString() {
+            return file.getFileName() + " (" + getCoveredCodePoints() + " code points)";
+        }
+    }
+}
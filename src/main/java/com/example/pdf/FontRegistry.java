@@ -0,0 +1,330 @@
+package com.example.pdf;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.TrueTypeFont;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.layout.font.FontInfo;
+import com.itextpdf.layout.font.FontProvider;
+import com.itextpdf.layout.font.FontSet;
+import com.itextpdf.layout.font.Range;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 进程级字体注册表：按字体目录缓存已解析的 {@link FontProgram}
+ * <p>
+ * 每个字体文件只解析一次，解析结果在线程间共享且不再修改；每次转换通过
+ * {@link #newFontProvider(String)} 获得一个轻量的 {@link FontProvider}，其 {@link FontSet}
+ * 只引用已缓存的字体程序。字体目录内容变化后需调用 {@link #invalidate(String)}。
+ * <p>
+ * 字体目录中其余的 .ttf/.otf 字体作为补充字体注册，其覆盖的码位来自 {@link FontCoverageIndex}
+ * (按文件哈希缓存在磁盘上)：排版时按码位只选择确实包含该字形的补充字体，
+ * 补充字体在第一次被选中时才解析，之后在进程内共享。有补充字体时 STSongStd-Light 也按实际覆盖的码位注册
+ * (iText 对CID字体缺少的字形不返回 notdef，否则所有文字都会选中它)。
+ */
+public final class FontRegistry {
+
+    private static final Logger LOGGER = Logger.getLogger(FontRegistry.class.getName());
+    private static final String FALLBACK_FONT = "STSongStd-Light";
+    private static final String NO_FONT_DIR_KEY = "";
+
+    private static final ConcurrentMap<String, FutureTask<RegisteredFonts>> FONTS_BY_DIR = new ConcurrentHashMap<>();
+
+    private FontRegistry() {
+    }
+
+    /**
+     * 为一次转换创建字体提供者，字体程序来自注册表缓存
+     *
+     * @param customFontDir 字体目录，可为 {@code null}
+     * @return 新的字体提供者
+     */
+    public static FontProvider newFontProvider(String customFontDir) {
+        return newFontProvider(customFontDir, true);
+    }
+
+    /**
+     * 为一次转换创建字体提供者，并指定嵌入字体时是否只嵌入用到的字形
+     * <p>
+     * 微软雅黑等CJK字体完整嵌入时每个字体达数MB，子集通常只有几十KB；
+     * 只有生成的PDF之后还需要编辑或填写新文字时才需要完整嵌入。
+     * 不嵌入的字体 (STSongStd-Light、标准PDF字体) 不受影响。
+     *
+     * @param customFontDir 字体目录，可为 {@code null}
+     * @param subsetFonts   {@code true} 只嵌入文档用到的字形，{@code false} 嵌入完整字体
+     * @return 新的字体提供者
+     */
+    public static FontProvider newFontProvider(String customFontDir, boolean subsetFonts) {
+        RegisteredFonts fonts = getFonts(customFontDir);
+        FontSet fontSet = new FontSet();
+        for (FontProgram fontProgram : fonts.fontPrograms) {
+            fontSet.addFont(fontProgram, PdfEncodings.IDENTITY_H, null, fonts.rangeOf(fontProgram));
+        }
+        for (FontInfo supplementalFont : fonts.supplementalFonts.keySet()) {
+            fontSet.addFont(supplementalFont);
+        }
+        FontProvider fontProvider = new SubsettingFontProvider(fontSet, fonts, subsetFonts);
+        if (fonts.useStandardPdfFonts) {
+            fontProvider.addStandardPdfFonts();
+        }
+        return fontProvider;
+    }
+
+    /**
+     * 获取字体目录对应的已解析字体，首次访问时加载
+     *
+     * @param customFontDir 字体目录，可为 {@code null}
+     * @return 已注册的字体程序，不可修改
+     */
+    public static List<FontProgram> getFontPrograms(String customFontDir) {
+        return getFonts(customFontDir).fontPrograms;
+    }
+
+    /**
+     * 使某个字体目录的缓存失效，下次使用时重新解析
+     *
+     * @param customFontDir 字体目录，可为 {@code null}
+     */
+    public static void invalidate(String customFontDir) {
+        FONTS_BY_DIR.remove(toKey(customFontDir));
+    }
+
+    /**
+     * 清空所有字体目录的缓存
+     */
+    public static void invalidateAll() {
+        FONTS_BY_DIR.clear();
+    }
+
+    private static RegisteredFonts getFonts(String customFontDir) {
+        String key = toKey(customFontDir);
+        return memoize(FONTS_BY_DIR, key, () -> loadFonts(key));
+    }
+
+    /**
+     * 取出键对应的值，没有时创建
+     * <p>
+     * 创建在映射的锁之外进行 (解析字体、计算哈希都很慢，不应阻塞同一桶中的其他键)，
+     * 同一键的并发调用等待同一次创建；创建失败时移除条目，下次调用重试。
+     */
+    private static <K, V> V memoize(ConcurrentMap<K, FutureTask<V>> cache, K key, Callable<V> loader) {
+        FutureTask<V> task = cache.computeIfAbsent(key, k -> new FutureTask<>(loader));
+        // 已在运行或已完成时立即返回
+        task.run();
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    // 与加锁等待一样不响应中断，结束后恢复中断状态
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    cache.remove(key, task);
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 字体目录的规范化表示，等价路径得到相同的结果；未指定目录时为空字符串
+     */
+    static String toKey(String customFontDir) {
+        if (customFontDir == null || customFontDir.trim().isEmpty()) {
+            return NO_FONT_DIR_KEY;
+        }
+        return new File(customFontDir).getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    /**
+     * 优先加载字体目录中的微软雅黑，否则回退到 STSongStd-Light 或标准PDF字体；目录中的其他字体作为补充字体
+     */
+    private static RegisteredFonts loadFonts(String fontDirKey) {
+        Map<FontInfo, Path> supplementalFonts = Collections.emptyMap();
+        if (!NO_FONT_DIR_KEY.equals(fontDirKey)) {
+            File fontDirFile = new File(fontDirKey);
+            if (fontDirFile.exists() && fontDirFile.isDirectory()) {
+                LOGGER.info("Attempting to load specific Microsoft YaHei fonts from: " + fontDirFile.getAbsolutePath());
+
+                String yaheiRegularPath = Paths.get(fontDirFile.getAbsolutePath(), "msyh.ttf").toString();
+                String yaheiBoldPath = Paths.get(fontDirFile.getAbsolutePath(), "msyhbd.ttf").toString();
+                File yaheiRegularFile = new File(yaheiRegularPath);
+                File yaheiBoldFile = new File(yaheiBoldPath);
+
+                boolean yaheiPresent = yaheiRegularFile.exists() && yaheiBoldFile.exists();
+                supplementalFonts = loadSupplementalFonts(fontDirFile.toPath(), yaheiPresent);
+                if (yaheiPresent) {
+                    try {
+                        List<FontProgram> fontPrograms = new ArrayList<>();
+                        // 不使用 iText 全局缓存，保证 invalidate 后能读到目录中的新文件
+                        fontPrograms.add(FontProgramFactory.createFont(yaheiRegularPath, false));
+                        fontPrograms.add(FontProgramFactory.createFont(yaheiBoldPath, false));
+                        LOGGER.info("Successfully loaded: " + yaheiRegularPath);
+                        LOGGER.info("Successfully loaded: " + yaheiBoldPath);
+                        return new RegisteredFonts(fontPrograms, supplementalFonts, false);
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, "Microsoft YaHei fonts could not be parsed in " + fontDirFile.getAbsolutePath(), e);
+                    }
+                } else {
+                    String notFoundMessage = "Required Microsoft YaHei fonts not found in " + fontDirFile.getAbsolutePath() + ":";
+                    if (!yaheiRegularFile.exists()) notFoundMessage += " msyh.ttf missing;";
+                    if (!yaheiBoldFile.exists()) notFoundMessage += " msyhbd.ttf missing;";
+                    LOGGER.warning(notFoundMessage);
+                }
+            } else {
+                LOGGER.warning("Custom font directory not found or not a directory: " + fontDirKey);
+            }
+        }
+
+        LOGGER.info("Custom YaHei font processing failed or not configured. Using fallback font loading (STSongStd-Light or standard PDF fonts).");
+        try {
+            FontProgram sysFont = FontProgramFactory.createFont(FALLBACK_FONT);
+            LOGGER.info("Fallback font STSongStd-Light loaded.");
+            return new RegisteredFonts(Collections.singletonList(sysFont), supplementalFonts, false);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Fallback STSongStd-Light font not found. Using iText standard PDF fonts.", e);
+            return new RegisteredFonts(Collections.<FontProgram>emptyList(), supplementalFonts, true); // Last resort
+        }
+    }
+
+    /**
+     * 为目录中的字体建立覆盖索引，生成只读取字体名称、不解析字形的 {@link FontInfo}，其范围即覆盖的码位
+     *
+     * @param skipYahei 微软雅黑已直接加载时不再作为补充字体
+     */
+    private static Map<FontInfo, Path> loadSupplementalFonts(Path fontDir, boolean skipYahei) {
+        FontCoverageIndex index;
+        try {
+            index = FontCoverageIndex.build(fontDir, FontCoverageIndex.defaultCacheDir());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Font directory could not be indexed: " + fontDir, e);
+            return Collections.emptyMap();
+        }
+        Map<FontInfo, Path> supplementalFonts = new LinkedHashMap<>();
+        for (FontCoverageIndex.Entry entry : index.getEntries()) {
+            String fileName = entry.getFile().getFileName().toString();
+            if (skipYahei && (fileName.equalsIgnoreCase("msyh.ttf") || fileName.equalsIgnoreCase("msyhbd.ttf"))) {
+                continue;
+            }
+            FontSet descriptorSet = new FontSet();
+            if (descriptorSet.addFont(entry.getFile().toString(), PdfEncodings.IDENTITY_H, null, entry.toRange())) {
+                supplementalFonts.put(descriptorSet.getFonts().iterator().next(), entry.getFile());
+            }
+        }
+        LOGGER.info("Indexed " + index.getEntries().size() + " fonts in " + fontDir + " (" + index.getParsedFonts()
+                + " parsed, the rest from cache); " + supplementalFonts.size() + " registered as supplemental fonts");
+        return supplementalFonts;
+    }
+
+    /**
+     * 显式设置每个文档字体的子集化方式，不依赖 iText 按字体类型决定的默认值
+     */
+    private static final class SubsettingFontProvider extends FontProvider {
+        private final RegisteredFonts fonts;
+        private final boolean subsetFonts;
+
+        private SubsettingFontProvider(FontSet fontSet, RegisteredFonts fonts, boolean subsetFonts) {
+            super(fontSet);
+            this.fonts = fonts;
+            this.subsetFonts = subsetFonts;
+        }
+
+        @Override
+        public PdfFont getPdfFont(FontInfo fontInfo, FontSet additionalFonts) {
+            PdfFont pdfFont = pdfFonts.get(fontInfo);
+            if (pdfFont == null) {
+                FontProgram supplementalProgram = fonts.getSupplementalProgram(fontInfo);
+                if (supplementalProgram != null) {
+                    // 补充字体使用注册表共享的字体程序，而不是由 iText 按文件名重新解析
+                    pdfFont = PdfFontFactory.createFont(supplementalProgram, fontInfo.getEncoding(),
+                            PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
+                    pdfFonts.put(fontInfo, pdfFont);
+                } else {
+                    pdfFont = super.getPdfFont(fontInfo, additionalFonts);
+                }
+            }
+            pdfFont.setSubset(subsetFonts);
+            return pdfFont;
+        }
+    }
+
+    /**
+     * 某个字体目录解析后的不可变结果
+     */
+    private static final class RegisteredFonts {
+        private final List<FontProgram> fontPrograms;
+        private final Map<FontInfo, Path> supplementalFonts;
+        private final ConcurrentMap<FontInfo, FutureTask<FontProgram>> supplementalPrograms = new ConcurrentHashMap<>();
+        private final Map<FontProgram, Range> ranges = new IdentityHashMap<>();
+        private final boolean useStandardPdfFonts;
+
+        private RegisteredFonts(List<FontProgram> fontPrograms, Map<FontInfo, Path> supplementalFonts, boolean useStandardPdfFonts) {
+            this.fontPrograms = Collections.unmodifiableList(new ArrayList<>(fontPrograms));
+            this.supplementalFonts = Collections.unmodifiableMap(new LinkedHashMap<>(supplementalFonts));
+            this.useStandardPdfFonts = useStandardPdfFonts;
+            if (!supplementalFonts.isEmpty()) {
+                for (FontProgram fontProgram : fontPrograms) {
+                    if (!(fontProgram instanceof TrueTypeFont)) {
+                        ranges.put(fontProgram, FontCoverageIndex.toRange(FontCoverageIndex.coverage(fontProgram)));
+                    }
+                }
+            }
+        }
+
+        /**
+         * 字体程序参与选择的码位范围，{@code null} 表示不限制
+         */
+        private Range rangeOf(FontProgram fontProgram) {
+            return ranges.get(fontProgram);
+        }
+
+        /**
+         * 补充字体的字体程序，第一次使用时解析；不是补充字体时为 {@code null}
+         */
+        private FontProgram getSupplementalProgram(FontInfo fontInfo) {
+            Path file = supplementalFonts.get(fontInfo);
+            if (file == null) {
+                return null;
+            }
+            return memoize(supplementalPrograms, fontInfo, () -> {
+                try {
+                    return FontProgramFactory.createFont(file.toString(), false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Supplemental font could not be parsed: " + file, e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.pdf;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 简单的内存直方图实现，按阶段及输入/输出大小、页数、分配字节数汇总所有转换
+ * <p>
+ * 桶按2的幂划分，百分位数为所在桶的上界，精度在2倍以内，适合测试和粗略观察；
+ * 生产环境建议对接现有的指标系统。
+ */
+public class HistogramConversionListener implements ConversionListener {
+
+    private final boolean measureAllocations;
+    private final Map<ConversionStage, Histogram> stageNanos = new EnumMap<>(ConversionStage.class);
+    private final Histogram totalNanos = new Histogram();
+    private final Histogram inputBytes = new Histogram();
+    private final Histogram outputBytes = new Histogram();
+    private final Histogram pageCount = new Histogram();
+    private final Histogram allocatedBytes = new Histogram();
+    private final LongAdder failures = new LongAdder();
+
+    public HistogramConversionListener() {
+        this(false);
+    }
+
+    public HistogramConversionListener(boolean measureAllocations) {
+        this.measureAllocations = measureAllocations;
+        for (ConversionStage stage : ConversionStage.values()) {
+            stageNanos.put(stage, new Histogram());
+        }
+    }
+
+    @Override
+    public void onStage(ConversionStage stage, long durationNanos) {
+        stageNanos.get(stage).record(durationNanos);
+    }
+
+    @Override
+    public void onConversion(ConversionMetrics metrics) {
+        totalNanos.record(metrics.getTotalNanos());
+        inputBytes.record(metrics.getInputBytes());
+        outputBytes.record(metrics.getOutputBytes());
+        pageCount.record(metrics.getPageCount());
+        if (metrics.getAllocatedBytes() != ConversionMetrics.UNAVAILABLE) {
+            allocatedBytes.record(metrics.getAllocatedBytes());
+        }
+    }
+
+    @Override
+    public void onFailure(Throwable error, ConversionMetrics metrics) {
+        failures.increment();
+    }
+
+    @Override
+    public boolean measureAllocations() {
+        return measureAllocations;
+    }
+
+    public Histogram getStageNanos(ConversionStage stage) {
+        return stageNanos.get(stage);
+    }
+
+    public Histogram getTotalNanos() {
+        return totalNanos;
+    }
+
+    public Histogram getInputBytes() {
+        return inputBytes;
+    }
+
+    public Histogram getOutputBytes() {
+        return outputBytes;
+    }
+
+    public Histogram getPageCount() {
+        return pageCount;
+    }
+
+    public Histogram getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * 线程安全的非负数值直方图，第 i 个桶统计 [2^(i-1), 2^i) 范围的值 (第0个桶统计0)
+     */
+    public static final class Histogram {
+        private static final int BUCKETS = 64;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        public void record(long value) {
+            long v = Math.max(0, value);
+            buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(v));
+            count.increment();
+            sum.add(v);
+            long currentMax;
+            while (v > (currentMax = max.get()) && !max.compareAndSet(currentMax, v)) {
+                // retry
+            }
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        public double getMean() {
+            long n = getCount();
+            return n == 0 ? 0 : (double) getSum() / n;
+        }
+
+        /**
+         * @param percentile 0 到 100 之间
+         * @return 近似百分位数 (所在桶的上界，不超过最大值)
+         */
+        public long getPercentile(double percentile) {
+            long n = getCount();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= Math.max(1, rank)) {
+                    // i == 63 时 (1L << 63) - 1 恰好溢出为 Long.MAX_VALUE
+                    long upperBound = i == 0 ? 0 : (1L << i) - 1;
+                    return Math.min(upperBound, getMax());
+                }
+            }
+            return getMax();
+        }
+
+        @Override
+        public String toString() {
+            return "Histogram{count=" + getCount() + ", mean=" + getMean()
+                    + ", p50=" + getPercentile(50) + ", p99=" + getPercentile(99) + ", max=" + getMax() + '}';
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.pdf;
+
+import com.itextpdf.styledxmlparser.jsoup.nodes.DataNode;
+import com.itextpdf.styledxmlparser.jsoup.nodes.Document;
+import com.itextpdf.styledxmlparser.jsoup.nodes.DocumentType;
+import com.itextpdf.styledxmlparser.jsoup.nodes.Element;
+import com.itextpdf.styledxmlparser.jsoup.nodes.Node;
+import com.itextpdf.styledxmlparser.jsoup.nodes.TextNode;
+import com.itextpdf.styledxmlparser.node.IDocumentNode;
+import com.itextpdf.styledxmlparser.node.INode;
+import com.itextpdf.styledxmlparser.node.impl.jsoup.JsoupHtmlParser;
+import com.itextpdf.styledxmlparser.node.impl.jsoup.node.JsoupDataNode;
+import com.itextpdf.styledxmlparser.node.impl.jsoup.node.JsoupDocumentNode;
+import com.itextpdf.styledxmlparser.node.impl.jsoup.node.JsoupDocumentTypeNode;
+import com.itextpdf.styledxmlparser.node.impl.jsoup.node.JsoupElementNode;
+import com.itextpdf.styledxmlparser.node.impl.jsoup.node.JsoupTextNode;
+import com.itextpdf.styledxmlparser.resolver.resource.UriResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在交给 html2pdf 排版之前对HTML DOM进行处理的工具方法
+ */
+final class HtmlDocuments {
+
+    private HtmlDocuments() {
+    }
+
+    /**
+     * 解析HTML，解析前进行与 {@link HtmlToPdfConverter#readInputStream} 相同的字符实体替换
+     *
+     * @param htmlInputStream HTML输入流，读取后关闭
+     * @return jsoup 文档
+     */
+    static Document parse(InputStream htmlInputStream) throws IOException {
+        try (InputStream processedHtmlStream = HtmlToPdfConverter.readInputStream(htmlInputStream)) {
+            return parseNormalized(processedHtmlStream);
+        }
+    }
+
+    /**
+     * 解析已经过字符实体替换的HTML
+     *
+     * @param processedHtmlStream 替换后的HTML输入流，不会被关闭
+     * @return jsoup 文档
+     */
+    static Document parseNormalized(InputStream processedHtmlStream) throws IOException {
+        return ((JsoupDocumentNode) new JsoupHtmlParser().parse(processedHtmlStream, null)).getDocument();
+    }
+
+    /**
+     * 文档引用的图片和样式表地址 ({@code <img src>}、{@code <link rel="stylesheet" href>})，
+     * 按 html2pdf 相同的规则相对 {@code baseUri} 解析，忽略 {@code data:} 地址和无法解析的地址
+     *
+     * @param document jsoup 文档
+     * @param baseUri  基础地址，{@code null} 表示当前工作目录
+     * @return 去重后的地址
+     */
+    static List<URL> resourceUrls(Document document, String baseUri) {
+        UriResolver resolver = new UriResolver(baseUri != null ? baseUri : "");
+        // 以字符串去重：URL.equals 会解析主机名
+        Map<String, URL> urls = new LinkedHashMap<>();
+        for (Element image : document.select("img[src]")) {
+            addResourceUrl(resolver, image.attr("src"), urls);
+        }
+        for (Element link : document.select("link[href]")) {
+            if ("stylesheet".equalsIgnoreCase(link.attr("rel").trim())) {
+                addResourceUrl(resolver, link.attr("href"), urls);
+            }
+        }
+        return new ArrayList<>(urls.values());
+    }
+
+    private static void addResourceUrl(UriResolver resolver, String src, Map<String, URL> urls) {
+        String trimmed = src.trim();
+        if (trimmed.isEmpty() || trimmed.regionMatches(true, 0, "data:", 0, 5)) {
+            return;
+        }
+        try {
+            URL url = resolver.resolveAgainstBaseUri(trimmed);
+            urls.putIfAbsent(url.toExternalForm(), url);
+        } catch (MalformedURLException | RuntimeException e) {
+            // 排版时 html2pdf 会记录无法解析的地址
+        }
+    }
+
+    /**
+     * 将 jsoup DOM 包装为 html2pdf 使用的节点树，与 {@link JsoupHtmlParser} 的做法一致
+     *
+     * @param document jsoup 文档，包装后不应再修改
+     * @return html2pdf 文档节点
+     */
+    static IDocumentNode toDocumentNode(Document document) {
+        return (IDocumentNode) wrap(document);
+    }
+
+    /**
+     * 将行数超过上限的表格拆分为多个连续的表格，每个表格重复表头 ({@code colgroup}、{@code thead})，
+     * {@code tfoot} 只保留在最后一个表格中
+     * <p>
+     * html2pdf 会在整个表格排版完成前保留其全部行的排版状态，单个超大表格占用的内存与行数成正比；
+     * 拆分后每个表格排版完成即可随页面一起写出。跨越拆分位置的 {@code rowspan} 会被截断，
+     * 列宽按每个表格分别计算，需要各部分列宽一致时请使用固定列宽 ({@code table-layout: fixed})。
+     *
+     * @param document         jsoup 文档
+     * @param maxRowsPerTable 每个表格的最大行数
+     * @return 被拆分的表格数
+     */
+    static int splitLargeTables(Document document, int maxRowsPerTable) {
+        int splitTables = 0;
+        for (Element table : document.select("table")) {
+            List<Element> rows = new ArrayList<>();
+            for (Element tbody : childrenByTag(table, "tbody")) {
+                rows.addAll(childrenByTag(tbody, "tr"));
+            }
+            if (rows.size() <= maxRowsPerTable) {
+                continue;
+            }
+            Element lastPart = table;
+            Element tbody = null;
+            for (int i = maxRowsPerTable; i < rows.size(); i++) {
+                if ((i - maxRowsPerTable) % maxRowsPerTable == 0) {
+                    Element part = newTablePart(table);
+                    tbody = new Element("tbody");
+                    part.appendChild(tbody);
+                    lastPart.after(part);
+                    lastPart = part;
+                }
+                tbody.appendChild(rows.get(i));
+            }
+            for (Element tfoot : childrenByTag(table, "tfoot")) {
+                lastPart.appendChild(tfoot);
+            }
+            for (Element emptyTbody : childrenByTag(table, "tbody")) {
+                if (emptyTbody.children().isEmpty()) {
+                    emptyTbody.remove();
+                }
+            }
+            splitTables++;
+        }
+        return splitTables;
+    }
+
+    /**
+     * 在 {@code body} 的直接子元素中，于每个匹配 {@code boundarySelector} 的元素之前将文档切分为多个独立文档，
+     * 每个文档保留原文档的 {@code head} 以及 {@code html}、{@code body} 的属性
+     * <p>
+     * 第一个分界元素之前的内容 (如封面) 单独成为一块。切分后每块从新的一页开始排版，因此分界元素应当本来就另起一页
+     * (例如带有 {@code page-break-before: always})。切分会移动原文档的节点，之后不应再使用原文档。
+     *
+     * @param document         jsoup 文档
+     * @param boundarySelector 分界元素的CSS选择器，例如 {@code section}
+     * @return 按顺序排列的文档；没有可切分的位置时只包含原文档
+     */
+    static List<Document> splitAtBoundaries(Document document, String boundarySelector) {
+        Element body = document.body();
+        List<List<Node>> chunks = new ArrayList<>();
+        List<Node> current = new ArrayList<>();
+        boolean currentHasElements = false;
+        for (Node child : body.childNodes()) {
+            boolean element = child instanceof Element;
+            if (element && currentHasElements && ((Element) child).is(boundarySelector)) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                currentHasElements = false;
+            }
+            current.add(child);
+            currentHasElements |= element;
+        }
+        chunks.add(current);
+        if (chunks.size() == 1) {
+            return Collections.singletonList(document);
+        }
+
+        // 先移出正文，之后复制的只是 head 和空的 body
+        for (List<Node> chunk : chunks) {
+            for (Node node : chunk) {
+                node.remove();
+            }
+        }
+        List<Document> documents = new ArrayList<>(chunks.size());
+        for (List<Node> chunk : chunks) {
+            Document part = (Document) document.clone();
+            for (Node node : chunk) {
+                part.body().appendChild(node);
+            }
+            documents.add(part);
+        }
+        return documents;
+    }
+
+    /**
+     * 复制表格属性和表头，id 只保留在原表格上
+     */
+    private static Element newTablePart(Element table) {
+        Element part = (Element) table.shallowClone();
+        part.removeAttr("id");
+        for (Element child : table.children()) {
+            String tag = child.tagName();
+            if ("colgroup".equals(tag) || "col".equals(tag) || "thead".equals(tag)) {
+                part.appendChild((Element) child.clone());
+            }
+        }
+        return part;
+    }
+
+    private static List<Element> childrenByTag(Element parent, String tagName) {
+        List<Element> result = new ArrayList<>();
+        for (Element child : parent.children()) {
+            if (tagName.equals(child.tagName())) {
+                result.add(child);
+            }
+        }
+        return result;
+    }
+
+    private static INode wrap(Node node) {
+        INode result;
+        if (node instanceof Document) {
+            result = new JsoupDocumentNode((Document) node);
+        } else if (node instanceof TextNode) {
+            result = new JsoupTextNode((TextNode) node);
+        } else if (node instanceof Element) {
+            result = new JsoupElementNode((Element) node);
+        } else if (node instanceof DataNode) {
+            result = new JsoupDataNode((DataNode) node);
+        } else if (node instanceof DocumentType) {
+            result = new JsoupDocumentTypeNode((DocumentType) node);
+        } else {
+            // 注释等节点不参与排版
+            return null;
+        }
+        for (Node child : node.childNodes()) {
+            INode wrappedChild = wrap(child);
+            if (wrappedChild != null) {
+                result.addChild(wrappedChild);
+            }
+        }
+        return result;
+    }
+}
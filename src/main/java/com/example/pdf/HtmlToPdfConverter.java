@@ -2,29 +2,41 @@ package com.example.pdf;
 
 import com.itextpdf.html2pdf.ConverterProperties;
 import com.itextpdf.html2pdf.HtmlConverter;
-import com.itextpdf.kernel.font.PdfFont;
-import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.html2pdf.attach.Attacher;
+import com.itextpdf.kernel.events.IEventHandler;
+import com.itextpdf.kernel.events.PdfDocumentEvent;
 import com.itextpdf.kernel.geom.PageSize;
-import com.itextpdf.kernel.geom.Rectangle;
 import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfPage;
-import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
 import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
-import com.itextpdf.layout.Canvas;
-import com.itextpdf.layout.element.Paragraph;
-import com.itextpdf.layout.font.FontProvider;
-import com.itextpdf.layout.properties.TextAlignment;
-import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.styledxmlparser.node.IDocumentNode;
+import com.itextpdf.styledxmlparser.node.impl.jsoup.node.JsoupDocumentNode;
+import com.itextpdf.styledxmlparser.resolver.resource.IResourceRetriever;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Paths;
-import java.util.Objects;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class HtmlToPdfConverter {
 
@@ -34,8 +46,31 @@ public class HtmlToPdfConverter {
     // 默认位移参数（负值向左上移动）
     // private static final float DEFAULT_X_OFFSET = -10f;
     // private static final float DEFAULT_Y_OFFSET = -10f;
-    private static final float DEFAULT_X_OFFSET = 0;
-    private static final float DEFAULT_Y_OFFSET = 0;
+    static final float DEFAULT_X_OFFSET = 0;
+    static final float DEFAULT_Y_OFFSET = 0;
+
+    /**
+     * 大文档模式下单个表格的最大行数，超出后拆分为多个表格
+     */
+    public static final int LARGE_DOCUMENT_MAX_TABLE_ROWS = 500;
+
+    /**
+     * 按文件转换时，不小于该大小的文件通过内存映射读取
+     */
+    public static final long MEMORY_MAP_THRESHOLD_BYTES = 1024 * 1024;
+
+    // 转换服务执行的任务中线程被中断 (任务取消、超时) 时，在下一页开始排版前停止转换
+    private static final IEventHandler STOP_WHEN_INTERRUPTED = event -> {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("PDF conversion interrupted");
+        }
+    };
+
+    // 当前线程正在执行转换服务的任务时为 TRUE，见 stopOnInterrupt
+    private static final ThreadLocal<Boolean> STOP_ON_INTERRUPT = new ThreadLocal<>();
+
+    // addPageFoot=true 对应的装饰，装饰不保存按文档变化的状态，可在所有转换间共用
+    private static final List<PageDecoration> PAGE_FOOT = Collections.<PageDecoration>singletonList(new PageNumberEventHandler());
 
     /**
      * Creates a PageSize object from width and height in millimeters.
@@ -59,217 +94,535 @@ public class HtmlToPdfConverter {
      * @param pageSize     页面大小
      */
     public static void convertToPdf(File file, String customFontDir, OutputStream outputStream, PageSize pageSize) throws IOException {
-        File pdfFile = null;
-        InputStream htmlInputStream = null;
-        InputStream processedHtmlStream = null;
-        PdfReader pdfReader = null;
+        convertToPdf(file, customFontDir, outputStream, pageSize, false);
+    }
 
-        try {
-            htmlInputStream = new FileInputStream(file);
-            String pdfFileName = Objects.requireNonNull(file.getName()).substring(0, file.getName().lastIndexOf("."));
-            
-            String parentDirString = file.getParent();
-            if (parentDirString == null) {
-                parentDirString = System.getProperty("java.io.tmpdir");
-                if (parentDirString == null) { 
-                    parentDirString = "."; 
-                }
-            }
-            pdfFile = Paths.get(parentDirString, pdfFileName + ".pdf").toFile();
+    /**
+     * html转pdf
+     * <p>
+     * 直接写入输出流，不产生任何临时文件；页码 ({@code addPageFoot}) 在写出时同步添加，
+     * 总页数通过占位对象在文档关闭前填入，见 {@link PageNumberEventHandler}。
+     *
+     * @param file          文件
+     * @param customFontDir 字体目录
+     * @param outputStream  输出流
+     * @param pageSize      页面大小
+     * @param addPageFoot   是否添加 "第X页/共Y页" 页码
+     */
+    public static void convertToPdf(File file, String customFontDir, OutputStream outputStream, PageSize pageSize, boolean addPageFoot) throws IOException {
+        convertToPdf(file.toPath(), customFontDir, outputStream, pageSize, addPageFoot);
+    }
 
-            try (PdfWriter pdfWriter = new PdfWriter(pdfFile)) {
-                PdfDocument pdfDocument = new PdfDocument(pdfWriter);
+    /**
+     * html转pdf
+     * <p>
+     * 不小于 {@link #MEMORY_MAP_THRESHOLD_BYTES} 的文件通过内存映射读取，由解析器直接从映射的页面读取，
+     * 不经过 {@link FileInputStream} 的内核到用户缓冲区复制。
+     *
+     * @param path          HTML文件 (UTF-8)
+     * @param customFontDir 字体目录
+     * @param outputStream  输出流
+     * @param pageSize      页面大小
+     * @param addPageFoot   是否添加 "第X页/共Y页" 页码
+     */
+    public static void convertToPdf(Path path, String customFontDir, OutputStream outputStream, PageSize pageSize, boolean addPageFoot) throws IOException {
+        convertToPdf(openHtml(path), customFontDir, outputStream, pageSize, addPageFoot);
+    }
 
-                if (pageSize != null) {
-                    pdfDocument.setDefaultPageSize(pageSize);
-                } else {
-                    pdfDocument.setDefaultPageSize(PageSize.A4);
-                }
+    /**
+     * html转pdf，从通道读取HTML
+     *
+     * @param htmlChannel   HTML输入通道 (UTF-8)，转换结束后关闭
+     * @param customFontDir 字体目录
+     * @param outputStream  输出流
+     * @param pageSize      页面大小
+     * @param addPageFoot   是否添加 "第X页/共Y页" 页码
+     */
+    public static void convertToPdf(ReadableByteChannel htmlChannel, String customFontDir, OutputStream outputStream, PageSize pageSize, boolean addPageFoot) throws IOException {
+        convertToPdf(Channels.newInputStream(htmlChannel), customFontDir, outputStream, pageSize, addPageFoot);
+    }
 
-                ConverterProperties properties = new ConverterProperties();
-                FontProvider fontProvider = new FontProvider();
-                boolean customFontsProcessed = false;
-
-                if (customFontDir != null && !customFontDir.trim().isEmpty()) {
-                    File fontDirFile = new File(customFontDir);
-                    if (fontDirFile.exists() && fontDirFile.isDirectory()) {
-                        LOGGER.info("Attempting to load specific Microsoft YaHei fonts from: " + fontDirFile.getAbsolutePath());
-
-                        String yaheiRegularPath = Paths.get(fontDirFile.getAbsolutePath(), "msyh.ttf").toString();
-                        String yaheiBoldPath = Paths.get(fontDirFile.getAbsolutePath(), "msyhbd.ttf").toString();
-                        // Optional: for YaHei Light if available and needed for font-weight: lighter or specific values
-                        // String yaheiLightPath = Paths.get(fontDirFile.getAbsolutePath(), "msyhl.ttf").toString(); 
-
-                        File yaheiRegularFile = new File(yaheiRegularPath);
-                        File yaheiBoldFile = new File(yaheiBoldPath);
-                        // File yaheiLightFile = new File(yaheiLightPath);
-
-                        if (yaheiRegularFile.exists() && yaheiBoldFile.exists()) {
-                            fontProvider.addFont(yaheiRegularPath);
-                            fontProvider.addFont(yaheiBoldPath);
-                            
-                            LOGGER.info("Successfully loaded: " + yaheiRegularPath);
-                            LOGGER.info("Successfully loaded: " + yaheiBoldPath);
-                            // if (yaheiLightFile.exists()) { LOGGER.info("Successfully loaded: " + yaheiLightPath); }
-                            LOGGER.info("FontProvider configured to prioritize Microsoft YaHei. Unloaded fonts like 'SimSun' or 'SimHei' should fallback to YaHei if CSS specifies them or if YaHei is a generic fallback.");
-                            customFontsProcessed = true;
-                        } else {
-                            String notFoundMessage = "Required Microsoft YaHei fonts not found in " + fontDirFile.getAbsolutePath() + ":";
-                            if (!yaheiRegularFile.exists()) notFoundMessage += " msyh.ttf missing;";
-                            if (!yaheiBoldFile.exists()) notFoundMessage += " msyhbd.ttf missing;";
-                            LOGGER.warning(notFoundMessage);
-                            customFontsProcessed = false; // Fallback if files are missing
-                        }
-                    } else {
-                        LOGGER.warning("Custom font directory not found or not a directory: " + customFontDir);
-                        customFontsProcessed = false; // Fallback if dir is invalid
-                    }
-                }
+    /**
+     * html转pdf，直接从缓冲区 (堆内、直接或内存映射缓冲区) 读取HTML
+     *
+     * @param html          HTML内容 (UTF-8)，读取 position 到 limit 之间的字节，不改变缓冲区的位置
+     * @param customFontDir 字体目录
+     * @param outputStream  输出流
+     * @param pageSize      页面大小
+     * @param addPageFoot   是否添加 "第X页/共Y页" 页码
+     */
+    public static void convertToPdf(ByteBuffer html, String customFontDir, OutputStream outputStream, PageSize pageSize, boolean addPageFoot) throws IOException {
+        convertToPdf(new ByteBufferInputStream(html), customFontDir, outputStream, pageSize, addPageFoot);
+    }
 
-                if (!customFontsProcessed) {
-                    LOGGER.info("Custom YaHei font processing failed or not configured. Using fallback font loading (STSongStd-Light or standard PDF fonts).");
-                    try {
-                        PdfFont sysFont = PdfFontFactory.createFont("STSongStd-Light", PdfEncodings.IDENTITY_H);
-                        fontProvider.addFont(sysFont.getFontProgram(), PdfEncodings.IDENTITY_H);
-                        LOGGER.info("Fallback font STSongStd-Light loaded.");
-                    } catch (IOException e) {
-                        LOGGER.log(Level.WARNING, "Fallback STSongStd-Light font not found. Using iText standard PDF fonts.", e);
-                        fontProvider.addStandardPdfFonts(); // Last resort
-                    }
-                }
- 
-                properties.setFontProvider(fontProvider);
+    /**
+     * html转pdf，HTML为内存中的文本
+     *
+     * @param html          HTML内容
+     * @param customFontDir 字体目录
+     * @param outputStream  输出流
+     * @param pageSize      页面大小
+     * @param addPageFoot   是否添加 "第X页/共Y页" 页码
+     */
+    public static void convertToPdf(CharSequence html, String customFontDir, OutputStream outputStream, PageSize pageSize, boolean addPageFoot) throws IOException {
+        // 一次编码为 UTF-8，解析时直接读取编码结果
+        convertToPdf(StandardCharsets.UTF_8.encode(CharBuffer.wrap(html)), customFontDir, outputStream, pageSize, addPageFoot);
+    }
 
-                processedHtmlStream = readInputStream(htmlInputStream); 
-                htmlInputStream = null; 
+    /**
+     * html转pdf，写入通道 (例如网关直接转发的连接)
+     * <p>
+     * iText 按块缓冲后写入通道；与输出流重载一致，转换结束后关闭通道。
+     * 通道必须处于阻塞模式：非阻塞的 {@link SelectableChannel} (例如注册在 Selector 上的 SocketChannel)
+     * 无法作为输出流写入，在转换开始前拒绝。
+     *
+     * @param htmlInputStream HTML输入流 (UTF-8)，转换结束后关闭
+     * @param customFontDir   字体目录
+     * @param outputChannel   输出通道，须为阻塞模式
+     * @param pageSize        页面大小
+     * @param addPageFoot     是否添加 "第X页/共Y页" 页码
+     * @throws IllegalArgumentException 通道为非阻塞模式
+     */
+    public static void convertToPdf(InputStream htmlInputStream, String customFontDir, WritableByteChannel outputChannel, PageSize pageSize, boolean addPageFoot) throws IOException {
+        // Channels.newOutputStream 写入非阻塞通道时抛出 IllegalBlockingModeException，此时输出已写了一部分
+        if (outputChannel instanceof SelectableChannel && !((SelectableChannel) outputChannel).isBlocking()) {
+            htmlInputStream.close();
+            throw new IllegalArgumentException("Output channel must be in blocking mode: " + outputChannel);
+        }
+        convertToPdf(htmlInputStream, customFontDir, Channels.newOutputStream(outputChannel), pageSize, addPageFoot);
+    }
 
-                if (processedHtmlStream == null) {
-                    throw new IOException("Failed to read and process input HTML stream.");
-                }
-                
-                // 重要：在创建Document前，首先在左上角生成一个位移标记元素
-                // 这样内容会自动相对于这个标记进行定位
-                PdfCanvas shiftCanvas = new PdfCanvas(pdfDocument.addNewPage());
-                shiftCanvas.concatMatrix(1, 0, 0, 1, DEFAULT_X_OFFSET, DEFAULT_Y_OFFSET);
-                
-                // Remove margins by using a Document with 0 margins and convert HTML to Document.
-                com.itextpdf.layout.Document document = HtmlConverter.convertToDocument(processedHtmlStream, pdfDocument, properties);
-                document.setMargins(0f, 0f, 0f, 0f);
-                
-                // 关闭文档
-                document.close();
-                pdfDocument.close();
-            } 
-
-            pdfReader = new PdfReader(pdfFile);
-            try (PdfWriter writerToOutputStream = new PdfWriter(outputStream);
-                 PdfDocument finalPdfDoc = new PdfDocument(pdfReader, writerToOutputStream)) {
-                pdfReader = null; 
-
-                // int numberOfPages = finalPdfDoc.getNumberOfPages();
-                // if (numberOfPages > 0) {
-                //     addPageFoot(finalPdfDoc, numberOfPages);
-                // }
-            }
+    /**
+     * html转pdf
+     *
+     * @param htmlInputStream HTML输入流 (UTF-8)，转换结束后关闭
+     * @param customFontDir   字体目录
+     * @param outputStream    输出流
+     * @param pageSize        页面大小
+     * @param addPageFoot     是否添加 "第X页/共Y页" 页码
+     */
+    public static void convertToPdf(InputStream htmlInputStream, String customFontDir, OutputStream outputStream, PageSize pageSize, boolean addPageFoot) throws IOException {
+        convertToPdf(htmlInputStream, customFontDir, outputStream, pageSize, addPageFoot, ConversionListener.NO_OP);
+    }
 
+    /**
+     * html转pdf，并向监听器报告各阶段耗时、输入输出字节数、页数等指标
+     *
+     * @param htmlInputStream HTML输入流 (UTF-8)，转换结束后关闭
+     * @param customFontDir   字体目录
+     * @param outputStream    输出流
+     * @param pageSize        页面大小
+     * @param addPageFoot     是否添加 "第X页/共Y页" 页码
+     * @param listener        指标监听器，可为 {@code null}
+     */
+    public static void convertToPdf(InputStream htmlInputStream, String customFontDir, OutputStream outputStream, PageSize pageSize, boolean addPageFoot, ConversionListener listener) throws IOException {
+        convertToPdf(htmlInputStream, customFontDir, outputStream, pageSize, pageFoot(addPageFoot), listener);
+    }
+
+    /**
+     * html转pdf，并在每页添加页眉、页脚、水印、页码等装饰
+     * <p>
+     * 所有装饰由一个 {@link PageDecorator} 按列表顺序绘制到每页同一个内容流中 (靠前的在下层)，
+     * 共用一份装饰字体。例如：
+     * <pre>{@code
+     * convertToPdf(html, fontDir, out, PageSize.A4,
+     *         Arrays.asList(new WaterMarkEventHandler("内部资料").setUseFormXObject(true),
+     *                 new PageHeaderEventHandler("页眉"), new PageNumberEventHandler()),
+     *         listener);
+     * }</pre>
+     *
+     * @param htmlInputStream HTML输入流 (UTF-8)，转换结束后关闭
+     * @param customFontDir   字体目录
+     * @param outputStream    输出流
+     * @param pageSize        页面大小
+     * @param decorations     页面装饰，按绘制顺序排列，可为空
+     * @param listener        指标监听器，可为 {@code null}
+     */
+    public static void convertToPdf(InputStream htmlInputStream, String customFontDir, OutputStream outputStream, PageSize pageSize, List<? extends PageDecoration> decorations, ConversionListener listener) throws IOException {
+        ConverterContext context = options(pageSize, decorations, listener).customFontDir(customFontDir).build();
+        convert(htmlInputStream, context::newConverterProperties, null, outputStream, context);
+    }
+
+    /**
+     * 按预先构建的配置转换，只做与单个文档有关的工作
+     * <p>
+     * 同一线程的多次转换复用同一份 {@link ConverterProperties} (字体提供者、字体匹配缓存等)，
+     * 免去每次调用 {@link #convertToPdf} 时重新创建配置的开销。{@code context} 可在多个线程间共享，应长期持有。
+     *
+     * @param context         转换配置
+     * @param htmlInputStream HTML输入流 (UTF-8)，转换结束后关闭
+     * @param outputStream    输出流
+     */
+    public static void convert(ConverterContext context, InputStream htmlInputStream, OutputStream outputStream) throws IOException {
+        try {
+            convert(htmlInputStream, context::getThreadProperties, null, outputStream, context);
         } finally {
-            if (htmlInputStream != null) {
-                try {
-                    htmlInputStream.close();
-                } catch (IOException e) {
-                    LOGGER.log(Level.WARNING, "Error closing original HTML input stream: " + e.getMessage(), e);
-                }
-            }
-            if (processedHtmlStream != null) {
-                try {
-                    processedHtmlStream.close();
-                } catch (IOException e) {
-                    LOGGER.log(Level.WARNING, "Error closing processed HTML input stream: " + e.getMessage(), e);
-                }
-            }
-            if (pdfReader != null) { 
-                 try {
-                    pdfReader.close();
-                } catch (IOException e) {
-                    LOGGER.log(Level.WARNING, "Error closing PdfReader: " + e.getMessage(), e);
-                }
-            }
-            if (pdfFile != null && pdfFile.exists()) {
-                if (!pdfFile.delete()) {
-                    LOGGER.log(Level.WARNING, "Could not delete temporary PDF file: " + pdfFile.getAbsolutePath());
-                }
-            }
+            releaseDocumentFonts(context.getThreadProperties());
         }
     }
 
     /**
-     * 添加页码和总页码
+     * html转pdf，指定图片、样式表等外部资源的基准地址和读取方式
+     * <p>
+     * 使用 {@link CachingResourceRetriever} 时，排版前先并发预取HTML引用的图片和样式表，
+     * 多个文档引用的同一资源只读取一次。
+     *
+     * @param htmlInputStream   HTML输入流 (UTF-8)，转换结束后关闭
+     * @param customFontDir     字体目录
+     * @param baseUri           相对地址的基准 (目录路径或URL)，为 {@code null} 时相对于当前工作目录
+     * @param resourceRetriever 资源读取器，为 {@code null} 时使用 html2pdf 默认的读取方式
+     * @param outputStream      输出流
+     * @param pageSize          页面大小
+     * @param decorations       页面装饰，可为空
+     * @param listener          指标监听器，可为 {@code null}
+     */
+    public static void convertToPdf(InputStream htmlInputStream, String customFontDir, String baseUri, IResourceRetriever resourceRetriever, OutputStream outputStream, PageSize pageSize, List<? extends PageDecoration> decorations, ConversionListener listener) throws IOException {
+        ConverterContext context = options(pageSize, decorations, listener)
+                .customFontDir(customFontDir)
+                .baseUri(baseUri)
+                .resourceRetriever(resourceRetriever)
+                .build();
+        convert(htmlInputStream, context::newConverterProperties, null, outputStream, context);
+    }
+
+    /**
+     * 使用调用方准备好的转换配置进行转换，供批量转换在同一线程内复用配置 (字体提供者、CSS解析上下文等)
+     * <p>
+     * html2pdf 在每次转换开始时会重置配置中的字体提供者和资源缓存，因此同一个 {@link ConverterProperties}
+     * 可以在同一线程内依次用于多次转换，但不能被多个线程同时使用。
+     *
+     * @param htmlInputStream HTML输入流 (UTF-8)，转换结束后关闭
+     * @param properties      转换配置，见 {@link #newConverterProperties(String)}
+     * @param outputStream    输出流
+     * @param pageSize        页面大小
+     * @param decorations     页面装饰，可为空
+     * @param listener        指标监听器，可为 {@code null}
      */
-    static void addPageFoot(PdfDocument pdfDoc, Integer numberOfPages) {
-        PdfFont pdfFont = null;
+    static void convertWithProperties(InputStream htmlInputStream, ConverterProperties properties, OutputStream outputStream, PageSize pageSize, List<? extends PageDecoration> decorations, ConversionListener listener) throws IOException {
         try {
-            pdfFont = PdfFontFactory.createFont("STSongStd-Light", PdfEncodings.IDENTITY_H);
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "STSongStd-Light font for page numbers not found, using default font.", e);
-            try {
-                pdfFont = PdfFontFactory.createFont();
-            } catch (IOException ex) {
-                LOGGER.log(Level.SEVERE, "Default font for page numbers could not be created.", ex);
-                return;
-            }
+            convert(htmlInputStream, null, properties, outputStream, options(pageSize, decorations, listener).build());
+        } finally {
+            releaseDocumentFonts(properties);
         }
+    }
 
-        for (int i = 1; i <= numberOfPages; i++) {
-            PdfPage page = pdfDoc.getPage(i);
-            Rectangle pageSize = page.getPageSize();
-            PdfCanvas pdfCanvas = new PdfCanvas(page.newContentStreamBefore(), page.getResources(), pdfDoc);
-            try (Canvas canvas = new Canvas(pdfCanvas, pageSize)) {
-                float x = (pageSize.getLeft() + pageSize.getRight()) / 2;
-                float y = pageSize.getBottom() + 15;
-                Paragraph paragraph = new Paragraph("第" + pdfDoc.getPageNumber(page) + "页/共" + numberOfPages + "页")
-                        .setFontSize(10)
-                        .setFont(pdfFont);
-                canvas.showTextAligned(paragraph, x, y, TextAlignment.CENTER);
-            } 
+    /**
+     * 清空复用配置中字体提供者缓存的 {@link com.itextpdf.kernel.font.PdfFont}
+     * <p>
+     * html2pdf 只在下一次转换开始时清空；这些字体通过间接引用持有刚完成的 PDF 文档，
+     * 不清空时线程空闲期间整个文档都无法回收。
+     */
+    private static void releaseDocumentFonts(ConverterProperties properties) {
+        if (properties.getFontProvider() != null) {
+            properties.getFontProvider().reset();
         }
     }
 
     /**
-     * 读取HTML 流文件，并查询当中的&nbsp;或类似符号直接替换为空格
+     * 由逐项参数组成的配置，供原有的重载方法使用
+     */
+    private static ConverterContext.Builder options(PageSize pageSize, List<? extends PageDecoration> decorations, ConversionListener listener) {
+        return ConverterContext.builder()
+                .pageSize(pageSize)
+                .decorations(decorations)
+                .listener(listener);
+    }
+
+    /**
+     * {@code addPageFoot} 参数对应的页面装饰
+     */
+    static List<PageDecoration> pageFoot(boolean addPageFoot) {
+        return addPageFoot ? PAGE_FOOT : Collections.<PageDecoration>emptyList();
+    }
+
+    /**
+     * 创建转换配置，字体来自 {@link FontRegistry} 缓存
+     *
+     * @param customFontDir 字体目录
+     * @return 新的转换配置
+     */
+    static ConverterProperties newConverterProperties(String customFontDir) {
+        return newConverterProperties(customFontDir, true);
+    }
+
+    /**
+     * 创建转换配置，字体来自 {@link FontRegistry} 缓存
+     *
+     * @param customFontDir 字体目录
+     * @param subsetFonts   是否只嵌入用到的字形，见 {@link FontRegistry#newFontProvider(String, boolean)}
+     * @return 新的转换配置
+     */
+    static ConverterProperties newConverterProperties(String customFontDir, boolean subsetFonts) {
+        return newConverterProperties(customFontDir, subsetFonts, null, null);
+    }
+
+    /**
+     * 创建转换配置，字体来自 {@link FontRegistry} 缓存
+     *
+     * @param customFontDir     字体目录
+     * @param subsetFonts       是否只嵌入用到的字形
+     * @param baseUri           外部资源相对地址的基准，可为 {@code null}
+     * @param resourceRetriever 资源读取器，可为 {@code null}
+     * @return 新的转换配置
+     */
+    static ConverterProperties newConverterProperties(String customFontDir, boolean subsetFonts, String baseUri, IResourceRetriever resourceRetriever) {
+        ConverterProperties properties = new ConverterProperties();
+        properties.setFontProvider(FontRegistry.newFontProvider(customFontDir, subsetFonts));
+        if (baseUri != null) {
+            properties.setBaseUri(baseUri);
+        }
+        if (resourceRetriever != null) {
+            properties.setResourceRetriever(resourceRetriever);
+        }
+        return properties;
+    }
+
+    /**
+     * html转pdf，大文档模式
+     * <p>
+     * 用于数千页的报表等超大文档，内存占用主要取决于HTML本身的大小，而不是页数：
+     * <ul>
+     *     <li>排版过程中每完成一页即写出 (immediate flush)，不在内存中保留已完成页面；</li>
+     *     <li>超过 {@link #LARGE_DOCUMENT_MAX_TABLE_ROWS} 行的表格拆分为多个连续的表格并重复表头，
+     *     避免单个表格的排版状态随行数增长，见 {@link HtmlDocuments#splitLargeTables}；</li>
+     *     <li>使用对象流和压缩交叉引用表 (full compression)。</li>
+     * </ul>
      *
-     * @param inputStream 输入流
-     * @return 处理后的输入流
+     * @param htmlInputStream HTML输入流 (UTF-8)，转换结束后关闭
+     * @param customFontDir   字体目录
+     * @param outputStream    输出流
+     * @param pageSize        页面大小
+     * @param addPageFoot     是否添加 "第X页/共Y页" 页码
+     * @param listener        指标监听器，可为 {@code null}
      */
-    private static InputStream readInputStream(InputStream inputStreamToProcess) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    public static void convertLargeDocumentToPdf(InputStream htmlInputStream, String customFontDir, OutputStream outputStream, PageSize pageSize, boolean addPageFoot, ConversionListener listener) throws IOException {
+        ConverterContext context = options(pageSize, pageFoot(addPageFoot), listener).customFontDir(customFontDir).build();
+        ConversionRecorder recorder = new ConversionRecorder(context.getListener());
+        InputStream countedInput = recorder.countInput(htmlInputStream);
         try {
-            byte[] buffer = new byte[1024];
-            int len;
-            while ((len = inputStreamToProcess.read(buffer)) != -1) {
-                baos.write(buffer, 0, len);
+            render((pdfDocument, converterProperties) -> {
+                        com.itextpdf.styledxmlparser.jsoup.nodes.Document html = HtmlDocuments.parse(countedInput);
+                        HtmlDocuments.splitLargeTables(html, LARGE_DOCUMENT_MAX_TABLE_ROWS);
+                        prefetchResources(html, converterProperties);
+                        return Attacher.attach(HtmlDocuments.toDocumentNode(html), pdfDocument,
+                                new ConverterProperties(converterProperties).setImmediateFlush(true));
+                    },
+                    context::newConverterProperties, null, outputStream, context, true, recorder);
+        } finally {
+            try {
+                countedInput.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Error closing HTML input stream: " + e.getMessage(), e);
             }
-            String content = baos.toString(StandardCharsets.UTF_8.name());
-            Pattern compile = Pattern.compile("\\&[a-zA-Z]{1,10};", Pattern.CASE_INSENSITIVE);
-            Matcher matcher = compile.matcher(content);
-            String replaceAll = matcher.replaceAll(" ");
-            return new ByteArrayInputStream(replaceAll.getBytes(StandardCharsets.UTF_8));
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error reading or processing input stream: " + e.getMessage(), e);
-            return null;
+        }
+    }
+
+    /**
+     * 转换已解析的HTML文档 (模板渲染使用)，跳过HTML解析
+     *
+     * @param htmlDocument 已解析的HTML文档，转换过程中不会被其他线程使用
+     * @param properties   转换配置，见 {@link #newConverterProperties(String)}
+     * @param outputStream 输出流
+     * @param pageSize     页面大小
+     * @param decorations  页面装饰，可为空
+     * @param listener     指标监听器，可为 {@code null}
+     */
+    static void convertDocument(IDocumentNode htmlDocument, ConverterProperties properties, OutputStream outputStream, PageSize pageSize, List<? extends PageDecoration> decorations, ConversionListener listener) throws IOException {
+        render((pdfDocument, converterProperties) -> {
+                    if (htmlDocument instanceof JsoupDocumentNode) {
+                        prefetchResources(((JsoupDocumentNode) htmlDocument).getDocument(), converterProperties);
+                    }
+                    return Attacher.attach(htmlDocument, pdfDocument, converterProperties);
+                },
+                null, properties, outputStream, options(pageSize, decorations, listener).build(), false, new ConversionRecorder(listener));
+    }
+
+    private static void convert(InputStream htmlInputStream, Supplier<ConverterProperties> propertiesFactory, ConverterProperties properties, OutputStream outputStream, ConverterContext options) throws IOException {
+        ConversionRecorder recorder = new ConversionRecorder(options.getListener());
+        InputStream countedInput = recorder.countInput(htmlInputStream);
+        InputStream processedHtmlStream = options.getEntityPolicy() == ConverterContext.EntityPolicy.REPLACE_WITH_SPACE
+                ? readInputStream(countedInput) : countedInput;
+        try {
+            render((pdfDocument, converterProperties) -> {
+                        if (!(converterProperties.getResourceRetriever() instanceof CachingResourceRetriever)) {
+                            return HtmlConverter.convertToDocument(processedHtmlStream, pdfDocument, converterProperties);
+                        }
+                        // 自行解析以便在排版前取得资源地址
+                        com.itextpdf.styledxmlparser.jsoup.nodes.Document html = HtmlDocuments.parseNormalized(processedHtmlStream);
+                        prefetchResources(html, converterProperties);
+                        return Attacher.attach(HtmlDocuments.toDocumentNode(html), pdfDocument, converterProperties);
+                    },
+                    propertiesFactory, properties, outputStream, options, false, recorder);
         } finally {
             try {
-                baos.close();
+                processedHtmlStream.close();
             } catch (IOException e) {
-                LOGGER.log(Level.WARNING, "Error closing ByteArrayOutputStream: " + e.getMessage(), e);
+                LOGGER.log(Level.WARNING, "Error closing processed HTML input stream: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static void render(HtmlLayout layout, Supplier<ConverterProperties> propertiesFactory, ConverterProperties properties, OutputStream outputStream, ConverterContext options, boolean largeDocument, ConversionRecorder recorder) throws IOException {
+        try {
+            if (properties == null) {
+                recorder.startStage();
+                properties = propertiesFactory.get();
+                recorder.endStage(ConversionStage.FONT_SETUP);
+            }
+            OutputStream countedOutput = recorder.countOutput(outputStream);
+            writePdf(layout, properties, countedOutput, options, largeDocument, recorder);
+        } catch (IOException | RuntimeException | Error e) {
+            recorder.failed(e);
+            throw e;
+        }
+        recorder.completed();
+    }
+
+    /**
+     * 执行转换服务 ({@link PdfConversionService}) 的任务，期间线程被中断即表示任务已取消或超时：
+     * 在下一页开始排版前或等待资源预取时以 {@link CancellationException} 停止
+     * <p>
+     * 直接调用的 {@code convertToPdf}/{@code convert} 不受调用线程中断状态的影响，与之前一样返回完整的PDF。
+     */
+    static <T> T stopOnInterrupt(Callable<T> job) throws Exception {
+        Boolean previous = STOP_ON_INTERRUPT.get();
+        STOP_ON_INTERRUPT.set(Boolean.TRUE);
+        try {
+            return job.call();
+        } finally {
+            if (previous == null) {
+                STOP_ON_INTERRUPT.remove();
+            } else {
+                STOP_ON_INTERRUPT.set(previous);
             }
-            if (inputStreamToProcess != null) {
+        }
+    }
+
+    private static boolean stopsOnInterrupt() {
+        return STOP_ON_INTERRUPT.get() != null;
+    }
+
+    /**
+     * 将HTML一次性写入PDF输出流，不经过临时文件
+     * <p>
+     * 在转换服务的任务中 (见 {@link #stopOnInterrupt}) 线程被中断时，在下一页开始前以 {@link CancellationException} 停止，
+     * 已打开的写出器随之关闭。
+     *
+     * @param layout        HTML排版方式 (输入流或已解析文档)
+     * @param properties    转换配置
+     * @param outputStream  输出流
+     * @param options       页面大小、位移、页面装饰等
+     * @param largeDocument 是否为大文档模式
+     * @param recorder      指标采集
+     */
+    private static void writePdf(HtmlLayout layout, ConverterProperties properties, OutputStream outputStream, ConverterContext options, boolean largeDocument, ConversionRecorder recorder) throws IOException {
+        try (PdfWriter pdfWriter = new PdfWriter(outputStream, writerProperties(largeDocument))) {
+            PdfDocument pdfDocument = new PdfDocument(pdfWriter);
+            recorder.trackPages(pdfDocument);
+            if (stopsOnInterrupt()) {
+                pdfDocument.addEventHandler(PdfDocumentEvent.START_PAGE, STOP_WHEN_INTERRUPTED);
+            }
+            PageDecorator decorator = null;
+            if (!options.getDecorations().isEmpty()) {
+                decorator = new PageDecorator(options.getDecorations());
+                pdfDocument.addEventHandler(PdfDocumentEvent.END_PAGE, decorator);
+            }
+
+            pdfDocument.setDefaultPageSize(options.getPageSize());
+
+            // 重要：在创建Document前，首先在左上角生成一个位移标记元素
+            // 这样内容会自动相对于这个标记进行定位
+            PdfCanvas shiftCanvas = new PdfCanvas(pdfDocument.addNewPage());
+            shiftCanvas.concatMatrix(1, 0, 0, 1, options.getXOffset(), options.getYOffset());
+            
+            // Remove margins by using a Document with 0 margins and convert HTML to Document.
+            recorder.startStage();
+            com.itextpdf.layout.Document document = layout.layout(pdfDocument, properties);
+            document.setMargins(0f, 0f, 0f, 0f);
+            recorder.endStage(ConversionStage.HTML_LAYOUT);
+            
+            // 关闭文档：先完成排版 (可能删除末尾空白页)，总页数确定后填入页码占位，再写出PDF
+            recorder.startStage();
+            document.getRenderer().close();
+            if (decorator != null) {
+                decorator.finishDocument(pdfDocument);
+            }
+            pdfDocument.close();
+            recorder.endStage(ConversionStage.PDF_WRITE);
+        }
+    }
+
+    /**
+     * 配置了 {@link CachingResourceRetriever} 时，排版前并发预取文档引用的图片和样式表
+     * <p>
+     * 最多等待 {@link CachingResourceRetriever.Builder#prefetchTimeout}，超时后开始排版，尚未读到的资源在排版时按需读取。
+     * 转换服务的任务在等待期间被中断 (取消或超过期限) 时立即停止转换；直接调用时中断不影响等待，中断状态保留。
+     */
+    private static void prefetchResources(com.itextpdf.styledxmlparser.jsoup.nodes.Document html, ConverterProperties properties) {
+        if (!(properties.getResourceRetriever() instanceof CachingResourceRetriever)) {
+            return;
+        }
+        CachingResourceRetriever retriever = (CachingResourceRetriever) properties.getResourceRetriever();
+        CompletableFuture<Void> prefetch = retriever.prefetch(HtmlDocuments.resourceUrls(html, properties.getBaseUri()));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retriever.getPrefetchTimeoutMillis());
+        boolean interrupted = false;
+        try {
+            while (true) {
                 try {
-                    inputStreamToProcess.close(); 
-                } catch (IOException e) {
-                    LOGGER.log(Level.WARNING, "Error closing input stream in readInputStream: " + e.getMessage(), e);
+                    prefetch.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    return;
+                } catch (InterruptedException e) {
+                    if (stopsOnInterrupt()) {
+                        Thread.currentThread().interrupt();
+                        throw new CancellationException("PDF conversion interrupted");
+                    }
+                    interrupted = true;
                 }
             }
+        } catch (TimeoutException e) {
+            LOGGER.fine("Resource prefetch did not finish in " + retriever.getPrefetchTimeoutMillis()
+                    + " ms, remaining resources are fetched during layout");
+        } catch (ExecutionException e) {
+            // 预取失败只记录日志，不会以异常结束
+            LOGGER.log(Level.FINE, "Resource prefetch failed", e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static WriterProperties writerProperties(boolean largeDocument) {
+        WriterProperties writerProperties = new WriterProperties();
+        if (largeDocument) {
+            writerProperties.setFullCompressionMode(true);
+        }
+        return writerProperties;
+    }
+
+    /**
+     * 打开HTML文件，大文件使用内存映射；映射在通道关闭后仍然有效，随缓冲区被回收而释放
+     */
+    static InputStream openHtml(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MEMORY_MAP_THRESHOLD_BYTES && size <= Integer.MAX_VALUE) {
+                return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
         }
+        return Files.newInputStream(path);
+    }
+
+    /**
+     * 读取HTML 流文件，并查询当中的&nbsp;或类似符号直接替换为空格
+     * <p>
+     * 替换在读取过程中逐字节完成，不再将整篇HTML读入内存，见 {@link EntityNormalizingInputStream}。
+     *
+     * @param inputStreamToProcess 输入流
+     * @return 处理后的输入流，关闭时同时关闭原输入流
+     */
+    static InputStream readInputStream(InputStream inputStreamToProcess) {
+        return new EntityNormalizingInputStream(inputStreamToProcess);
     }
 
     /**
@@ -288,4 +641,11 @@ public class HtmlToPdfConverter {
         }
         return null;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 将HTML排版到PDF文档中
+     */
+    private interface HtmlLayout {
+        com.itextpdf.layout.Document layout(PdfDocument pdfDocument, ConverterProperties properties) throws IOException;
+    }
+}
@@ -0,0 +1,419 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按成本分道的并发转换服务
+ * <p>
+ * 提交时先用 {@link ConversionCost#estimate(byte[])} 扫描一遍HTML，估算内存占用；超过阈值或表格行数较多的任务进入大任务通道，
+ * 其余进入小任务通道。两个通道各有独立的 {@link PdfConversionService} (线程数、排队上限)，
+ * 大报表只占用大任务通道的线程，不会让排在后面的单页回执等待。
+ * <p>
+ * 所有正在执行的任务的估算内存之和不超过内存预算。超出预算的任务按 {@link OverBudgetPolicy} 拒绝或推迟到预算释放后执行；
+ * 单个任务的估算超过整个预算时，只在没有其他任务占用预算时执行。每个通道记录排队等待和执行耗时，见 {@link #getLaneStats(Lane)}。
+ */
+public class LanedConversionService implements AutoCloseable {
+
+    /**
+     * 任务通道
+     */
+    public enum Lane {
+        SMALL,
+        LARGE
+    }
+
+    /**
+     * 任务超出内存预算时的处理方式
+     */
+    public enum OverBudgetPolicy {
+        /** 提交时立即抛出 {@link RejectedExecutionException} */
+        REJECT,
+        /** 照常排队，开始执行前等待预算释放 (等待期间占用通道的一个线程) */
+        DEFER
+    }
+
+    private final String customFontDir;
+    private final PageSize pageSize;
+    private final boolean addPageFoot;
+    private final ConversionListener listener;
+    private final long jobTimeoutMillis;
+    private final long largeJobMemoryBytes;
+    private final int largeJobTableRows;
+    private final OverBudgetPolicy overBudgetPolicy;
+    private final ByteBufferPool bufferPool;
+
+    private final MemoryBudget budget;
+    private final Map<Lane, PdfConversionService> lanes = new EnumMap<>(Lane.class);
+    private final Map<Lane, LaneStats> stats = new EnumMap<>(Lane.class);
+
+    private LanedConversionService(Builder builder) {
+        this.customFontDir = builder.customFontDir;
+        this.pageSize = builder.pageSize;
+        this.addPageFoot = builder.addPageFoot;
+        this.listener = builder.listener;
+        this.jobTimeoutMillis = builder.jobTimeoutMillis;
+        this.largeJobMemoryBytes = builder.largeJobMemoryBytes;
+        this.largeJobTableRows = builder.largeJobTableRows;
+        this.overBudgetPolicy = builder.overBudgetPolicy;
+        this.bufferPool = builder.bufferPool;
+        this.budget = new MemoryBudget(builder.memoryBudgetBytes);
+
+        lanes.put(Lane.SMALL, PdfConversionService.builder()
+                .threads(builder.smallThreads).queueCapacity(builder.smallQueueCapacity).build());
+        lanes.put(Lane.LARGE, PdfConversionService.builder()
+                .threads(builder.largeThreads).queueCapacity(builder.largeQueueCapacity).build());
+        for (Lane lane : Lane.values()) {
+            stats.put(lane, new LaneStats());
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 提交HTML文件，结果为完整的PDF字节；文件在提交时读入内存用于估算
+     */
+    public CompletableFuture<byte[]> submit(Path htmlFile) throws IOException {
+        return submit(Files.readAllBytes(htmlFile));
+    }
+
+    /**
+     * 提交HTML内容 (UTF-8字节)，结果为完整的PDF字节
+     */
+    public CompletableFuture<byte[]> submit(byte[] html) {
+        return submit(html, jobTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交HTML内容 (UTF-8字节)，并指定该任务的期限 (代替全局的任务超时)
+     *
+     * @param html    HTML内容
+     * @param timeout 从提交开始计算的期限 (包括排队和等待预算的时间)，0 表示不限制
+     * @param unit    时间单位
+     * @throws RejectedExecutionException 所在通道队列已满，或按 {@link OverBudgetPolicy#REJECT} 超出内存预算
+     */
+    public CompletableFuture<byte[]> submit(byte[] html, long timeout, TimeUnit unit) {
+        ConversionCost cost = ConversionCost.estimate(html);
+        Lane lane = laneFor(cost);
+        LaneStats laneStats = stats.get(lane);
+        long memoryBytes = cost.getEstimatedMemoryBytes();
+
+        // REJECT 在提交时预留预算；DEFER 在开始执行时预留
+        Reservation reservation = null;
+        if (overBudgetPolicy == OverBudgetPolicy.REJECT) {
+            if (!budget.tryReserve(memoryBytes)) {
+                laneStats.rejected.increment();
+                throw new RejectedExecutionException("PDF conversion exceeds memory budget: " + cost);
+            }
+            reservation = new Reservation(budget, memoryBytes);
+        }
+        Reservation admitted = reservation;
+
+        long submittedNanos = System.nanoTime();
+        CompletableFuture<byte[]> result;
+        try {
+            result = lanes.get(lane).schedule(() -> {
+                Reservation running = admitted;
+                if (running == null) {
+                    budget.reserve(memoryBytes);
+                    running = new Reservation(budget, memoryBytes);
+                }
+                if (!running.start()) {
+                    throw new CancellationException("PDF conversion was cancelled before it started");
+                }
+                long startNanos = System.nanoTime();
+                laneStats.queueWaitNanos.record(startNanos - submittedNanos);
+                try {
+                    return convert(html);
+                } finally {
+                    laneStats.serviceNanos.record(System.nanoTime() - startNanos);
+                    running.release();
+                }
+            }, unit.toMillis(timeout));
+        } catch (RejectedExecutionException e) {
+            laneStats.rejected.increment();
+            if (reservation != null) {
+                reservation.release();
+            }
+            throw e;
+        }
+        if (reservation != null) {
+            // 任务未开始就超时或被取消时，归还提交时预留的预算
+            Reservation submitted = reservation;
+            result.whenComplete((value, error) -> submitted.cancel());
+        }
+        return result;
+    }
+
+    private byte[] convert(byte[] html) throws IOException {
+        if (bufferPool == null) {
+            ByteArrayOutputStream pdfBytes = new ByteArrayOutputStream();
+            HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(html), customFontDir, pdfBytes, pageSize, addPageFoot, listener);
+            return pdfBytes.toByteArray();
+        }
+        PooledOutputStream pdf = new PooledOutputStream(bufferPool);
+        try {
+            HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(html), customFontDir, pdf, pageSize, addPageFoot, listener);
+        } catch (IOException | RuntimeException | Error e) {
+            pdf.discard();
+            throw e;
+        }
+        return pdf.toByteArray();
+    }
+
+    /**
+     * 任务进入的通道
+     */
+    public Lane laneFor(ConversionCost cost) {
+        return cost.getEstimatedMemoryBytes() >= largeJobMemoryBytes || cost.getTableRows() > largeJobTableRows
+                ? Lane.LARGE : Lane.SMALL;
+    }
+
+    public LaneStats getLaneStats(Lane lane) {
+        return stats.get(lane);
+    }
+
+    /**
+     * 正在执行 (或按 REJECT 已排队) 的任务预留的内存估算之和
+     */
+    public long getReservedMemoryBytes() {
+        return budget.getReserved();
+    }
+
+    /**
+     * 停止接收新任务，并等待两个通道中已提交的任务完成
+     */
+    @Override
+    public void close() {
+        for (PdfConversionService lane : lanes.values()) {
+            lane.close();
+        }
+    }
+
+    /**
+     * 单个通道的指标，单位为纳秒
+     */
+    public static final class LaneStats {
+        private final HistogramConversionListener.Histogram queueWaitNanos = new HistogramConversionListener.Histogram();
+        private final HistogramConversionListener.Histogram serviceNanos = new HistogramConversionListener.Histogram();
+        private final LongAdder rejected = new LongAdder();
+
+        /**
+         * 从提交到开始转换的等待时间 (含等待内存预算)
+         */
+        public HistogramConversionListener.Histogram getQueueWaitNanos() {
+            return queueWaitNanos;
+        }
+
+        /**
+         * 转换本身的耗时
+         */
+        public HistogramConversionListener.Histogram getServiceNanos() {
+            return serviceNanos;
+        }
+
+        public long getRejectedCount() {
+            return rejected.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "LaneStats{queueWaitNanos=" + queueWaitNanos + ", serviceNanos=" + serviceNanos
+                    + ", rejected=" + getRejectedCount() + '}';
+        }
+    }
+
+    /**
+     * 估算内存的预算；为空时总能预留，保证估算超过整个预算的任务最终也能执行
+     */
+    static final class MemoryBudget {
+        private final long limit;
+        private long reserved;
+
+        MemoryBudget(long limit) {
+            this.limit = limit;
+        }
+
+        synchronized boolean tryReserve(long bytes) {
+            if (reserved > 0 && reserved + bytes > limit) {
+                return false;
+            }
+            reserved += bytes;
+            return true;
+        }
+
+        synchronized void reserve(long bytes) throws InterruptedException {
+            while (!tryReserve(bytes)) {
+                wait();
+            }
+        }
+
+        synchronized void release(long bytes) {
+            reserved -= bytes;
+            notifyAll();
+        }
+
+        synchronized long getReserved() {
+            return reserved;
+        }
+    }
+
+    /**
+     * 一次预留，保证只归还一次：任务开始后由任务归还，未开始就结束时由 {@link #cancel()} 归还
+     */
+    private static final class Reservation {
+        private static final int PENDING = 0;
+        private static final int RUNNING = 1;
+        private static final int RELEASED = 2;
+
+        private final MemoryBudget budget;
+        private final long bytes;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        Reservation(MemoryBudget budget, long bytes) {
+            this.budget = budget;
+            this.bytes = bytes;
+        }
+
+        boolean start() {
+            return state.compareAndSet(PENDING, RUNNING);
+        }
+
+        void cancel() {
+            if (state.compareAndSet(PENDING, RELEASED)) {
+                budget.release(bytes);
+            }
+        }
+
+        void release() {
+            if (state.getAndSet(RELEASED) != RELEASED) {
+                budget.release(bytes);
+            }
+        }
+    }
+
+    public static final class Builder {
+        private String customFontDir;
+        private PageSize pageSize = PageSize.A4;
+        private boolean addPageFoot;
+        private ConversionListener listener = ConversionListener.NO_OP;
+        private long jobTimeoutMillis;
+        private int smallThreads = Runtime.getRuntime().availableProcessors();
+        private int smallQueueCapacity = Runtime.getRuntime().availableProcessors() * 16;
+        private int largeThreads = 1;
+        private int largeQueueCapacity = 8;
+        private long largeJobMemoryBytes = 16L * 1024 * 1024;
+        private int largeJobTableRows = HtmlToPdfConverter.LARGE_DOCUMENT_MAX_TABLE_ROWS;
+        private long memoryBudgetBytes = Runtime.getRuntime().maxMemory() / 2;
+        private OverBudgetPolicy overBudgetPolicy = OverBudgetPolicy.DEFER;
+        private ByteBufferPool bufferPool;
+
+        private Builder() {
+        }
+
+        public Builder customFontDir(String customFontDir) {
+            this.customFontDir = customFontDir;
+            return this;
+        }
+
+        public Builder pageSize(PageSize pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public Builder addPageFoot(boolean addPageFoot) {
+            this.addPageFoot = addPageFoot;
+            return this;
+        }
+
+        /**
+         * 所有任务共用的指标监听器，需要线程安全
+         */
+        public Builder listener(ConversionListener listener) {
+            this.listener = listener != null ? listener : ConversionListener.NO_OP;
+            return this;
+        }
+
+        /**
+         * 单个任务从提交开始计算的超时时间，0 表示不限制
+         */
+        public Builder jobTimeout(long timeout, TimeUnit unit) {
+            if (timeout < 0) {
+                throw new IllegalArgumentException("timeout must not be negative");
+            }
+            this.jobTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * 小任务通道的线程数和排队上限，默认为CPU核数及其16倍
+         */
+        public Builder smallLane(int threads, int queueCapacity) {
+            this.smallThreads = threads;
+            this.smallQueueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * 大任务通道的线程数和排队上限，默认为 1 和 8
+         */
+        public Builder largeLane(int threads, int queueCapacity) {
+            this.largeThreads = threads;
+            this.largeQueueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * 进入大任务通道的条件：估算内存不小于 {@code memoryBytes} (默认16MB，约为1MB的表格HTML)，
+         * 或表格行数超过 {@code tableRows} (默认 {@link HtmlToPdfConverter#LARGE_DOCUMENT_MAX_TABLE_ROWS})
+         */
+        public Builder largeJobThreshold(long memoryBytes, int tableRows) {
+            this.largeJobMemoryBytes = memoryBytes;
+            this.largeJobTableRows = tableRows;
+            return this;
+        }
+
+        /**
+         * 同时执行的任务估算内存之和的上限，默认为最大堆的一半
+         */
+        public Builder memoryBudget(long bytes) {
+            if (bytes <= 0) {
+                throw new IllegalArgumentException("memory budget must be positive");
+            }
+            this.memoryBudgetBytes = bytes;
+            return this;
+        }
+
+        public Builder overBudgetPolicy(OverBudgetPolicy overBudgetPolicy) {
+            this.overBudgetPolicy = overBudgetPolicy != null ? overBudgetPolicy : OverBudgetPolicy.DEFER;
+            return this;
+        }
+
+        /**
+         * 输出PDF使用的缓冲区池，可在多个服务间共享；默认不使用
+         */
+        public Builder bufferPool(ByteBufferPool bufferPool) {
+            this.bufferPool = bufferPool;
+            return this;
+        }
+
+        public LanedConversionService build() {
+            return new LanedConversionService(this);
+        }
+    }
+}
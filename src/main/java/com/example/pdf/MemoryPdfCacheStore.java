@@ -0,0 +1,74 @@
+package com.example.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 内存中的PDF缓存，按总字节数限制容量，超出后淘汰最久未使用的条目 (LRU)
+ */
+public class MemoryPdfCacheStore implements PdfCacheStore {
+
+    private final long maxBytes;
+    // 按访问顺序排列，最久未使用的在最前
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+
+    /**
+     * @param maxBytes 缓存的PDF总字节数上限
+     */
+    public MemoryPdfCacheStore(long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public long writeTo(String key, OutputStream outputStream) throws IOException {
+        byte[] pdf;
+        synchronized (this) {
+            pdf = entries.get(key);
+        }
+        if (pdf == null) {
+            return -1;
+        }
+        // 缓存的数组不会被修改，可以在锁外写出
+        outputStream.write(pdf);
+        return pdf.length;
+    }
+
+    @Override
+    public synchronized void put(String key, byte[] pdf) {
+        if (pdf.length > maxBytes) {
+            return;
+        }
+        byte[] previous = entries.put(key, pdf);
+        if (previous != null) {
+            sizeBytes -= previous.length;
+        }
+        sizeBytes += pdf.length;
+        Iterator<Map.Entry<String, byte[]>> eldest = entries.entrySet().iterator();
+        while (sizeBytes > maxBytes) {
+            sizeBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    @Override
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+}
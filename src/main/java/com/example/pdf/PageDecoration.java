@@ -0,0 +1,26 @@
+package com.example.pdf;
+
+/**
+ * 页面装饰 (页眉、页脚、水印、页码等)，由 {@link PageDecorator} 按顺序绘制到每页同一个内容流中
+ * <p>
+ * 装饰本身只保存配置，按文档变化的状态 (字体、共享的 Form XObject 等) 通过
+ * {@link PageDecorator.DocumentContext#getResource} 保存在每个文档自己的上下文中，该上下文登记在文档上，
+ * 因此同一个装饰实例 (包括单独注册为页面事件处理器时) 可以被多个转换同时使用。
+ */
+public interface PageDecoration {
+
+    /**
+     * 绘制一页，绘制前后由 {@link PageDecorator} 保存和恢复图形状态
+     *
+     * @param page 当前页面
+     */
+    void decorate(PageDecorator.PageContext page);
+
+    /**
+     * 所有页面排版完成、文档关闭前调用，用于填入总页数等需要在最后才能确定的内容
+     *
+     * @param document 当前文档
+     */
+    default void finishDocument(PageDecorator.DocumentContext document) {
+    }
+}
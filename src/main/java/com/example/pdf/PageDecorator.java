@@ -0,0 +1,280 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.events.Event;
+import com.itextpdf.kernel.events.IEventHandler;
+import com.itextpdf.kernel.events.PdfDocumentEvent;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.layout.Canvas;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 按顺序绘制一组 {@link PageDecoration} 的页面事件处理器
+ * <p>
+ * 每页只创建一个内容流 (位于页面内容之下)、一个 {@link PdfCanvas} 和最多一个布局 {@link Canvas}，
+ * 所有装饰共用；装饰字体每个文档只解析一次。列表中靠前的装饰先绘制，位于下层。
+ * <p>
+ * 页码按 {@link PdfDocumentEvent#END_PAGE} 事件的顺序计数 (iText 按页面顺序写出页面)，不再逐页线性查找。
+ * 需注册在 END_PAGE 上；文档关闭前调用 {@link #finishDocument(PdfDocument)}，供页码等装饰填入总页数。
+ * <p>
+ * 按文档变化的状态 ({@link DocumentContext}) 登记在文档自身的事件处理器表中，处理器本身不保存可变状态，
+ * 因此同一个实例可以同时用于多个文档，文档不再使用后状态随文档一起释放。
+ */
+public class PageDecorator implements IEventHandler {
+
+    // 仅用于在文档中登记和查找 DocumentContext 的事件类型，iText 自身不会分发
+    private static final String CONTEXT_LOOKUP = PageDecorator.class.getName() + ".CONTEXT_LOOKUP";
+
+    private final List<PageDecoration> decorations;
+
+    public PageDecorator(PageDecoration... decorations) {
+        this(Arrays.asList(decorations));
+    }
+
+    public PageDecorator(List<? extends PageDecoration> decorations) {
+        this.decorations = Collections.unmodifiableList(new ArrayList<PageDecoration>(decorations));
+    }
+
+    public List<PageDecoration> getDecorations() {
+        return decorations;
+    }
+
+    @Override
+    public void handleEvent(Event event) {
+        decorate(((PdfDocumentEvent) event).getPage());
+    }
+
+    /**
+     * 直接装饰一页，用于不经过页面事件添加的页面 (例如合并得到的页面)；需按页面顺序调用
+     *
+     * @param page 页面
+     */
+    public void decorate(PdfPage page) {
+        PdfDocument pdfDoc = page.getDocument();
+        DocumentContext document = bind(pdfDoc).context;
+        document.pageNumber++;
+
+        PdfCanvas pdfCanvas = new PdfCanvas(page.newContentStreamBefore(), page.getResources(), pdfDoc);
+        int rotation = normalizedRotation(page);
+        if (rotation != 0) {
+            pdfCanvas.saveState();
+        }
+        PageContext context = new PageContext(document, page, pdfCanvas, uprightArea(page, rotation, pdfCanvas));
+        try {
+            for (PageDecoration decoration : decorations) {
+                pdfCanvas.saveState();
+                decoration.decorate(context);
+                pdfCanvas.restoreState();
+            }
+            if (rotation != 0) {
+                pdfCanvas.restoreState();
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static int normalizedRotation(PdfPage page) {
+        return (page.getRotation() % 360 + 360) % 360;
+    }
+
+    /**
+     * 装饰使用的页面区域：可见区域 (CropBox)，旋转 (/Rotate) 的页面先变换坐标系，
+     * 使装饰在阅读器中按转正后的页面显示，返回转正后的区域 (原点在左下角)
+     */
+    private static Rectangle uprightArea(PdfPage page, int rotation, PdfCanvas pdfCanvas) {
+        Rectangle crop = page.getCropBox();
+        switch (rotation) {
+            case 90:
+                pdfCanvas.concatMatrix(0, 1, -1, 0, crop.getRight(), crop.getBottom());
+                return new Rectangle(crop.getHeight(), crop.getWidth());
+            case 180:
+                pdfCanvas.concatMatrix(-1, 0, 0, -1, crop.getRight(), crop.getTop());
+                return new Rectangle(crop.getWidth(), crop.getHeight());
+            case 270:
+                pdfCanvas.concatMatrix(0, -1, 1, 0, crop.getLeft(), crop.getTop());
+                return new Rectangle(crop.getHeight(), crop.getWidth());
+            default:
+                return crop;
+        }
+    }
+
+    /**
+     * 所有页面排版完成后、{@link PdfDocument#close()} 之前调用
+     *
+     * @param pdfDoc PDF文档
+     */
+    public void finishDocument(PdfDocument pdfDoc) {
+        // 上下文保留到文档关闭：关闭时才写出的页面仍会触发 END_PAGE
+        DocumentContext document = bind(pdfDoc).context;
+        for (PageDecoration decoration : decorations) {
+            decoration.finishDocument(document);
+        }
+    }
+
+    private ContextHolder bind(PdfDocument pdfDoc) {
+        ContextLookup lookup = new ContextLookup(this);
+        pdfDoc.dispatchEvent(lookup);
+        if (lookup.found == null) {
+            lookup.found = new ContextHolder(this, new DocumentContext(pdfDoc));
+            pdfDoc.addEventHandler(CONTEXT_LOOKUP, lookup.found);
+        }
+        return lookup.found;
+    }
+
+    /**
+     * 登记在文档上的 {@link DocumentContext}，只响应所属处理器的查找
+     */
+    private static final class ContextHolder implements IEventHandler {
+        private final PageDecorator owner;
+        private final DocumentContext context;
+
+        private ContextHolder(PageDecorator owner, DocumentContext context) {
+            this.owner = owner;
+            this.context = context;
+        }
+
+        @Override
+        public void handleEvent(Event event) {
+            ContextLookup lookup = (ContextLookup) event;
+            if (lookup.owner == owner) {
+                lookup.found = this;
+            }
+        }
+    }
+
+    private static final class ContextLookup extends Event {
+        private final PageDecorator owner;
+        private ContextHolder found;
+
+        private ContextLookup(PageDecorator owner) {
+            super(CONTEXT_LOOKUP);
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * 一个文档内所有装饰共用的状态，登记在文档上 (同一文档只在一个线程中使用)
+     */
+    public static class DocumentContext {
+        private final PdfDocument pdfDocument;
+        private final Map<Object, Object> resources = new HashMap<>();
+        private int pageNumber;
+
+        DocumentContext(PdfDocument pdfDocument) {
+            this.pdfDocument = pdfDocument;
+        }
+
+        public PdfDocument getPdfDocument() {
+            return pdfDocument;
+        }
+
+        /**
+         * 装饰字体 (STSongStd-Light)，每个文档只解析一次，与其他按文档变化的状态一起保存在本上下文中
+         */
+        public PdfFont getFont() {
+            return getResource(DocumentFonts.class, () -> DocumentFonts.getDecorationFont(pdfDocument, "page decorations"));
+        }
+
+        /**
+         * 获取本文档内缓存的对象 (例如所有页面共用的 Form XObject)，不存在时创建
+         *
+         * @param key     缓存键，通常包含装饰实例本身
+         * @param factory 创建方法
+         * @return 缓存的对象
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T getResource(Object key, Supplier<T> factory) {
+            Object resource = resources.get(key);
+            if (resource == null) {
+                resource = factory.get();
+                resources.put(key, resource);
+            }
+            return (T) resource;
+        }
+    }
+
+    /**
+     * 当前页面
+     * <p>
+     * 布局画布在所有装饰间共用，样式 (字体、颜色、字号) 应设置在元素上，而不是画布上。
+     */
+    public static final class PageContext {
+        private final DocumentContext document;
+        private final PdfPage page;
+        private final PdfCanvas pdfCanvas;
+        private final Rectangle pageSize;
+        private final int pageNumber;
+        private Canvas layoutCanvas;
+
+        PageContext(DocumentContext document, PdfPage page, PdfCanvas pdfCanvas, Rectangle pageSize) {
+            this.document = document;
+            this.page = page;
+            this.pdfCanvas = pdfCanvas;
+            this.pageSize = pageSize;
+            this.pageNumber = document.pageNumber;
+        }
+
+        public DocumentContext getDocument() {
+            return document;
+        }
+
+        public PdfDocument getPdfDocument() {
+            return document.getPdfDocument();
+        }
+
+        public PdfFont getFont() {
+            return document.getFont();
+        }
+
+        public PdfPage getPage() {
+            return page;
+        }
+
+        /**
+         * 装饰使用的页面区域：页面的可见区域 (CropBox)；页面带旋转 (/Rotate) 时为转正后的区域，
+         * 画布坐标系已相应变换，按该区域绘制的装饰在阅读器中正向显示
+         */
+        public Rectangle getPageSize() {
+            return pageSize;
+        }
+
+        /**
+         * 页码，从 1 开始
+         */
+        public int getPageNumber() {
+            return pageNumber;
+        }
+
+        public PdfCanvas getPdfCanvas() {
+            return pdfCanvas;
+        }
+
+        /**
+         * 用于排版文字的布局画布，首次使用时创建
+         */
+        public Canvas getLayoutCanvas() {
+            if (layoutCanvas == null) {
+                layoutCanvas = new Canvas(pdfCanvas, pageSize);
+            }
+            return layoutCanvas;
+        }
+
+        void close() {
+            if (layoutCanvas != null) {
+                layoutCanvas.close();
+            }
+            pdfCanvas.release();
+        }
+    }
+}
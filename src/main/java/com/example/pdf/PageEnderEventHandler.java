@@ -3,70 +3,50 @@ package com.example.pdf;
 import com.itextpdf.kernel.colors.DeviceRgb;
 import com.itextpdf.kernel.events.Event;
 import com.itextpdf.kernel.events.IEventHandler;
-import com.itextpdf.kernel.events.PdfDocumentEvent;
-import com.itextpdf.kernel.font.PdfFont;
-import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.geom.Rectangle;
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfPage;
-import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
-import com.itextpdf.layout.Canvas;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.properties.TextAlignment;
-import com.itextpdf.io.font.PdfEncodings;
 
-import java.io.IOException;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+/**
+ * 页脚：居中文字和上方的分隔线，第一页不添加
+ * <p>
+ * 可单独注册为页面事件处理器，也可与其他装饰一起交给 {@link PageDecorator}，共用同一个内容流。
+ */
+public class PageEnderEventHandler implements IEventHandler, PageDecoration {
 
-public class PageEnderEventHandler implements IEventHandler {
-
-    private static final Logger LOGGER = Logger.getLogger(PageEnderEventHandler.class.getName());
     private String pageEnderContent;
 
+    // 单独注册时使用；不保存按文档变化的状态，见 PageDecorator
+    private final PageDecorator decorator = new PageDecorator(this);
+
     public PageEnderEventHandler(String pageEnderContent) {
         this.pageEnderContent = pageEnderContent;
     }
 
     @Override
     public void handleEvent(Event event) {
-        PdfDocumentEvent pdfDocumentEvent = (PdfDocumentEvent) event;
-        PdfPage page = pdfDocumentEvent.getPage();
-        Rectangle pageSize = page.getPageSize();
-        PdfDocument pdfDoc = pdfDocumentEvent.getDocument();
+        decorator.handleEvent(event);
+    }
 
+    @Override
+    public void decorate(PageDecorator.PageContext page) {
         // 不在第一页添加页脚 (原文逻辑是这样，如果需要在第一页也显示页脚，可以移除此判断)
-        if (pdfDoc.getPageNumber(page) != 1) {
-            PdfFont pdfFont = null;
-            try {
-                pdfFont = PdfFontFactory.createFont("STSongStd-Light", PdfEncodings.IDENTITY_H);
-            } catch (IOException e) {
-                LOGGER.log(Level.WARNING, "STSongStd-Light font for page ender not found, using default font.", e);
-                 try {
-                     pdfFont = PdfFontFactory.createFont(); // Default font
-                } catch (IOException ex) {
-                    LOGGER.log(Level.SEVERE, "Default font for page ender could not be created.", ex);
-                    return; // Cannot proceed without a font
-                }
-            }
-
-            PdfCanvas pdfCanvas = new PdfCanvas(page.newContentStreamBefore(), page.getResources(), pdfDoc);
-            // Use try-with-resources for Canvas
-            try (Canvas canvas = new Canvas(pdfCanvas, pageSize)) {
-                float x = (pageSize.getLeft() + pageSize.getRight()) / 2;
-                float y = pageSize.getBottom() + 32; // Position from bottom
-                Paragraph paragraph = new Paragraph(pageEnderContent)
-                        .setFontSize(7)
-                        .setFont(pdfFont);
-                canvas.showTextAligned(paragraph, x, y, TextAlignment.CENTER);
-            } // canvas is closed here
-
-            // 在页面底部绘制分隔线
-            pdfCanvas.setStrokeColor(new DeviceRgb(60, 60, 60))
-                    .setLineWidth(0.5f)
-                    .moveTo(pageSize.getLeft() + 80, pageSize.getBottom() + 27)
-                    .lineTo(pageSize.getRight() - 80, pageSize.getBottom() + 27)
-                    .stroke();
+        if (page.getPageNumber() == 1) {
+            return;
         }
+        Rectangle pageSize = page.getPageSize();
+        float x = (pageSize.getLeft() + pageSize.getRight()) / 2;
+        float y = pageSize.getBottom() + 32; // Position from bottom
+        Paragraph paragraph = new Paragraph(pageEnderContent)
+                .setFontSize(7)
+                .setFont(page.getFont());
+        page.getLayoutCanvas().showTextAligned(paragraph, x, y, TextAlignment.CENTER);
+
+        // 在页面底部绘制分隔线
+        page.getPdfCanvas().setStrokeColor(new DeviceRgb(60, 60, 60))
+                .setLineWidth(0.5f)
+                .moveTo(pageSize.getLeft() + 80, pageSize.getBottom() + 27)
+                .lineTo(pageSize.getRight() - 80, pageSize.getBottom() + 27)
+                .stroke();
     }
-} 
\ No newline at end of file
+}
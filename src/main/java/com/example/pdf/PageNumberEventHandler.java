@@ -0,0 +1,86 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.events.Event;
+import com.itextpdf.kernel.events.IEventHandler;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+
+/**
+ * 在首次写出时添加 "第X页/共Y页" 页码，不需要重新打开生成的PDF
+ * <p>
+ * 每页写出 "第X页/共"，总页数 "Y页" 写在一个所有页面共用的 {@link PdfFormXObject} 中。
+ * 该对象在文档关闭时才写出，因此可以在所有页面排版完成后、关闭文档前调用
+ * {@link #writeTotalPages(PdfDocument)} (或 {@link PageDecorator#finishDocument(PdfDocument)}) 填入总页数。
+ * <p>
+ * 可单独注册在 END_PAGE 上，也可与其他装饰一起交给 {@link PageDecorator}，共用同一个内容流。
+ */
+public class PageNumberEventHandler implements IEventHandler, PageDecoration {
+
+    private static final float FONT_SIZE = 10;
+    private static final float BOTTOM_OFFSET = 15;
+
+    // 单独注册时使用；不保存按文档变化的状态，见 PageDecorator
+    private final PageDecorator decorator = new PageDecorator(this);
+
+    @Override
+    public void handleEvent(Event event) {
+        decorator.handleEvent(event);
+    }
+
+    @Override
+    public void decorate(PageDecorator.PageContext page) {
+        PdfFont font = page.getFont();
+        Rectangle pageSize = page.getPageSize();
+        int pageNumber = page.getPageNumber();
+
+        String pageText = "第" + pageNumber + "页/共";
+        // 总页数未知，按当前页码的位数估算宽度来居中
+        float pageTextWidth = font.getWidth(pageText, FONT_SIZE);
+        float totalWidth = font.getWidth(pageNumber + "页", FONT_SIZE);
+        float x = (pageSize.getLeft() + pageSize.getRight() - pageTextWidth - totalWidth) / 2;
+        float y = pageSize.getBottom() + BOTTOM_OFFSET;
+
+        PdfCanvas pdfCanvas = page.getPdfCanvas();
+        pdfCanvas.beginText()
+                .setFontAndSize(font, FONT_SIZE)
+                .moveText(x, y)
+                .showText(pageText)
+                .endText();
+        pdfCanvas.addXObjectAt(getTotalPagesPlaceholder(page.getDocument()), x + pageTextWidth, y + font.getDescent(pageText, FONT_SIZE));
+    }
+
+    @Override
+    public void finishDocument(PageDecorator.DocumentContext document) {
+        PdfFont font = document.getFont();
+        PdfDocument pdfDoc = document.getPdfDocument();
+        String totalText = pdfDoc.getNumberOfPages() + "页";
+        float descent = font.getDescent(totalText, FONT_SIZE);
+        float width = font.getWidth(totalText, FONT_SIZE);
+        PdfFormXObject totalPagesPlaceholder = getTotalPagesPlaceholder(document);
+        totalPagesPlaceholder.setBBox(new PdfArray(new Rectangle(0, 0, width, font.getAscent(totalText, FONT_SIZE) - descent)));
+        new PdfCanvas(totalPagesPlaceholder, pdfDoc)
+                .beginText()
+                .setFontAndSize(font, FONT_SIZE)
+                .moveText(0, -descent)
+                .showText(totalText)
+                .endText()
+                .release();
+    }
+
+    /**
+     * 填入总页数，须在所有页面排版完成后、{@link PdfDocument#close()} 之前调用
+     *
+     * @param pdfDoc PDF文档
+     */
+    public void writeTotalPages(PdfDocument pdfDoc) {
+        decorator.finishDocument(pdfDoc);
+    }
+
+    private PdfFormXObject getTotalPagesPlaceholder(PageDecorator.DocumentContext document) {
+        return document.getResource(this, () -> new PdfFormXObject(new Rectangle(0, 0, 1, 1)));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * {@link CachingPdfConverter} 使用的PDF存储
+ * <p>
+ * 键为十六进制的内容哈希，值为完整的PDF字节。实现需要线程安全；淘汰策略由实现决定。
+ */
+public interface PdfCacheStore {
+
+    /**
+     * 命中时将缓存的PDF写入输出流
+     *
+     * @param key          缓存键
+     * @param outputStream 输出流，不会被关闭
+     * @return 写出的字节数，未命中时为 {@code -1}
+     */
+    long writeTo(String key, OutputStream outputStream) throws IOException;
+
+    /**
+     * 保存PDF，超出容量时淘汰最久未使用的条目；单个PDF超过总容量时不保存
+     *
+     * @param key 缓存键
+     * @param pdf 完整的PDF字节
+     */
+    void put(String key, byte[] pdf) throws IOException;
+
+    /**
+     * 当前占用的字节数
+     */
+    long getSizeBytes();
+
+    /**
+     * 清空缓存，例如字体目录中的字体更新之后
+     */
+    void clear() throws IOException;
+}
@@ -0,0 +1,496 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 并发PDF转换服务
+ * <p>
+ * 所有任务共享同一份转换配置 (字体目录、页面大小、页码)，字体通过 {@link FontRegistry} 只解析一次。
+ * 同时运行的任务数由 {@code threads} 限制，排队任务数由 {@code queueCapacity} 限制；
+ * 超出后 {@code submit} 立即抛出 {@link RejectedExecutionException}，由调用方决定重试或降级。
+ * 设置了任务超时 (全局或单个任务的期限) 后，超时的任务以 {@link TimeoutException} 结束。
+ * <p>
+ * 任务超时或调用方取消结果 (例如客户端断开后 {@code future.cancel(true)}) 时中断工作线程，
+ * 转换在下一页开始排版前停止并释放写出器和输入流，不会继续占用线程排版剩余页面；尚未开始的任务直接跳过。
+ */
+public class PdfConversionService implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(PdfConversionService.class.getName());
+    // 未设置缓冲区池时 submitPooled 使用，不保留任何缓冲区
+    private static final ByteBufferPool UNPOOLED = ByteBufferPool.builder().maxRetainedBytes(0).build();
+
+    private final String customFontDir;
+    private final PageSize pageSize;
+    private final boolean addPageFoot;
+    private final long jobTimeoutMillis;
+    private final ConversionListener listener;
+    private final ByteBufferPool bufferPool;
+
+    private final ExecutorService executor;
+    private final Semaphore admissionPermits;
+    // 仅虚拟线程模式使用：虚拟线程按任务创建，由该信号量限制同时转换的数量
+    private final Semaphore runningPermits;
+    private final ScheduledExecutorService timeoutScheduler;
+
+    private PdfConversionService(Builder builder) {
+        this.customFontDir = builder.customFontDir;
+        this.pageSize = builder.pageSize;
+        this.addPageFoot = builder.addPageFoot;
+        this.jobTimeoutMillis = builder.jobTimeoutMillis;
+        this.listener = builder.listener;
+        this.bufferPool = builder.bufferPool;
+        this.admissionPermits = new Semaphore(builder.threads + builder.queueCapacity);
+
+        ExecutorService virtualExecutor = builder.useVirtualThreads ? newVirtualThreadExecutor() : null;
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+            this.runningPermits = new Semaphore(builder.threads);
+        } else {
+            // 队列长度由 admissionPermits 控制，这里不会无限增长
+            this.executor = new ThreadPoolExecutor(builder.threads, builder.threads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(), daemonThreadFactory("pdf-conversion-"));
+            this.runningPermits = null;
+        }
+        // 单个任务可以指定期限，因此总是创建
+        this.timeoutScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("pdf-conversion-timeout-"));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 提交HTML文件，结果为完整的PDF字节
+     */
+    public CompletableFuture<byte[]> submit(File htmlFile) {
+        return submit(() -> new FileInputStream(htmlFile));
+    }
+
+    /**
+     * 提交HTML内容 (UTF-8字节)，结果为完整的PDF字节
+     */
+    public CompletableFuture<byte[]> submit(byte[] html) {
+        return submit(() -> new ByteArrayInputStream(html));
+    }
+
+    /**
+     * 提交HTML内容 (UTF-8字节)，并指定该任务的期限 (代替全局的任务超时)
+     *
+     * @param html    HTML内容
+     * @param timeout 从提交开始计算的期限，超出后结果以 {@link TimeoutException} 结束
+     * @param unit    时间单位
+     */
+    public CompletableFuture<byte[]> submit(byte[] html, long timeout, TimeUnit unit) {
+        return submit(() -> new ByteArrayInputStream(html), unit.toMillis(timeout));
+    }
+
+    /**
+     * 提交HTML输入流，结果为完整的PDF字节；输入流在任务结束后关闭 (任务开始前已超时或被取消时同样关闭)
+     */
+    public CompletableFuture<byte[]> submit(InputStream htmlInputStream) {
+        return schedule(submitJob(() -> htmlInputStream), jobTimeoutMillis, htmlInputStream);
+    }
+
+    /**
+     * 提交HTML内容 (UTF-8字节)，PDF写入从缓冲区池借用的缓冲区，调用方用完后归还
+     * <p>
+     * 未设置 {@link Builder#bufferPool(ByteBufferPool)} 时缓冲区不会被复用。
+     */
+    public CompletableFuture<PooledBuffer> submitPooled(byte[] html) {
+        return schedule(() -> convertPooled(() -> new ByteArrayInputStream(html)), jobTimeoutMillis);
+    }
+
+    /**
+     * 提交HTML输入流，PDF写入从缓冲区池借用的缓冲区，调用方用完后归还；输入流在任务结束后关闭 (任务开始前已超时或被取消时同样关闭)
+     */
+    public CompletableFuture<PooledBuffer> submitPooled(InputStream htmlInputStream) {
+        return schedule(() -> convertPooled(() -> htmlInputStream), jobTimeoutMillis, htmlInputStream);
+    }
+
+    /**
+     * 提交HTML输入流，PDF按写出顺序分块交给 {@code pdfChunks}，不在内存中保留整个PDF
+     * <p>
+     * 每块为只读的独立缓冲区 (约 iText 写出缓冲区大小)，在工作线程上依次回调，可直接交给响应式框架的发送端
+     * (Java 8 没有 {@code java.util.concurrent.Flow}，由调用方桥接)。结果完成 (包括超时和取消) 后不再回调，
+     * 之后的写出以 {@link IOException} 结束转换；
+     * 失败、超时或取消时已交出的块只是PDF的一部分，调用方应丢弃。
+     *
+     * @param htmlInputStream HTML输入流 (UTF-8)，任务结束后关闭 (包括开始前已超时或被取消)
+     * @param pdfChunks       PDF分块的接收方
+     */
+    public CompletableFuture<Void> stream(InputStream htmlInputStream, Consumer<ByteBuffer> pdfChunks) {
+        return stream(htmlInputStream, pdfChunks, jobTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 同 {@link #stream(InputStream, Consumer)}，并指定该任务的期限
+     *
+     * @param timeout 从提交开始计算的期限，0 表示不限制
+     * @param unit    时间单位
+     */
+    public CompletableFuture<Void> stream(InputStream htmlInputStream, Consumer<ByteBuffer> pdfChunks, long timeout, TimeUnit unit) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        ChunkOutputStream pdfOutput = new ChunkOutputStream(pdfChunks, result);
+        return schedule(() -> {
+            try (InputStream in = htmlInputStream) {
+                HtmlToPdfConverter.convertToPdf(in, customFontDir, pdfOutput, pageSize, addPageFoot, listener);
+            }
+            return null;
+        }, unit.toMillis(timeout), htmlInputStream, result);
+    }
+
+    /**
+     * 提交HTML文件，PDF直接写入调用方的输出流
+     * <p>
+     * 任务超时后输出流中可能只有部分内容，调用方应丢弃该输出。
+     */
+    public CompletableFuture<Void> submit(File htmlFile, OutputStream outputStream) {
+        return schedule(() -> {
+            try (InputStream htmlInputStream = new FileInputStream(htmlFile)) {
+                HtmlToPdfConverter.convertToPdf(htmlInputStream, customFontDir, outputStream, pageSize, addPageFoot, listener);
+            }
+            return null;
+        }, jobTimeoutMillis);
+    }
+
+    private CompletableFuture<byte[]> submit(HtmlSource htmlSource) {
+        return submit(htmlSource, jobTimeoutMillis);
+    }
+
+    private CompletableFuture<byte[]> submit(HtmlSource htmlSource, long timeoutMillis) {
+        return schedule(submitJob(htmlSource), timeoutMillis);
+    }
+
+    private ConversionJob<byte[]> submitJob(HtmlSource htmlSource) {
+        return () -> {
+            if (bufferPool != null) {
+                // 在池中的缓冲区内写出，只复制一次得到大小正好的结果
+                try (PooledBuffer pdf = convertPooled(htmlSource)) {
+                    return pdf.toByteArray();
+                }
+            }
+            ByteArrayOutputStream pdfBytes = new ByteArrayOutputStream();
+            try (InputStream htmlInputStream = htmlSource.open()) {
+                HtmlToPdfConverter.convertToPdf(htmlInputStream, customFontDir, pdfBytes, pageSize, addPageFoot, listener);
+            }
+            return pdfBytes.toByteArray();
+        };
+    }
+
+    private PooledBuffer convertPooled(HtmlSource htmlSource) throws IOException {
+        PooledOutputStream pdf = new PooledOutputStream(bufferPool != null ? bufferPool : UNPOOLED);
+        try (InputStream htmlInputStream = htmlSource.open()) {
+            HtmlToPdfConverter.convertToPdf(htmlInputStream, customFontDir, pdf, pageSize, addPageFoot, listener);
+        } catch (IOException | RuntimeException | Error e) {
+            pdf.discard();
+            throw e;
+        }
+        return pdf.toPooledBuffer();
+    }
+
+    /**
+     * 提交任意转换任务，排队名额、期限和取消规则与其他提交方法相同
+     *
+     * @param job           在工作线程上执行的任务
+     * @param timeoutMillis 从提交开始计算的期限，0 表示不限制
+     */
+    <T> CompletableFuture<T> schedule(ConversionJob<T> job, long timeoutMillis) {
+        return schedule(job, timeoutMillis, null);
+    }
+
+    private <T> CompletableFuture<T> schedule(ConversionJob<T> job, long timeoutMillis, Closeable input) {
+        return schedule(job, timeoutMillis, input, new CompletableFuture<>());
+    }
+
+    /**
+     * 同 {@link #schedule(ConversionJob, long)}；任务开始前结果已经结束 (超时或取消) 时关闭 {@code input}，
+     * 否则由任务自己关闭
+     *
+     * @param result 由任务完成的结果，任务可在执行中检查它是否已经结束
+     */
+    private <T> CompletableFuture<T> schedule(ConversionJob<T> job, long timeoutMillis, Closeable input, CompletableFuture<T> result) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("PdfConversionService has been closed");
+        }
+        if (!admissionPermits.tryAcquire()) {
+            throw new RejectedExecutionException("PdfConversionService queue is full");
+        }
+
+        AtomicBoolean started = new AtomicBoolean();
+        Future<?> worker;
+        try {
+            worker = executor.submit(() -> runJob(job, result, started, input));
+        } catch (RejectedExecutionException e) {
+            admissionPermits.release();
+            throw e;
+        }
+
+        if (timeoutMillis > 0) {
+            Future<?> timeout = timeoutScheduler.schedule(() -> {
+                if (result.completeExceptionally(new TimeoutException("PDF conversion timed out after " + timeoutMillis + " ms"))) {
+                    interruptIfStarted(worker, started);
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            result.whenComplete((value, error) -> timeout.cancel(false));
+        }
+        // 调用方取消时同样尝试中断工作线程
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                interruptIfStarted(worker, started);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 只中断已开始的任务；排队中的任务不取消，开始时发现结果已结束即返回，从而归还名额并关闭输入
+     */
+    private static void interruptIfStarted(Future<?> worker, AtomicBoolean started) {
+        if (started.get()) {
+            worker.cancel(true);
+        }
+    }
+
+    private <T> void runJob(ConversionJob<T> job, CompletableFuture<T> result, AtomicBoolean started, Closeable input) {
+        T value = null;
+        Throwable error = null;
+        boolean running = false;
+        started.set(true);
+        if (result.isDone()) {
+            // 开始前已超时或被取消：先归还名额再关闭输入，与正常结束的顺序一致
+            admissionPermits.release();
+            closeQuietly(input);
+            return;
+        }
+        try {
+            if (runningPermits != null) {
+                runningPermits.acquire();
+                running = true;
+            }
+            // 中断即取消：转换在下一页开始前停止
+            value = HtmlToPdfConverter.stopOnInterrupt(job::run);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = e;
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            // 先归还名额再完成结果，调用方收到结果后即可提交下一个任务
+            if (running) {
+                runningPermits.release();
+            }
+            admissionPermits.release();
+        }
+        if (error != null) {
+            result.completeExceptionally(error);
+        } else {
+            result.complete(value);
+        }
+    }
+
+    /**
+     * 停止接收新任务，并等待已提交的任务完成
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(Math.max(jobTimeoutMillis, 60_000L), TimeUnit.MILLISECONDS)) {
+                LOGGER.warning("PdfConversionService did not terminate in time, interrupting running conversions.");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            timeoutScheduler.shutdownNow();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Virtual threads are not available on this JDK, using platform threads.", e);
+            return null;
+        }
+    }
+
+    private static void closeQuietly(Closeable input) {
+        if (input != null) {
+            try {
+                input.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Could not close the input of a skipped conversion", e);
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 将写出的字节按块交给接收方；iText 会复用自己的缓冲区，因此每块复制一份
+     * <p>
+     * 结果已经结束 (超时、取消) 后不再交给接收方，写出失败从而尽快结束转换。
+     */
+    private static final class ChunkOutputStream extends OutputStream {
+        private final Consumer<ByteBuffer> chunks;
+        private final CompletableFuture<?> result;
+
+        ChunkOutputStream(Consumer<ByteBuffer> chunks, CompletableFuture<?> result) {
+            this.chunks = chunks;
+            this.result = result;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (result.isDone()) {
+                throw new IOException("PDF stream has already ended (timed out or cancelled)");
+            }
+            if (len > 0) {
+                chunks.accept(ByteBuffer.wrap(Arrays.copyOfRange(b, off, off + len)).asReadOnlyBuffer());
+            }
+        }
+    }
+
+    private interface HtmlSource {
+        InputStream open() throws IOException;
+    }
+
+    interface ConversionJob<T> {
+        T run() throws Exception;
+    }
+
+    public static final class Builder {
+        private String customFontDir;
+        private PageSize pageSize = PageSize.A4;
+        private boolean addPageFoot;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = Runtime.getRuntime().availableProcessors() * 4;
+        private long jobTimeoutMillis;
+        private boolean useVirtualThreads;
+        private ConversionListener listener = ConversionListener.NO_OP;
+        private ByteBufferPool bufferPool;
+
+        private Builder() {
+        }
+
+        public Builder customFontDir(String customFontDir) {
+            this.customFontDir = customFontDir;
+            return this;
+        }
+
+        public Builder pageSize(PageSize pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public Builder addPageFoot(boolean addPageFoot) {
+            this.addPageFoot = addPageFoot;
+            return this;
+        }
+
+        /**
+         * 同时进行转换的最大任务数
+         */
+        public Builder threads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("threads must be at least 1");
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * 等待执行的最大任务数，超出后拒绝新任务
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity < 0) {
+                throw new IllegalArgumentException("queueCapacity must not be negative");
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * 单个任务从提交开始计算的超时时间，0 表示不限制
+         */
+        public Builder jobTimeout(long timeout, TimeUnit unit) {
+            if (timeout < 0) {
+                throw new IllegalArgumentException("timeout must not be negative");
+            }
+            this.jobTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * 在支持虚拟线程的JDK (21+) 上为每个任务使用虚拟线程，否则回退到平台线程池
+         */
+        public Builder useVirtualThreads(boolean useVirtualThreads) {
+            this.useVirtualThreads = useVirtualThreads;
+            return this;
+        }
+
+        /**
+         * 所有任务共用的指标监听器，需要线程安全
+         */
+        public Builder listener(ConversionListener listener) {
+            this.listener = listener != null ? listener : ConversionListener.NO_OP;
+            return this;
+        }
+
+        /**
+         * 输出PDF使用的缓冲区池，可在多个服务间共享；默认不使用
+         */
+        public Builder bufferPool(ByteBufferPool bufferPool) {
+            this.bufferPool = bufferPool;
+            return this;
+        }
+
+        public PdfConversionService build() {
+            return new PdfConversionService(this);
+        }
+    }
+}
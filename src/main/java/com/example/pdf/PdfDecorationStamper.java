@@ -0,0 +1,69 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.StampingProperties;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 为已有的PDF (例如其他系统生成的文件) 添加水印、页眉、页脚、页码等装饰
+ * <p>
+ * 以增量追加模式 (append mode) 写出：原文件的字节原样复制，之后只追加新增或修改的对象
+ * (每页一个装饰内容流、修改后的页面字典和资源字典、装饰字体、共用的 Form XObject)，
+ * 原有的字体、图片、内容流等不会被解析和重新序列化。耗时与页数成正比，而不是与文件大小成正比；
+ * 原文件中的数字签名在追加后仍然有效 (签名覆盖的字节范围未被改动)，但签名后新增的内容会被阅读器提示。
+ * <p>
+ * 装饰按列表顺序绘制在页面原有内容之下，与转换时一致；带不透明背景的页面 (如扫描件) 会遮住装饰。
+ * <p>
+ * 装饰按页面的可见区域 (CropBox) 定位；页面带旋转 ({@code /Rotate}) 时按转正后的页面绘制，在阅读器中正向显示。
+ */
+public final class PdfDecorationStamper {
+
+    private PdfDecorationStamper() {
+    }
+
+    /**
+     * 为PDF文件的每一页添加装饰
+     * <p>
+     * 按需随机读取原文件，不将整个文件读入内存。
+     *
+     * @param source       原PDF文件
+     * @param outputStream 输出流，写出完整的新PDF (原文件内容 + 追加部分)
+     * @param decorations  页面装饰，按绘制顺序排列
+     * @return 页数
+     */
+    public static int stamp(Path source, OutputStream outputStream, List<? extends PageDecoration> decorations) throws IOException {
+        return stamp(new PdfReader(source.toFile()), outputStream, decorations);
+    }
+
+    /**
+     * 为PDF的每一页添加装饰
+     *
+     * @param source       原PDF输入流，读取后关闭
+     * @param outputStream 输出流，写出完整的新PDF (原文件内容 + 追加部分)
+     * @param decorations  页面装饰，按绘制顺序排列
+     * @return 页数
+     */
+    public static int stamp(InputStream source, OutputStream outputStream, List<? extends PageDecoration> decorations) throws IOException {
+        return stamp(new PdfReader(source), outputStream, decorations);
+    }
+
+    private static int stamp(PdfReader reader, OutputStream outputStream, List<? extends PageDecoration> decorations) throws IOException {
+        PageDecorator decorator = new PageDecorator(decorations);
+        try (PdfDocument pdfDocument = new PdfDocument(reader, new PdfWriter(outputStream),
+                new StampingProperties().useAppendMode())) {
+            int pages = pdfDocument.getNumberOfPages();
+            for (int i = 1; i <= pages; i++) {
+                decorator.decorate(pdfDocument.getPage(i));
+            }
+            decorator.finishDocument(pdfDocument);
+            return pages;
+        }
+    }
+}
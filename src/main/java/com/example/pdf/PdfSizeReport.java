@@ -0,0 +1,255 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfIndirectReference;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * PDF体积构成报告：按字体、图片、内容流统计流对象的字节数 (压缩后)
+ * <p>
+ * 报告通过重新读取生成的PDF得到，不影响转换本身，用于调整字体、图片等对存储和带宽的影响。
+ * 字典、交叉引用表等非流对象计入 {@link #getOtherBytes()}。
+ */
+public final class PdfSizeReport {
+
+    // 子集字体的名称前缀，例如 ABCDEF+MicrosoftYaHei
+    private static final Pattern SUBSET_PREFIX = Pattern.compile("^[A-Z]{6}\\+");
+
+    private final long totalBytes;
+    private final long fontBytes;
+    private final long imageBytes;
+    private final long contentStreamBytes;
+    private final List<FontEntry> fonts;
+
+    private PdfSizeReport(long totalBytes, long fontBytes, long imageBytes, long contentStreamBytes, List<FontEntry> fonts) {
+        this.totalBytes = totalBytes;
+        this.fontBytes = fontBytes;
+        this.imageBytes = imageBytes;
+        this.contentStreamBytes = contentStreamBytes;
+        this.fonts = Collections.unmodifiableList(fonts);
+    }
+
+    /**
+     * 分析PDF的体积构成
+     *
+     * @param pdf 完整的PDF字节
+     * @return 体积报告
+     */
+    public static PdfSizeReport analyze(byte[] pdf) throws IOException {
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            Set<PdfIndirectReference> fontStreams = new HashSet<>();
+            Set<PdfIndirectReference> pageContents = new HashSet<>();
+            Map<PdfIndirectReference, FontEntry> fontsByDictionary = new LinkedHashMap<>();
+            for (int i = 1; i <= pdfDoc.getNumberOfPages(); i++) {
+                PdfObject contents = pdfDoc.getPage(i).getPdfObject().get(PdfName.Contents, false);
+                collectReferences(contents, pageContents);
+            }
+            for (int i = 1; i < pdfDoc.getNumberOfPdfObjects(); i++) {
+                PdfObject object = pdfDoc.getPdfObject(i);
+                if (object instanceof PdfDictionary && PdfName.Font.equals(((PdfDictionary) object).getAsName(PdfName.Type))
+                        && !(object instanceof PdfStream)) {
+                    PdfDictionary font = (PdfDictionary) object;
+                    // Type0 字体的字形数据在 DescendantFonts 中，单独统计时只统计顶层字体
+                    if (!isDescendantFont(font)) {
+                        fontsByDictionary.put(object.getIndirectReference(), describeFont(font, fontStreams));
+                    }
+                }
+            }
+
+            long fontBytes = 0;
+            long imageBytes = 0;
+            long contentStreamBytes = 0;
+            for (int i = 1; i < pdfDoc.getNumberOfPdfObjects(); i++) {
+                PdfObject object = pdfDoc.getPdfObject(i);
+                if (!(object instanceof PdfStream)) {
+                    continue;
+                }
+                PdfStream stream = (PdfStream) object;
+                PdfName subtype = stream.getAsName(PdfName.Subtype);
+                long length = stream.getBytes(false).length;
+                if (PdfName.Image.equals(subtype)) {
+                    imageBytes += length;
+                } else if (PdfName.Form.equals(subtype) || pageContents.contains(stream.getIndirectReference())) {
+                    contentStreamBytes += length;
+                } else if (fontStreams.contains(stream.getIndirectReference())) {
+                    fontBytes += length;
+                }
+            }
+            return new PdfSizeReport(pdf.length, fontBytes, imageBytes, contentStreamBytes,
+                    new ArrayList<>(fontsByDictionary.values()));
+        }
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 嵌入的字体程序、ToUnicode 映射等字体相关流的字节数
+     */
+    public long getFontBytes() {
+        return fontBytes;
+    }
+
+    public long getImageBytes() {
+        return imageBytes;
+    }
+
+    /**
+     * 页面内容流和 Form XObject 的字节数
+     */
+    public long getContentStreamBytes() {
+        return contentStreamBytes;
+    }
+
+    /**
+     * 字典、交叉引用表、元数据等其余部分的字节数
+     */
+    public long getOtherBytes() {
+        return totalBytes - fontBytes - imageBytes - contentStreamBytes;
+    }
+
+    /**
+     * 文档中的字体，每个字体字典一项
+     */
+    public List<FontEntry> getFonts() {
+        return fonts;
+    }
+
+    /**
+     * 在多个字体字典中重复出现的字体名称 (不含子集前缀)
+     */
+    public Set<String> getDuplicateFontNames() {
+        Set<String> seen = new HashSet<>();
+        Set<String> duplicates = new LinkedHashSet<>();
+        for (FontEntry font : fonts) {
+            if (!seen.add(font.getName())) {
+                duplicates.add(font.getName());
+            }
+        }
+        return duplicates;
+    }
+
+    @Override
+    public String toString() {
+        return "PdfSizeReport{totalBytes=" + totalBytes
+                + ", fontBytes=" + fontBytes
+                + ", imageBytes=" + imageBytes
+                + ", contentStreamBytes=" + contentStreamBytes
+                + ", otherBytes=" + getOtherBytes()
+                + ", fonts=" + fonts + '}';
+    }
+
+    private static boolean isDescendantFont(PdfDictionary font) {
+        PdfName subtype = font.getAsName(PdfName.Subtype);
+        return PdfName.CIDFontType0.equals(subtype) || PdfName.CIDFontType2.equals(subtype);
+    }
+
+    private static FontEntry describeFont(PdfDictionary font, Set<PdfIndirectReference> fontStreams) {
+        collectReferences(font.get(PdfName.ToUnicode, false), fontStreams);
+        PdfDictionary glyphFont = font;
+        PdfArray descendants = font.getAsArray(PdfName.DescendantFonts);
+        if (descendants != null && !descendants.isEmpty()) {
+            glyphFont = descendants.getAsDictionary(0);
+        }
+        long embeddedBytes = 0;
+        PdfDictionary descriptor = glyphFont.getAsDictionary(PdfName.FontDescriptor);
+        if (descriptor != null) {
+            collectReferences(descriptor.get(PdfName.CIDSet, false), fontStreams);
+            for (PdfName key : new PdfName[]{PdfName.FontFile, PdfName.FontFile2, PdfName.FontFile3}) {
+                PdfStream fontFile = descriptor.getAsStream(key);
+                if (fontFile != null) {
+                    collectReferences(descriptor.get(key, false), fontStreams);
+                    embeddedBytes += fontFile.getBytes(false).length;
+                }
+            }
+        }
+        PdfName baseFont = font.getAsName(PdfName.BaseFont);
+        String fullName = baseFont != null ? baseFont.getValue() : "";
+        boolean subset = SUBSET_PREFIX.matcher(fullName).find();
+        String name = subset ? fullName.substring(7) : fullName;
+        return new FontEntry(name, descriptor != null && embeddedBytes > 0, subset, embeddedBytes);
+    }
+
+    private static void collectReferences(PdfObject object, Set<PdfIndirectReference> references) {
+        if (object == null) {
+            return;
+        }
+        if (object.isIndirectReference()) {
+            references.add((PdfIndirectReference) object);
+            return;
+        }
+        if (object.getIndirectReference() != null) {
+            references.add(object.getIndirectReference());
+        }
+        if (object.isArray()) {
+            for (int i = 0; i < ((PdfArray) object).size(); i++) {
+                collectReferences(((PdfArray) object).get(i, false), references);
+            }
+        }
+    }
+
+    /**
+     * 文档中的一个字体
+     */
+    public static final class FontEntry {
+        private final String name;
+        private final boolean embedded;
+        private final boolean subset;
+        private final long embeddedBytes;
+
+        FontEntry(String name, boolean embedded, boolean subset, long embeddedBytes) {
+            this.name = name;
+            this.embedded = embedded;
+            this.subset = subset;
+            this.embeddedBytes = embeddedBytes;
+        }
+
+        /**
+         * 字体名称，不含子集前缀
+         */
+        public String getName() {
+            return name;
+        }
+
+        public boolean isEmbedded() {
+            return embedded;
+        }
+
+        /**
+         * 是否只嵌入了文档用到的字形
+         */
+        public boolean isSubset() {
+            return subset;
+        }
+
+        /**
+         * 嵌入的字体程序字节数 (压缩后)
+         */
+        public long getEmbeddedBytes() {
+            return embeddedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return name + (embedded ? (subset ? " (subset, " : " (full, ") + embeddedBytes + " bytes)" : " (not embedded)");
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.styledxmlparser.jsoup.nodes.Attribute;
+import com.itextpdf.styledxmlparser.jsoup.nodes.Document;
+import com.itextpdf.styledxmlparser.jsoup.nodes.Node;
+import com.itextpdf.styledxmlparser.jsoup.nodes.TextNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 预编译的HTML模板
+ * <p>
+ * 模板在 {@link #compile} 时只解析一次 (包括字符实体替换)，并记录所有 {@code ${name}} 占位符所在的
+ * 文本节点和属性。每次 {@link #render} 复制已解析的DOM，按记录的位置填入数据后直接排版，
+ * 不再重复读取和解析HTML。填入的值按纯文本处理，不会被解析为HTML标签。
+ * <p>
+ * 占位符只能出现在元素文本和属性值中；{@code <style>}、{@code <script>} 内容中的占位符不会被替换。
+ * 样式表仍由 html2pdf 在每次渲染时解析，html2pdf 未提供复用已解析样式的入口。
+ * <p>
+ * 模板实例不可变，可在多个线程间共享。
+ */
+public final class PdfTemplate {
+
+    private static final String PLACEHOLDER_START = "${";
+    private static final String PLACEHOLDER_END = "}";
+
+    private final Document document;
+    private final List<Slot> slots;
+    private final Set<String> placeholderNames;
+    private final String customFontDir;
+    private final PageSize pageSize;
+    private final boolean addPageFoot;
+
+    private PdfTemplate(Document document, List<Slot> slots, String customFontDir, PageSize pageSize, boolean addPageFoot) {
+        this.document = document;
+        this.slots = slots;
+        this.customFontDir = customFontDir;
+        this.pageSize = pageSize;
+        this.addPageFoot = addPageFoot;
+        Set<String> names = new LinkedHashSet<>();
+        for (Slot slot : slots) {
+            names.addAll(slot.value.names);
+        }
+        this.placeholderNames = Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * 解析并编译模板
+     *
+     * @param templateInputStream 模板HTML输入流 (UTF-8)，读取后关闭
+     * @param customFontDir       字体目录
+     * @param pageSize            页面大小
+     * @param addPageFoot         是否添加 "第X页/共Y页" 页码
+     * @return 编译后的模板
+     */
+    public static PdfTemplate compile(InputStream templateInputStream, String customFontDir, PageSize pageSize, boolean addPageFoot) throws IOException {
+        Document document = HtmlDocuments.parse(templateInputStream);
+        List<Slot> slots = new ArrayList<>();
+        collectSlots(document, new ArrayList<Integer>(), slots);
+        return new PdfTemplate(document, Collections.unmodifiableList(slots), customFontDir, pageSize, addPageFoot);
+    }
+
+    /**
+     * 模板中出现的占位符名称，按首次出现的顺序
+     */
+    public Set<String> getPlaceholderNames() {
+        return placeholderNames;
+    }
+
+    /**
+     * 填入数据并生成PDF
+     *
+     * @param data         占位符名称到值的映射，值通过 {@link String#valueOf(Object)} 转为文本
+     * @param outputStream 输出流
+     * @throws IllegalArgumentException 模板中的占位符在 {@code data} 中没有对应的值
+     */
+    public void render(Map<String, ?> data, OutputStream outputStream) throws IOException {
+        render(data, outputStream, ConversionListener.NO_OP);
+    }
+
+    /**
+     * 填入数据并生成PDF，并向监听器报告指标
+     *
+     * @param data         占位符名称到值的映射，值通过 {@link String#valueOf(Object)} 转为文本
+     * @param outputStream 输出流
+     * @param listener     指标监听器，可为 {@code null}
+     * @throws IllegalArgumentException 模板中的占位符在 {@code data} 中没有对应的值
+     */
+    public void render(Map<String, ?> data, OutputStream outputStream, ConversionListener listener) throws IOException {
+        for (String name : placeholderNames) {
+            if (!data.containsKey(name)) {
+                throw new IllegalArgumentException("No value for template placeholder ${" + name + "}");
+            }
+        }
+        HtmlToPdfConverter.convertDocument(HtmlDocuments.toDocumentNode(bind(data)), HtmlToPdfConverter.newConverterProperties(customFontDir),
+                outputStream, pageSize, HtmlToPdfConverter.pageFoot(addPageFoot), listener);
+    }
+
+    private Document bind(Map<String, ?> data) {
+        Document copy;
+        // 复制只读取原DOM，同步只是为了不依赖 jsoup 内部缓存的线程安全性
+        synchronized (document) {
+            copy = (Document) document.clone();
+        }
+        for (Slot slot : slots) {
+            Node node = copy;
+            for (int index : slot.path) {
+                node = node.childNode(index);
+            }
+            String value = slot.value.bind(data);
+            if (slot.attributeName == null) {
+                ((TextNode) node).text(value);
+            } else {
+                node.attr(slot.attributeName, value);
+            }
+        }
+        return copy;
+    }
+
+    private static void collectSlots(Node node, List<Integer> path, List<Slot> slots) {
+        if (node instanceof TextNode) {
+            String text = ((TextNode) node).getWholeText();
+            if (text.contains(PLACEHOLDER_START)) {
+                slots.add(new Slot(toArray(path), null, SlotValue.parse(text)));
+            }
+            return;
+        }
+        for (Attribute attribute : node.attributes()) {
+            if (attribute.getValue().contains(PLACEHOLDER_START)) {
+                slots.add(new Slot(toArray(path), attribute.getKey(), SlotValue.parse(attribute.getValue())));
+            }
+        }
+        for (int i = 0; i < node.childNodeSize(); i++) {
+            path.add(i);
+            collectSlots(node.childNode(i), path, slots);
+            path.remove(path.size() - 1);
+        }
+    }
+
+    private static int[] toArray(List<Integer> path) {
+        int[] result = new int[path.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = path.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * 占位符所在位置：从文档根节点开始的子节点下标路径，以及属性名 (文本节点为 {@code null})
+     */
+    private static final class Slot {
+        final int[] path;
+        final String attributeName;
+        final SlotValue value;
+
+        Slot(int[] path, String attributeName, SlotValue value) {
+            this.path = path;
+            this.attributeName = attributeName;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 预先拆分好的文本：固定片段与占位符交替出现
+     */
+    private static final class SlotValue {
+        // literals.size() == names.size() + 1
+        final List<String> literals;
+        final List<String> names;
+
+        private SlotValue(List<String> literals, List<String> names) {
+            this.literals = literals;
+            this.names = names;
+        }
+
+        static SlotValue parse(String text) {
+            List<String> literals = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            int pos = 0;
+            while (pos < text.length()) {
+                int start = text.indexOf(PLACEHOLDER_START, pos);
+                int end = start < 0 ? -1 : text.indexOf(PLACEHOLDER_END, start + PLACEHOLDER_START.length());
+                if (start < 0 || end < 0) {
+                    literal.append(text, pos, text.length());
+                    break;
+                }
+                String name = text.substring(start + PLACEHOLDER_START.length(), end).trim();
+                literal.append(text, pos, start);
+                if (name.isEmpty()) {
+                    literal.append(text, start, end + PLACEHOLDER_END.length());
+                } else {
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    names.add(name);
+                }
+                pos = end + PLACEHOLDER_END.length();
+            }
+            literals.add(literal.toString());
+            return new SlotValue(literals, names);
+        }
+
+        String bind(Map<String, ?> data) {
+            StringBuilder result = new StringBuilder(literals.get(0));
+            for (int i = 0; i < names.size(); i++) {
+                result.append(String.valueOf(data.get(names.get(i)))).append(literals.get(i + 1));
+            }
+            return result.toString();
+        }
+    }
+}
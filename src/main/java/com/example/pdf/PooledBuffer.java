@@ -0,0 +1,92 @@
+package com.example.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 从 {@link ByteBufferPool} 借用的转换结果 (例如PDF字节)，使用完后调用 {@link #release()} 归还
+ * <p>
+ * 可以直接写入输出流或通道，避免再复制一份 {@code byte[]}。归还后不得再访问，
+ * 包括 {@link #buffer()} 返回的视图。未归还的缓冲区不会泄漏，只是不能复用，由GC回收。
+ */
+public final class PooledBuffer implements AutoCloseable {
+
+    private final ByteBufferPool pool;
+    private final ByteBuffer buffer;
+    private final int size;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    PooledBuffer(ByteBufferPool pool, ByteBuffer buffer, int size) {
+        this.pool = pool;
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 内容的只读视图，位置为0，界限为 {@link #size()}
+     */
+    public ByteBuffer buffer() {
+        checkNotReleased();
+        ByteBuffer view = buffer.duplicate();
+        view.position(0).limit(size);
+        return view.asReadOnlyBuffer();
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        checkNotReleased();
+        if (buffer.hasArray()) {
+            outputStream.write(buffer.array(), buffer.arrayOffset(), size);
+            return;
+        }
+        byte[] chunk = new byte[Math.min(size, 8192)];
+        ByteBuffer view = buffer();
+        while (view.hasRemaining()) {
+            int n = Math.min(chunk.length, view.remaining());
+            view.get(chunk, 0, n);
+            outputStream.write(chunk, 0, n);
+        }
+    }
+
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer view = buffer();
+        while (view.hasRemaining()) {
+            channel.write(view);
+        }
+    }
+
+    /**
+     * 复制为独立的数组，之后通常即可归还
+     */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[size];
+        buffer().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 归还缓冲区，重复调用无效果
+     */
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            pool.release(buffer);
+        }
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    private void checkNotReleased() {
+        if (released.get()) {
+            throw new IllegalStateException("PooledBuffer has been released");
+        }
+    }
+}
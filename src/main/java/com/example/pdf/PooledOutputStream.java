@@ -0,0 +1,95 @@
+package com.example.pdf;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 写入 {@link ByteBufferPool} 缓冲区的输出流，容量不足时换用更大一级的缓冲区并归还原缓冲区
+ * <p>
+ * iText 的写出器会关闭它写入的输出流，因此 {@link #close()} 不归还缓冲区：
+ * 成功时由 {@link #toPooledBuffer()} 交出，失败时调用 {@link #discard()}。
+ */
+final class PooledOutputStream extends OutputStream {
+
+    static final int DEFAULT_INITIAL_CAPACITY = 64 * 1024;
+
+    private final ByteBufferPool pool;
+    private ByteBuffer buffer;
+
+    PooledOutputStream(ByteBufferPool pool) {
+        this(pool, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    PooledOutputStream(ByteBufferPool pool, int initialCapacity) {
+        this.pool = pool;
+        this.buffer = pool.acquire(initialCapacity);
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(1);
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(len);
+        buffer.put(b, off, len);
+    }
+
+    int size() {
+        checkOpen();
+        return buffer.position();
+    }
+
+    /**
+     * 交出已写入的内容，之后本输出流不能再使用
+     */
+    PooledBuffer toPooledBuffer() {
+        checkOpen();
+        PooledBuffer result = new PooledBuffer(pool, buffer, buffer.position());
+        buffer = null;
+        return result;
+    }
+
+    /**
+     * 复制为独立的数组并归还缓冲区
+     */
+    byte[] toByteArray() {
+        try (PooledBuffer result = toPooledBuffer()) {
+            return result.toByteArray();
+        }
+    }
+
+    /**
+     * 放弃已写入的内容并归还缓冲区，可重复调用
+     */
+    void discard() {
+        if (buffer != null) {
+            pool.release(buffer);
+            buffer = null;
+        }
+    }
+
+    private void ensureCapacity(int len) {
+        checkOpen();
+        if (buffer.remaining() >= len) {
+            return;
+        }
+        long required = (long) buffer.position() + len;
+        if (required > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("PooledOutputStream cannot hold " + required + " bytes");
+        }
+        ByteBuffer larger = pool.acquire((int) Math.min(Integer.MAX_VALUE - 8, Math.max(required, 2L * buffer.capacity())));
+        buffer.flip();
+        larger.put(buffer);
+        pool.release(buffer);
+        buffer = larger;
+    }
+
+    private void checkOpen() {
+        if (buffer == null) {
+            throw new IllegalStateException("PooledOutputStream has already been handed over or discarded");
+        }
+    }
+}
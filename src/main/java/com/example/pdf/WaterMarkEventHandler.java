@@ -3,31 +3,34 @@ package com.example.pdf;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.events.Event;
 import com.itextpdf.kernel.events.IEventHandler;
-import com.itextpdf.kernel.events.PdfDocumentEvent;
 import com.itextpdf.kernel.font.PdfFont;
-import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.geom.Rectangle;
 import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfPage;
-import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
 import com.itextpdf.layout.Canvas;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.VerticalAlignment;
-import com.itextpdf.io.font.PdfEncodings;
 
-import java.io.IOException;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Arrays;
 
-public class WaterMarkEventHandler implements IEventHandler {
+/**
+ * 平铺水印
+ * <p>
+ * 可单独注册为页面事件处理器，也可与其他装饰一起交给 {@link PageDecorator}，共用同一个内容流。
+ */
+public class WaterMarkEventHandler implements IEventHandler, PageDecoration {
 
-    private static final Logger LOGGER = Logger.getLogger(WaterMarkEventHandler.class.getName());
     private String waterMarkContent;
     private int waterMarkX;
     private int waterMarkY;
     private float rotationAngle;
 
+    private boolean useFormXObject;
+
+    // 单独注册时使用；不保存按文档变化的状态，见 PageDecorator
+    private final PageDecorator decorator = new PageDecorator(this);
+
     public WaterMarkEventHandler(String waterMarkContent) {
         this(waterMarkContent, 5, 5, (float) Math.toRadians(45)); // Default angle 45 degrees
     }
@@ -43,46 +46,64 @@ public class WaterMarkEventHandler implements IEventHandler {
         this.rotationAngle = rotationAngleInRadians;
     }
 
+    /**
+     * 开启后整页水印只排版一次，写入 {@link PdfFormXObject}，每页通过引用放置
+     *
+     * @param useFormXObject 是否使用 Form XObject 复用水印
+     * @return 当前处理器
+     */
+    public WaterMarkEventHandler setUseFormXObject(boolean useFormXObject) {
+        this.useFormXObject = useFormXObject;
+        return this;
+    }
+
     @Override
     public void handleEvent(Event event) {
-        PdfDocumentEvent documentEvent = (PdfDocumentEvent) event;
-        PdfDocument document = documentEvent.getDocument();
-        PdfPage page = documentEvent.getPage();
+        decorator.handleEvent(event);
+    }
+
+    @Override
+    public void decorate(PageDecorator.PageContext page) {
         Rectangle pageSize = page.getPageSize();
-        int pageNumber = document.getPageNumber(page);
-
-        PdfFont pdfFont = null;
-        try {
-            pdfFont = PdfFontFactory.createFont("STSongStd-Light", PdfEncodings.IDENTITY_H);
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "STSongStd-Light font for watermark not found, using default font.", e);
-            try {
-                 pdfFont = PdfFontFactory.createFont(); 
-            } catch (IOException ex) {
-                 LOGGER.log(Level.SEVERE, "Default font for watermark could not be created.", ex);
-                return; 
-            }
+        PdfFont pdfFont = page.getFont();
+
+        if (useFormXObject) {
+            // 按页面尺寸缓存整页水印，同一文档内所有同尺寸页面共用
+            PdfFormXObject waterMark = page.getDocument().getResource(
+                    Arrays.asList(this, pageSize.getWidth(), pageSize.getHeight()),
+                    () -> newWaterMarkXObject(page.getPdfDocument(), pageSize, pdfFont));
+            page.getPdfCanvas().addXObjectAt(waterMark, pageSize.getX(), pageSize.getY());
+            return;
+        }
+
+        showWaterMarkGrid(page.getLayoutCanvas(), pageSize, pdfFont, page.getPageNumber());
+    }
+
+    private PdfFormXObject newWaterMarkXObject(PdfDocument document, Rectangle pageSize, PdfFont pdfFont) {
+        Rectangle bBox = new Rectangle(pageSize.getWidth(), pageSize.getHeight());
+        PdfFormXObject waterMark = new PdfFormXObject(bBox);
+        try (Canvas canvas = new Canvas(waterMark, document)) {
+            showWaterMarkGrid(canvas, bBox, pdfFont, 1);
         }
-        
-        PdfCanvas pdfCanvas = new PdfCanvas(page.newContentStreamBefore(), page.getResources(), document);
+        return waterMark;
+    }
 
-        Paragraph waterMarkParagraph = new Paragraph(waterMarkContent).setOpacity(0.5f);
+    private void showWaterMarkGrid(Canvas canvas, Rectangle area, PdfFont pdfFont, int pageNumber) {
+        // 样式设置在段落上，画布可能与其他装饰共用
+        Paragraph waterMarkParagraph = new Paragraph(waterMarkContent)
+                .setOpacity(0.5f)
+                .setFontColor(ColorConstants.LIGHT_GRAY)
+                .setFontSize(16);
         if (pdfFont != null) {
             waterMarkParagraph.setFont(pdfFont);
         }
-        // Use try-with-resources for Canvas
-        try (Canvas canvas = new Canvas(pdfCanvas, pageSize)) {
-            canvas.setFontColor(ColorConstants.LIGHT_GRAY)
-                  .setFontSize(16);
-                  // Font is set on paragraph directly
-
-            for (int i = 0; i < waterMarkX; i++) {
-                for (int j = 0; j < waterMarkY; j++) {
-                    float xPos = (pageSize.getWidth() / (waterMarkX + 1)) * (i + 1);
-                    float yPos = (pageSize.getHeight() / (waterMarkY + 1)) * (j + 1);
-                    canvas.showTextAligned(waterMarkParagraph, xPos, yPos, pageNumber, TextAlignment.CENTER, VerticalAlignment.MIDDLE, rotationAngle);
-                }
+
+        for (int i = 0; i < waterMarkX; i++) {
+            for (int j = 0; j < waterMarkY; j++) {
+                float xPos = (area.getWidth() / (waterMarkX + 1)) * (i + 1);
+                float yPos = (area.getHeight() / (waterMarkY + 1)) * (j + 1);
+                canvas.showTextAligned(waterMarkParagraph, xPos, yPos, pageNumber, TextAlignment.CENTER, VerticalAlignment.MIDDLE, rotationAngle);
             }
-        } 
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class BatchPdfConverterTest {
+
+    private static final byte[] HTML = "<html><body><p>Batch conversion test</p></body></html>".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testFailedItemDoesNotAbortBatch() throws Exception {
+        List<ByteArrayOutputStream> outputs = new ArrayList<>();
+        List<BatchPdfConverter.BatchItem> items = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ByteArrayOutputStream pdfBytes = new ByteArrayOutputStream();
+            outputs.add(pdfBytes);
+            items.add(BatchPdfConverter.BatchItem.of("doc-" + i, () -> new ByteArrayInputStream(HTML), () -> pdfBytes));
+        }
+        items.add(2, BatchPdfConverter.BatchItem.of("missing", () -> {
+            throw new FileNotFoundException("missing.html");
+        }, ByteArrayOutputStream::new));
+
+        BatchPdfConverter.BatchResult result = BatchPdfConverter.builder().parallelism(3).build().convert(items);
+
+        assertEquals(6, result.getSucceeded());
+        assertEquals(1, result.getFailures().size());
+        assertEquals("missing", result.getFailures().get(0).getId());
+        assertTrue(result.getFailures().get(0).getError() instanceof FileNotFoundException);
+        for (ByteArrayOutputStream pdfBytes : outputs) {
+            try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdfBytes.toByteArray())))) {
+                assertTrue(pdfDoc.getNumberOfPages() > 0);
+            }
+        }
+    }
+
+    @Test
+    public void testConvertsItemsFromStream() throws Exception {
+        HistogramConversionListener listener = new HistogramConversionListener();
+        BatchPdfConverter converter = BatchPdfConverter.builder().parallelism(2).addPageFoot(true).listener(listener).build();
+
+        BatchPdfConverter.BatchResult result = converter.convert(IntStream.range(0, 5).mapToObj(i ->
+                BatchPdfConverter.BatchItem.of("doc-" + i, () -> new ByteArrayInputStream(HTML), ByteArrayOutputStream::new)));
+
+        assertTrue(result.isAllSucceeded());
+        assertEquals(5, result.getSucceeded());
+        assertEquals(5, listener.getTotalNanos().getCount());
+        assertEquals("Fonts are set up once per worker, not per document",
+                0, listener.getStageNanos(ConversionStage.FONT_SETUP).getCount());
+    }
+}
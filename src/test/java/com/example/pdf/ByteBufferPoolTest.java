@@ -0,0 +1,80 @@
+package com.example.pdf;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ByteBufferPoolTest {
+
+    @Test
+    public void testBuffersAreReusedPerSizeClass() {
+        ByteBufferPool pool = ByteBufferPool.builder().bufferSizes(1024, 64 * 1024).build();
+
+        ByteBuffer first = pool.acquire(3000);
+        assertEquals(4096, first.capacity());
+        pool.release(first);
+        assertEquals(4096, pool.getRetainedBytes());
+
+        // 同一级的申请复用归还的缓冲区，其他级另行分配
+        assertSame(first, pool.acquire(4096));
+        assertEquals(8192, pool.acquire(5000).capacity());
+        assertEquals(1024, pool.acquire(1).capacity());
+        assertEquals(1, pool.getHits());
+        assertEquals(3, pool.getMisses());
+        assertEquals(0.25, pool.getHitRate(), 0.0001);
+
+        // 超过最大一级的申请不经过池
+        ByteBuffer oversized = pool.acquire(100_000);
+        assertEquals(100_000, oversized.capacity());
+        pool.release(oversized);
+        assertEquals(0, pool.getRetainedBytes());
+    }
+
+    @Test
+    public void testRetainedBytesAreBounded() {
+        ByteBufferPool pool = ByteBufferPool.builder().bufferSizes(1024, 1024).maxRetainedBytes(2048).direct(true).build();
+
+        ByteBuffer a = pool.acquire(1024);
+        ByteBuffer b = pool.acquire(1024);
+        ByteBuffer c = pool.acquire(1024);
+        assertTrue(a.isDirect());
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        assertEquals(2048, pool.getRetainedBytes());
+        // 堆内缓冲区不放入直接内存池
+        pool.release(ByteBuffer.allocate(1024));
+        assertEquals(2048, pool.getRetainedBytes());
+    }
+
+    @Test
+    public void testOutputStreamGrowsAndHandsOverContent() {
+        ByteBufferPool pool = ByteBufferPool.builder().bufferSizes(16, 1024).build();
+        PooledOutputStream out = new PooledOutputStream(pool, 16);
+        for (int i = 0; i < 100; i++) {
+            out.write(i);
+        }
+        out.write(new byte[]{1, 2, 3}, 1, 2);
+        // 扩容时原缓冲区归还到池中
+        assertEquals(16 + 32 + 64, pool.getRetainedBytes());
+
+        PooledBuffer result = out.toPooledBuffer();
+        assertEquals(102, result.size());
+        ByteBuffer view = result.buffer();
+        assertTrue(view.isReadOnly());
+        assertEquals(99, view.get(99));
+        assertEquals(3, view.get(101));
+
+        result.release();
+        result.release();
+        assertEquals(16 + 32 + 64 + 128, pool.getRetainedBytes());
+        try {
+            result.buffer();
+            fail("Released buffer must not be readable");
+        } catch (IllegalStateException expected) {
+            // released
+        }
+    }
+}
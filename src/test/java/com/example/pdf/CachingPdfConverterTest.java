@@ -0,0 +1,126 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.*;
+
+public class CachingPdfConverterTest {
+
+    private static final String HTML = "<html><body><p>Hello&nbsp;cache</p></body></html>";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSecondConversionIsServedFromCache() throws IOException {
+        CachingPdfConverter converter = CachingPdfConverter.builder()
+                .store(new MemoryPdfCacheStore(1024 * 1024))
+                .build();
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        assertFalse(converter.convert(HtmlToPdfConverter.getStringStream(HTML), first));
+        // 字符实体替换后相同的HTML共用同一条目
+        assertTrue(converter.convert(HtmlToPdfConverter.getStringStream(HTML.replace("&nbsp;", "&#160;")), second));
+
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+        assertEquals(1, converter.getHits());
+        assertEquals(1, converter.getMisses());
+        assertEquals(second.size(), converter.getBytesServed());
+        assertEquals(0.5, converter.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void testOptionsArePartOfTheKey() throws IOException {
+        MemoryPdfCacheStore store = new MemoryPdfCacheStore(1024 * 1024);
+        CachingPdfConverter a4 = CachingPdfConverter.builder().store(store).pageSize(PageSize.A4).build();
+        CachingPdfConverter a5 = CachingPdfConverter.builder().store(store).pageSize(PageSize.A5).build();
+
+        assertFalse(a4.convert(HtmlToPdfConverter.getStringStream(HTML), new ByteArrayOutputStream()));
+        assertFalse(a5.convert(HtmlToPdfConverter.getStringStream(HTML), new ByteArrayOutputStream()));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void testChangedStylesheetIsNotServedFromCache() throws IOException {
+        Path directory = temporaryFolder.newFolder("site").toPath();
+        Path css = directory.resolve("style.css");
+        Files.write(css, "p { color: red; }".getBytes(StandardCharsets.UTF_8));
+        String html = "<html><head><link rel=\"stylesheet\" href=\"style.css\"></head><body><p>styled</p></body></html>";
+        MemoryPdfCacheStore store = new MemoryPdfCacheStore(1024 * 1024);
+        CachingPdfConverter converter = CachingPdfConverter.builder()
+                .store(store)
+                .baseUri(directory.toString())
+                .build();
+        CachingPdfConverter ignoringResources = CachingPdfConverter.builder()
+                .store(store)
+                .baseUri(directory.toString())
+                .resourcesInKey(false)
+                .build();
+
+        assertFalse(converter.convert(HtmlToPdfConverter.getStringStream(html), new ByteArrayOutputStream()));
+        assertTrue(converter.convert(HtmlToPdfConverter.getStringStream(html), new ByteArrayOutputStream()));
+
+        Files.write(css, "p { color: blue; font-weight: bold; }".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(css, FileTime.fromMillis(Files.getLastModifiedTime(css).toMillis() + 10_000));
+        assertFalse("Changed stylesheet should miss", converter.convert(HtmlToPdfConverter.getStringStream(html), new ByteArrayOutputStream()));
+
+        // 关闭后只按HTML和选项区分
+        assertFalse(ignoringResources.convert(HtmlToPdfConverter.getStringStream(html), new ByteArrayOutputStream()));
+        Files.setLastModifiedTime(css, FileTime.fromMillis(1000));
+        assertTrue(ignoringResources.convert(HtmlToPdfConverter.getStringStream(html), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void testMemoryStoreEvictsLeastRecentlyUsed() throws IOException {
+        MemoryPdfCacheStore store = new MemoryPdfCacheStore(10);
+        store.put("a", new byte[4]);
+        store.put("b", new byte[4]);
+        assertEquals(4, store.writeTo("a", new ByteArrayOutputStream()));
+        store.put("c", new byte[4]);
+        store.put("too-large", new byte[11]);
+
+        assertEquals(-1, store.writeTo("b", new ByteArrayOutputStream()));
+        assertEquals(4, store.writeTo("a", new ByteArrayOutputStream()));
+        assertEquals(4, store.writeTo("c", new ByteArrayOutputStream()));
+        assertEquals(-1, store.writeTo("too-large", new ByteArrayOutputStream()));
+        assertEquals(8, store.getSizeBytes());
+    }
+
+    @Test
+    public void testDirectoryStoreSurvivesRestartAndEvicts() throws IOException {
+        Path directory = temporaryFolder.newFolder("cache").toPath();
+        DirectoryPdfCacheStore store = new DirectoryPdfCacheStore(directory, 10);
+        store.put("a", new byte[]{1, 2, 3, 4});
+        store.put("b", new byte[4]);
+        Files.setLastModifiedTime(directory.resolve("a.pdf"), FileTime.fromMillis(1000));
+        store.put("c", new byte[4]);
+
+        DirectoryPdfCacheStore reopened = new DirectoryPdfCacheStore(directory, 10);
+        assertEquals(8, reopened.getSizeBytes());
+        assertEquals("Oldest entry should be evicted", -1, reopened.writeTo("a", new ByteArrayOutputStream()));
+
+        // 输出到文件时在文件通道之间直接传输
+        File target = temporaryFolder.newFile("out.pdf");
+        try (FileOutputStream out = new FileOutputStream(target)) {
+            assertEquals(4, reopened.writeTo("b", out));
+        }
+        assertEquals(4, target.length());
+
+        reopened.clear();
+        assertEquals(0, reopened.getSizeBytes());
+        assertEquals(-1, reopened.writeTo("c", new ByteArrayOutputStream()));
+    }
+}
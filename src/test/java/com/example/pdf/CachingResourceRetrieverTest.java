@@ -0,0 +1,212 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.styledxmlparser.resolver.resource.DefaultResourceRetriever;
+import com.itextpdf.styledxmlparser.resolver.resource.IResourceRetriever;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class CachingResourceRetrieverTest {
+
+    private static final String HTML = "<html><head><link rel='stylesheet' href='style.css'></head>"
+            + "<body><p class='title'>Report</p><img src='logo.png'></body></html>";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testResourcesArePrefetchedOnceAcrossDocuments() throws IOException {
+        File baseDir = temporaryFolder.newFolder("site");
+        ImageIO.write(new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB), "png", new File(baseDir, "logo.png"));
+        Files.write(new File(baseDir, "style.css").toPath(), ".title { font-size: 20px; }".getBytes(StandardCharsets.UTF_8));
+
+        CountingRetriever source = new CountingRetriever(new DefaultResourceRetriever());
+        CachingResourceRetriever retriever = CachingResourceRetriever.builder().delegate(source).build();
+
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+            HtmlToPdfConverter.convertToPdf(HtmlToPdfConverter.getStringStream(HTML), null, baseDir.getAbsolutePath(),
+                    retriever, pdf, PageSize.A4, Collections.<PageDecoration>emptyList(), null);
+            assertTrue("Image should be embedded", PdfSizeReport.analyze(pdf.toByteArray()).getImageBytes() > 0);
+        }
+
+        assertEquals(2, source.fetches.size());
+        for (AtomicInteger count : source.fetches.values()) {
+            assertEquals(1, count.get());
+        }
+        // 来源只在排版前的预取线程中被访问
+        for (String thread : source.threads) {
+            assertTrue(thread, thread.startsWith("pdf-resource-prefetch-"));
+        }
+        assertEquals(2, retriever.getMisses());
+        assertTrue(retriever.getHits() >= 2);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedBytes() throws IOException {
+        CountingRetriever source = new CountingRetriever(new FixedSizeRetriever());
+        CachingResourceRetriever retriever = CachingResourceRetriever.builder()
+                .delegate(source).maxBytes(10).maxEntryBytes(6).build();
+        URL a = new URL("http://host/4/a");
+        URL b = new URL("http://host/4/b");
+        URL c = new URL("http://host/4/c");
+        URL large = new URL("http://host/7/large");
+
+        retriever.getByteArrayByUrl(a);
+        retriever.getByteArrayByUrl(b);
+        retriever.getByteArrayByUrl(a);
+        retriever.getByteArrayByUrl(c);
+        retriever.getByteArrayByUrl(large);
+        assertEquals(8, retriever.getSizeBytes());
+
+        retriever.getByteArrayByUrl(a);
+        retriever.getByteArrayByUrl(c);
+        retriever.getByteArrayByUrl(b);
+        retriever.getByteArrayByUrl(large);
+        assertEquals(1, source.fetches.get(a.toExternalForm()).get());
+        assertEquals(1, source.fetches.get(c.toExternalForm()).get());
+        assertEquals("Evicted entry is fetched again", 2, source.fetches.get(b.toExternalForm()).get());
+        assertEquals("Oversized entry is never cached", 2, source.fetches.get(large.toExternalForm()).get());
+
+        retriever.clear();
+        assertEquals(0, retriever.getSizeBytes());
+    }
+
+    @Test
+    public void testOversizedResourcesAreNotPrefetchedAgain() throws Exception {
+        CountingRetriever source = new CountingRetriever(new FixedSizeRetriever());
+        URL large = new URL("http://host/7/large");
+        try (CachingResourceRetriever retriever = CachingResourceRetriever.builder()
+                .delegate(source).maxEntryBytes(6).build()) {
+            retriever.prefetch(Collections.singletonList(large)).get();
+            retriever.prefetch(Collections.singletonList(large)).get();
+            assertEquals("Known oversized resource is not prefetched", 1, source.fetches.get(large.toExternalForm()).get());
+
+            assertEquals(7, retriever.getByteArrayByUrl(large).length);
+            assertEquals(2, source.fetches.get(large.toExternalForm()).get());
+            assertEquals(0, retriever.getSizeBytes());
+        }
+    }
+
+    @Test
+    public void testInterruptStopsWaitingForPrefetch() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IResourceRetriever blocking = new IResourceRetriever() {
+            @Override
+            public InputStream getInputStreamByUrl(URL url) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public byte[] getByteArrayByUrl(URL url) throws IOException {
+                fetching.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("unavailable");
+            }
+        };
+        File baseDir = temporaryFolder.newFolder("site");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try (CachingResourceRetriever retriever = CachingResourceRetriever.builder()
+                .delegate(blocking).prefetchTimeout(1, TimeUnit.HOURS).build()) {
+            Thread conversion = new Thread(() -> {
+                try {
+                    // 与转换服务的任务一样，中断表示取消
+                    HtmlToPdfConverter.stopOnInterrupt(() -> {
+                        HtmlToPdfConverter.convertToPdf(HtmlToPdfConverter.getStringStream(HTML), null, baseDir.getAbsolutePath(),
+                                retriever, new ByteArrayOutputStream(), PageSize.A4, Collections.<PageDecoration>emptyList(), null);
+                        return null;
+                    });
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            conversion.start();
+            assertTrue(fetching.await(10, TimeUnit.SECONDS));
+
+            conversion.interrupt();
+            conversion.join(10_000);
+            assertFalse("Conversion should stop while the prefetch is still blocked", conversion.isAlive());
+            assertTrue(String.valueOf(failure.get()), failure.get() instanceof CancellationException);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testClosedRetrieverStillReadsOnDemand() throws Exception {
+        CountingRetriever source = new CountingRetriever(new FixedSizeRetriever());
+        CachingResourceRetriever retriever = CachingResourceRetriever.builder().delegate(source).build();
+        URL a = new URL("http://host/4/a");
+        retriever.close();
+
+        retriever.prefetch(Collections.singletonList(a)).get(1, TimeUnit.SECONDS);
+        assertNull("Nothing is prefetched after close", source.fetches.get(a.toExternalForm()));
+        assertEquals(4, retriever.getByteArrayByUrl(a).length);
+        assertEquals(4, retriever.getSizeBytes());
+    }
+
+    private static final class CountingRetriever implements IResourceRetriever {
+        private final IResourceRetriever delegate;
+        private final Map<String, AtomicInteger> fetches = new ConcurrentHashMap<>();
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+
+        private CountingRetriever(IResourceRetriever delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public InputStream getInputStreamByUrl(URL url) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public byte[] getByteArrayByUrl(URL url) throws IOException {
+            fetches.computeIfAbsent(url.toExternalForm(), key -> new AtomicInteger()).incrementAndGet();
+            threads.add(Thread.currentThread().getName());
+            return delegate.getByteArrayByUrl(url);
+        }
+    }
+
+    /**
+     * 按路径第一段返回对应长度的内容，例如 /4/a 返回 4 字节
+     */
+    private static final class FixedSizeRetriever implements IResourceRetriever {
+        @Override
+        public InputStream getInputStreamByUrl(URL url) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public byte[] getByteArrayByUrl(URL url) {
+            return new byte[Integer.parseInt(url.getPath().split("/")[1])];
+        }
+    }
+}
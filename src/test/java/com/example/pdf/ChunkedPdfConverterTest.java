@@ -0,0 +1,123 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ChunkedPdfConverterTest {
+
+    private static final int SECTIONS = 6;
+
+    @Test
+    public void testSectionsAreMergedInOrderAndDecoratedAcrossDocument() throws IOException {
+        StringBuilder html = new StringBuilder("<html><head><style>section { page-break-before: always; }</style></head>"
+                + "<body><h1>Cover</h1>");
+        for (int i = 1; i <= SECTIONS; i++) {
+            html.append("<section><p>Customer ").append(i).append("</p></section>");
+        }
+        html.append("</body></html>");
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ChunkedPdfConverter converter = ChunkedPdfConverter.builder()
+                    .addPageFoot(true)
+                    .pool(pool)
+                    .build();
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+            assertEquals(SECTIONS + 1, converter.convert(HtmlToPdfConverter.getStringStream(html.toString()), pdf));
+
+            try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf.toByteArray())))) {
+                // 封面一页，每个 section 一页
+                assertEquals(SECTIONS + 1, pdfDoc.getNumberOfPages());
+                assertTrue(PdfTextExtractor.getTextFromPage(pdfDoc.getPage(1)).contains("Cover"));
+                for (int i = 2; i <= SECTIONS + 1; i++) {
+                    assertTrue(PdfTextExtractor.getTextFromPage(pdfDoc.getPage(i)).contains("Customer " + (i - 1)));
+                    // 每页在原内容前多一个装饰内容流
+                    assertEquals(2, pdfDoc.getPage(i).getContentStreamCount());
+                }
+                // 所有页面的页码共用同一个总页数占位对象
+                PdfDictionary firstXObjects = pdfDoc.getPage(1).getResources().getResource(PdfName.XObject);
+                PdfDictionary lastXObjects = pdfDoc.getPage(SECTIONS + 1).getResources().getResource(PdfName.XObject);
+                assertEquals(1, firstXObjects.size());
+                assertEquals(firstXObjects.getAsStream(new PdfName("Fm1")).getIndirectReference().getObjNumber(),
+                        lastXObjects.getAsStream(new PdfName("Fm1")).getIndirectReference().getObjNumber());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testDocumentWithoutBoundariesIsOneChunk() throws IOException {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        int chunks = ChunkedPdfConverter.builder().build()
+                .convert(HtmlToPdfConverter.getStringStream("<html><body><p>Plain</p></body></html>"), pdf);
+
+        assertEquals(1, chunks);
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf.toByteArray())))) {
+            assertEquals(1, pdfDoc.getNumberOfPages());
+        }
+    }
+
+    @Test
+    public void testChunkBuffersAreReturnedToPool() throws IOException {
+        ByteBufferPool pool = ByteBufferPool.builder().build();
+        ChunkedPdfConverter converter = ChunkedPdfConverter.builder().bufferPool(pool).build();
+        String html = "<html><body><section><p>A</p></section><section><p>B</p></section></body></html>";
+
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        assertEquals(2, converter.convert(HtmlToPdfConverter.getStringStream(html), pdf));
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf.toByteArray())))) {
+            assertEquals(2, pdfDoc.getNumberOfPages());
+            assertTrue(PdfTextExtractor.getTextFromPage(pdfDoc.getPage(2)).contains("B"));
+        }
+        // 合并后每块的缓冲区都已归还
+        assertTrue(pool.getRetainedBytes() > 0);
+        long misses = pool.getMisses();
+        converter.convert(HtmlToPdfConverter.getStringStream(html), new ByteArrayOutputStream());
+        assertTrue(pool.getHits() > 0);
+        assertTrue(pool.getMisses() <= misses + 1);
+    }
+
+    @Test
+    public void testChunkBuffersAreReturnedWhenMergeFails() throws IOException {
+        int bufferSize = 256 * 1024;
+        ByteBufferPool bufferPool = ByteBufferPool.builder().bufferSizes(bufferSize, bufferSize).build();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        PageDecoration failing = page -> {
+            throw new IllegalStateException("decoration failed");
+        };
+        ChunkedPdfConverter converter = ChunkedPdfConverter.builder()
+                .bufferPool(bufferPool).pool(pool).decorations(Collections.singletonList(failing)).build();
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 1; i <= SECTIONS; i++) {
+            html.append("<section><p>Section ").append(i).append("</p></section>");
+        }
+        html.append("</body></html>");
+
+        try {
+            converter.convert(HtmlToPdfConverter.getStringStream(html.toString()), new ByteArrayOutputStream());
+            fail("Decoration failure should fail the conversion");
+        } catch (IllegalStateException expected) {
+            assertEquals("decoration failed", expected.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(pool.awaitQuiescence(30, TimeUnit.SECONDS));
+
+        // 只有一级缓冲区，全部归还后池中保留的缓冲区数等于新分配的缓冲区数
+        assertEquals(bufferPool.getMisses() * bufferSize, bufferPool.getRetainedBytes());
+    }
+}
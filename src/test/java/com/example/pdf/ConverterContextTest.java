@@ -0,0 +1,82 @@
+package com.example.pdf;
+
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.itextpdf.layout.font.FontProvider;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ConverterContextTest {
+
+    private static final String HTML = "<html><body><p>a&lt;b</p></body></html>";
+
+    @Test
+    public void testPropertiesAreReusedWithinThreadOnly() throws InterruptedException {
+        ConverterContext context = ConverterContext.builder().build();
+        ConverterProperties first = context.getThreadProperties();
+        assertSame(first, context.getThreadProperties());
+
+        AtomicReference<ConverterProperties> other = new AtomicReference<>();
+        Thread thread = new Thread(() -> other.set(context.getThreadProperties()));
+        thread.start();
+        thread.join();
+        assertNotNull(other.get());
+        assertNotSame(first, other.get());
+    }
+
+    @Test
+    public void testThreadPropertiesDoNotKeepFinishedDocumentFonts() throws Exception {
+        ConverterContext context = ConverterContext.builder().build();
+        HtmlToPdfConverter.convert(context, HtmlToPdfConverter.getStringStream(HTML), new ByteArrayOutputStream());
+
+        // html2pdf 只在下一次转换开始时清空，这里检查转换结束后已不再引用文档的字体
+        FontProvider fontProvider = context.getThreadProperties().getFontProvider();
+        Field pdfFonts = FontProvider.class.getDeclaredField("pdfFonts");
+        pdfFonts.setAccessible(true);
+        assertTrue(((Map<?, ?>) pdfFonts.get(fontProvider)).isEmpty());
+    }
+
+    @Test
+    public void testEntityPolicy() throws IOException {
+        ConverterContext replacing = ConverterContext.builder().build();
+        ConverterContext parser = replacing.toBuilder().entityPolicy(ConverterContext.EntityPolicy.PARSER).build();
+
+        // 同一线程连续转换，复用同一份配置
+        assertEquals("a b", firstPageText(replacing));
+        assertEquals("a b", firstPageText(replacing));
+        assertEquals("a<b", firstPageText(parser));
+    }
+
+    @Test
+    public void testOffsetAndPageFoot() throws IOException {
+        ConverterContext context = ConverterContext.builder().offset(10, -5).addPageFoot(true).build();
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        HtmlToPdfConverter.convert(context, HtmlToPdfConverter.getStringStream(HTML), pdf);
+
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf.toByteArray())))) {
+            // 装饰内容流在前，页面内容在后
+            assertEquals(2, pdfDoc.getPage(1).getContentStreamCount());
+            String content = new String(pdfDoc.getPage(1).getContentStream(1).getBytes(), StandardCharsets.ISO_8859_1);
+            assertTrue(content, content.startsWith("1 0 0 1 10 -5 cm"));
+        }
+    }
+
+    private static String firstPageText(ConverterContext context) throws IOException {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        HtmlToPdfConverter.convert(context, HtmlToPdfConverter.getStringStream(HTML), pdf);
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf.toByteArray())))) {
+            return PdfTextExtractor.getTextFromPage(pdfDoc.getPage(1)).trim();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.pdf;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ConverterWarmUpTest {
+
+    @Test
+    public void testSampleIsOnClasspath() {
+        String sample = new String(ConverterWarmUp.sample(), StandardCharsets.UTF_8);
+
+        assertTrue(sample.contains("<table>"));
+        assertTrue(sample.contains("&nbsp;"));
+        assertTrue(sample.contains("page-break-before"));
+    }
+
+    @Test
+    public void testWarmUpConvertsSampleAndLoadsFonts() {
+        assertTrue(ConverterWarmUp.warmUp("src/fonts", 1) >= 0);
+        assertFalse(FontRegistry.getFontPrograms("src/fonts").isEmpty());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.pdf;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class EntityNormalizingInputStreamTest {
+
+    // The regex replaceAll previously used by HtmlToPdfConverter.readInputStream
+    private static final Pattern LEGACY_ENTITY_PATTERN = Pattern.compile("\\&[a-zA-Z]{1,10};", Pattern.CASE_INSENSITIVE);
+
+    @Test
+    public void testNamedEntitiesMatchLegacyReplacement() throws IOException {
+        String[] inputs = {
+                "a&nbsp;b",
+                "&amp;&lt;&gt;",
+                "AT&T and &&nbsp; and &;",
+                "&abcdefghij; &abcdefghijk;",
+                "中文&nbsp;内容&copy;结束",
+                "trailing &nbsp",
+                "&",
+        };
+        for (String input : inputs) {
+            assertEquals(input, LEGACY_ENTITY_PATTERN.matcher(input).replaceAll(" "), normalize(input));
+        }
+    }
+
+    @Test
+    public void testNumericEntities() throws IOException {
+        assertEquals("a b", normalize("a&#160;b"));
+        assertEquals("a b", normalize("a&#xA0;b"));
+        assertEquals("a b", normalize("a&#x00a0;b"));
+        assertEquals("&#60;p&#62;", normalize("&#60;p&#62;"));
+        assertEquals("&#x4E2D;&#169;", normalize("&#x4E2D;&#169;"));
+        assertEquals("&#; &#x; &#12a;", normalize("&#; &#x; &#12a;"));
+        assertEquals("&#&nbsp", normalize("&#&nbsp"));
+        assertEquals("&# ", normalize("&#&nbsp;"));
+    }
+
+    @Test
+    public void testSmallReadsAcrossBufferBoundaries() throws IOException {
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            html.append("<td>第").append(i).append("行&nbsp;&#160;&#169;</td>");
+        }
+        String expected = LEGACY_ENTITY_PATTERN.matcher(html).replaceAll(" ").replace("&#160;", " ");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new EntityNormalizingInputStream(new ByteArrayInputStream(html.toString().getBytes(StandardCharsets.UTF_8)))) {
+            byte[] buffer = new byte[7];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                out.write(buffer, 0, len);
+            }
+        }
+        assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static String normalize(String input) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new EntityNormalizingInputStream(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)))) {
+            int b;
+            while ((b = in.read()) != -1) {
+                out.write(b);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.pdf;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+
+import static org.junit.Assert.*;
+
+public class FontCoverageIndexTest {
+
+    private static final Path FONT_DIRECTORY = Paths.get("src/fonts");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testCoverageIsPersistedAndReusedByHash() throws IOException {
+        Path cacheDir = temporaryFolder.newFolder("font-index").toPath();
+
+        FontCoverageIndex first = FontCoverageIndex.build(FONT_DIRECTORY, cacheDir);
+        assertEquals(1, first.getEntries().size());
+        assertEquals(1, first.getParsedFonts());
+        FontCoverageIndex.Entry entry = first.getEntries().get(0);
+        assertTrue(Files.isRegularFile(cacheDir.resolve(entry.getSha256() + ".cov")));
+
+        FontCoverageIndex second = FontCoverageIndex.build(FONT_DIRECTORY, cacheDir);
+        assertEquals("Unchanged font should be read from the cache", 0, second.getParsedFonts());
+        assertEquals(entry.getCoveredCodePoints(), second.getEntries().get(0).getCoveredCodePoints());
+    }
+
+    @Test
+    public void testFontForCodePoint() throws IOException {
+        FontCoverageIndex index = FontCoverageIndex.build(FONT_DIRECTORY, temporaryFolder.newFolder().toPath());
+        FontCoverageIndex.Entry entry = index.getEntries().get(0);
+
+        assertTrue(entry.covers('A'));
+        assertTrue(entry.covers('中'));
+        assertEquals(entry.getFile(), index.fontFor('中'));
+        assertNull("Private use area is not covered", index.fontFor(0x10FFFD));
+        assertTrue(entry.toRange().contains('中'));
+        assertFalse(entry.toRange().contains(0x10FFFD));
+    }
+
+    @Test
+    public void testChangedFileIsReindexed() throws IOException {
+        Path fontDir = temporaryFolder.newFolder("fonts").toPath();
+        Path cacheDir = temporaryFolder.newFolder("cache").toPath();
+        Path font = fontDir.resolve("ht.ttf");
+        Files.copy(FONT_DIRECTORY.resolve("ht.ttf"), font);
+        String hash = FontCoverageIndex.build(fontDir, cacheDir).getEntries().get(0).getSha256();
+
+        // 内容改变 (此处为损坏的文件) 后哈希不同，不会误用旧的覆盖位图
+        Files.write(font, new byte[]{1, 2, 3});
+        FontCoverageIndex index = FontCoverageIndex.build(fontDir, cacheDir);
+        assertTrue("Unparseable font should be skipped", index.getEntries().isEmpty());
+        assertTrue(Files.isRegularFile(cacheDir.resolve(hash + ".cov")));
+    }
+
+    @Test
+    public void testCorruptCacheFileIsReindexed() throws IOException {
+        Path cacheDir = temporaryFolder.newFolder("font-index").toPath();
+        FontCoverageIndex.Entry entry = FontCoverageIndex.build(FONT_DIRECTORY, cacheDir).getEntries().get(0);
+        Path cacheFile = cacheDir.resolve(entry.getSha256() + ".cov");
+
+        // 个数远大于文件内容：不应按该个数分配数组
+        for (int count : new int[]{Integer.MAX_VALUE, -1}) {
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(cacheFile))) {
+                out.writeInt(0x46434958);
+                out.writeInt(1);
+                out.writeInt(count);
+                out.writeLong(-1L);
+            }
+            FontCoverageIndex index = FontCoverageIndex.build(FONT_DIRECTORY, cacheDir);
+            assertEquals("Corrupt cache file should be ignored", 1, index.getParsedFonts());
+            assertEquals(entry.getCoveredCodePoints(), index.getEntries().get(0).getCoveredCodePoints());
+        }
+    }
+
+    @Test
+    public void testNewCacheDirectoryIsOwnerOnly() throws IOException {
+        Path cacheDir = temporaryFolder.getRoot().toPath().resolve("cache").resolve("font-index");
+        Assume.assumeTrue(cacheDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+
+        FontCoverageIndex index = FontCoverageIndex.build(FONT_DIRECTORY, cacheDir);
+        assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(cacheDir));
+        assertTrue(Files.isRegularFile(cacheDir.resolve(index.getEntries().get(0).getSha256() + ".cov")));
+    }
+
+    @Test
+    public void testCacheDirectoryOfAnotherUserIsNotUsed() throws IOException {
+        Path cacheDir = temporaryFolder.newFolder("foreign").toPath();
+        Assume.assumeTrue(cacheDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        try {
+            UserPrincipal nobody = cacheDir.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName("nobody");
+            Assume.assumeFalse(nobody.equals(Files.getOwner(cacheDir)));
+            Files.setOwner(cacheDir, nobody);
+        } catch (IOException e) {
+            Assume.assumeNoException("Changing the owner needs privileges", e);
+        }
+
+        FontCoverageIndex first = FontCoverageIndex.build(FONT_DIRECTORY, cacheDir);
+        FontCoverageIndex second = FontCoverageIndex.build(FONT_DIRECTORY, cacheDir);
+        assertEquals(1, second.getParsedFonts());
+        assertFalse("Nothing is written into another user's directory",
+                Files.exists(cacheDir.resolve(first.getEntries().get(0).getSha256() + ".cov")));
+    }
+
+    @Test
+    public void testDefaultCacheDirIsPerUser() {
+        String configured = System.getProperty(FontCoverageIndex.CACHE_DIR_PROPERTY);
+        try {
+            System.clearProperty(FontCoverageIndex.CACHE_DIR_PROPERTY);
+            Path dir = FontCoverageIndex.defaultCacheDir();
+            assertEquals("html2pdf-font-index", dir.getFileName().toString());
+            assertFalse(dir.startsWith(Paths.get(System.getProperty("java.io.tmpdir"))));
+
+            System.setProperty(FontCoverageIndex.CACHE_DIR_PROPERTY, temporaryFolder.getRoot().getPath());
+            assertEquals(temporaryFolder.getRoot().toPath(), FontCoverageIndex.defaultCacheDir());
+        } finally {
+            if (configured != null) {
+                System.setProperty(FontCoverageIndex.CACHE_DIR_PROPERTY, configured);
+            } else {
+                System.clearProperty(FontCoverageIndex.CACHE_DIR_PROPERTY);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.pdf;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.layout.font.FontInfo;
+import com.itextpdf.layout.font.FontProvider;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FontRegistryTest {
+
+    private final String FONT_DIRECTORY = "src/fonts";
+
+    @After
+    public void tearDown() {
+        FontRegistry.invalidateAll();
+    }
+
+    @Test
+    public void testFontProgramsAreParsedOncePerDirectory() {
+        List<FontProgram> first = FontRegistry.getFontPrograms(FONT_DIRECTORY);
+        List<FontProgram> second = FontRegistry.getFontPrograms("./" + FONT_DIRECTORY);
+
+        assertFalse("Font directory should resolve to at least one font", first.isEmpty());
+        assertSame("Equivalent directory paths should share one cache entry", first, second);
+    }
+
+    @Test
+    public void testConcurrentFirstUsesShareOneLoad() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<FontProgram>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return FontRegistry.getFontPrograms(FONT_DIRECTORY);
+                }));
+            }
+            start.countDown();
+            List<FontProgram> first = results.get(0).get(30, TimeUnit.SECONDS);
+            for (Future<List<FontProgram>> result : results) {
+                assertSame("Concurrent callers should wait for the same load", first, result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEachConversionGetsItsOwnProviderOverSharedPrograms() {
+        FontProvider first = FontRegistry.newFontProvider(null);
+        FontProvider second = FontRegistry.newFontProvider(null);
+
+        assertNotSame(first, second);
+        assertNotSame(first.getFontSet(), second.getFontSet());
+        assertEquals(first.getFontSet().getFonts().iterator().next().getFontName(),
+                second.getFontSet().getFonts().iterator().next().getFontName());
+    }
+
+    @Test
+    public void testInvalidateReloadsDirectory() {
+        List<FontProgram> before = FontRegistry.getFontPrograms(FONT_DIRECTORY);
+        FontRegistry.invalidate(FONT_DIRECTORY);
+        List<FontProgram> after = FontRegistry.getFontPrograms(FONT_DIRECTORY);
+
+        assertNotSame("Invalidated directory should be loaded again", before, after);
+    }
+
+    @Test
+    public void testOtherFontsInDirectoryAreRegisteredAsFallbackWithCoverage() {
+        FontProvider provider = FontRegistry.newFontProvider(FONT_DIRECTORY);
+
+        FontInfo fallback = null;
+        for (FontInfo fontInfo : provider.getFontSet().getFonts()) {
+            if (fontInfo.getFontName() != null && fontInfo.getFontName().endsWith("ht.ttf")) {
+                fallback = fontInfo;
+            }
+        }
+        assertNotNull("ht.ttf should be registered as a fallback font", fallback);
+        assertTrue(fallback.getFontUnicodeRange().contains('中'));
+        assertFalse(fallback.getFontUnicodeRange().contains(0x10FFFD));
+
+        // 同一目录的每次转换共用一个后备字体程序
+        PdfFont first = provider.getPdfFont(fallback);
+        PdfFont second = FontRegistry.newFontProvider(FONT_DIRECTORY).getPdfFont(fallback);
+        assertNotSame(first, second);
+        assertSame(first.getFontProgram(), second.getFontProgram());
+    }
+
+    @Test
+    public void testCharacterMissingFromPrimaryFontUsesSupplementalFont() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HtmlToPdfConverter.convertToPdf(HtmlToPdfConverter.getStringStream("<html><body><p>Hello</p><p>\u00a3 100</p></body></html>"),
+                FONT_DIRECTORY, out, PageSize.A4, false);
+
+        Set<String> baseFonts = new HashSet<>();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray())))) {
+            PdfDictionary fonts = pdfDoc.getPage(1).getResources().getResource(PdfName.Font);
+            for (PdfName name : fonts.keySet()) {
+                baseFonts.add(fonts.getAsDictionary(name).getAsName(PdfName.BaseFont).getValue());
+            }
+        }
+        assertTrue(baseFonts.toString(), baseFonts.contains("STSongStd-Light-Identity-H"));
+        // STSongStd-Light 没有 £，由目录中的 ht.ttf (M+ 1c) 补充
+        boolean supplemental = false;
+        for (String baseFont : baseFonts) {
+            supplemental |= baseFont.endsWith("+mplus-1c-regular");
+        }
+        assertTrue(baseFonts.toString(), supplemental);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class HistogramConversionListenerTest {
+
+    private static final byte[] HTML = ("<html><body><p>First page</p>"
+            + "<p style='page-break-before: always'>Second page</p></body></html>").getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testRecordsStagesAndSizes() throws IOException {
+        HistogramConversionListener listener = new HistogramConversionListener(true);
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+
+        HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(HTML), null, pdf, PageSize.A4, false, listener);
+
+        assertEquals(1, listener.getTotalNanos().getCount());
+        assertEquals(HTML.length, listener.getInputBytes().getMax());
+        assertEquals(pdf.size(), listener.getOutputBytes().getMax());
+        assertTrue("Page count should be recorded", listener.getPageCount().getMax() >= 2);
+        assertEquals(1, listener.getStageNanos(ConversionStage.FONT_SETUP).getCount());
+        assertEquals(1, listener.getStageNanos(ConversionStage.HTML_LAYOUT).getCount());
+        assertEquals(1, listener.getStageNanos(ConversionStage.PDF_WRITE).getCount());
+    }
+
+    @Test
+    public void testPageFootIsWrittenInSinglePass() throws IOException {
+        HistogramConversionListener listener = new HistogramConversionListener();
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+
+        HtmlToPdfConverter.convertToPdf(new ByteArrayInputStream(HTML), null, pdf, PageSize.A4, true, listener);
+
+        assertEquals(1, listener.getStageNanos(ConversionStage.PDF_WRITE).getCount());
+        assertEquals(pdf.size(), listener.getOutputBytes().getMax());
+        assertEquals(0, listener.getAllocatedBytes().getCount());
+    }
+
+    @Test
+    public void testFailureIsReported() {
+        HistogramConversionListener listener = new HistogramConversionListener();
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("broken input");
+            }
+        };
+        try {
+            HtmlToPdfConverter.convertToPdf(failing, null, new ByteArrayOutputStream(), PageSize.A4, false, listener);
+            fail("Conversion should fail");
+        } catch (Exception expected) {
+            // reported below
+        }
+        assertEquals(1, listener.getFailureCount());
+        assertEquals(0, listener.getTotalNanos().getCount());
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        HistogramConversionListener.Histogram histogram = new HistogramConversionListener.Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+        assertEquals(63, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(99));
+    }
+}
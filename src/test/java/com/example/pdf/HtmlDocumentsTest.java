@@ -0,0 +1,88 @@
+package com.example.pdf;
+
+import com.itextpdf.styledxmlparser.jsoup.nodes.Document;
+import com.itextpdf.styledxmlparser.jsoup.nodes.Element;
+import com.itextpdf.styledxmlparser.jsoup.select.Elements;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HtmlDocumentsTest {
+
+    @Test
+    public void testSplitLargeTableRepeatsHeader() throws IOException {
+        StringBuilder html = new StringBuilder("<html><body><table id='report' class='grid'>"
+                + "<thead><tr><th>No.</th></tr></thead><tbody>");
+        for (int i = 1; i <= 25; i++) {
+            html.append("<tr><td>").append(i).append("</td></tr>");
+        }
+        html.append("</tbody><tfoot><tr><td>Total</td></tr></tfoot></table><p>After</p></body></html>");
+        Document document = HtmlDocuments.parse(HtmlToPdfConverter.getStringStream(html.toString()));
+
+        assertEquals(1, HtmlDocuments.splitLargeTables(document, 10));
+
+        Elements tables = document.select("table");
+        assertEquals(3, tables.size());
+        int expectedRow = 1;
+        for (int i = 0; i < tables.size(); i++) {
+            Element table = tables.get(i);
+            assertEquals("grid", table.className());
+            assertEquals("No.", table.select("thead th").text());
+            for (Element cell : table.select("tbody td")) {
+                assertEquals(String.valueOf(expectedRow++), cell.text());
+            }
+            assertEquals(i == tables.size() - 1, !table.select("tfoot").isEmpty());
+        }
+        assertEquals("Rows must keep their order", 26, expectedRow);
+        assertEquals("report", tables.get(0).id());
+        assertEquals("", tables.get(1).id());
+        assertEquals("p", tables.get(2).nextElementSibling().tagName());
+    }
+
+    @Test
+    public void testSmallTablesAreUntouched() throws IOException {
+        Document document = HtmlDocuments.parse(HtmlToPdfConverter.getStringStream(
+                "<html><body><table><tr><td>1</td></tr><tr><td>2</td></tr></table></body></html>"));
+
+        assertEquals(0, HtmlDocuments.splitLargeTables(document, 2));
+        assertEquals(1, document.select("table").size());
+    }
+
+    @Test
+    public void testResourceUrlsResolveAgainstBaseUri() throws IOException {
+        Document document = HtmlDocuments.parse(HtmlToPdfConverter.getStringStream("<html><head>"
+                + "<link rel='stylesheet' href='css/site.css'><link rel='icon' href='favicon.ico'></head><body>"
+                + "<img src='logo.png'><img src=' logo.png '><img src='data:image/png;base64,AAAA'>"
+                + "<img src='http://example.com/a.png'></body></html>"));
+
+        List<URL> urls = HtmlDocuments.resourceUrls(document, "http://host/docs/");
+
+        assertEquals(3, urls.size());
+        assertEquals("http://host/docs/logo.png", urls.get(0).toExternalForm());
+        assertEquals("http://example.com/a.png", urls.get(1).toExternalForm());
+        assertEquals("http://host/docs/css/site.css", urls.get(2).toExternalForm());
+    }
+
+    @Test
+    public void testSplitAtBoundariesKeepsHeadInEveryChunk() throws IOException {
+        Document document = HtmlDocuments.parse(HtmlToPdfConverter.getStringStream("<html lang='en'><head>"
+                + "<style>p { color: red; }</style></head><body class='report'><h1>Title</h1>"
+                + "<section>A</section><section>B</section><div><section>nested</section></div></body></html>"));
+
+        List<Document> chunks = HtmlDocuments.splitAtBoundaries(document, "section");
+
+        assertEquals(3, chunks.size());
+        assertEquals("Title", chunks.get(0).body().text());
+        assertEquals("A", chunks.get(1).body().text());
+        assertEquals("B nested", chunks.get(2).body().text());
+        for (Document chunk : chunks) {
+            assertEquals("en", chunk.select("html").attr("lang"));
+            assertEquals("report", chunk.body().className());
+            assertEquals(1, chunk.select("head style").size());
+        }
+    }
+}
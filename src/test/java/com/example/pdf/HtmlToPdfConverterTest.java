@@ -6,18 +6,31 @@ import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Div;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.Assume;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -212,6 +225,137 @@ public class HtmlToPdfConverterTest {
         System.out.println("PDF from API test CREATED AT: " + tempOutputPdfFileForApiTest.getAbsolutePath());
     }
 
+    @Test
+    public void testConvertWithPageFootLeavesNoPdfNextToHtml() throws IOException {
+        String html = "<html><body><p>Page foot test</p><p style='page-break-before: always'>Second page</p></body></html>";
+        File inputHtmlFile = File.createTempFile("test_input_page_foot_", ".html");
+        File siblingPdfFile = new File(inputHtmlFile.getParentFile(), inputHtmlFile.getName().replace(".html", ".pdf"));
+        File outputPdfFile = new File("test_outputs/test_page_foot_output.pdf");
+
+        try {
+            Files.write(inputHtmlFile.toPath(), html.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+
+            try (OutputStream outputStream = new FileOutputStream(outputPdfFile)) {
+                HtmlToPdfConverter.convertToPdf(inputHtmlFile, null, outputStream, PageSize.A4, true);
+            }
+
+            assertTrue("PDF file with page foot should not be empty", outputPdfFile.length() > 0);
+            assertFalse("No intermediate PDF should be left next to the HTML", siblingPdfFile.exists());
+            try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(outputPdfFile))) {
+                assertTrue("PDF with page foot should have pages", pdfDoc.getNumberOfPages() > 0);
+            }
+        } finally {
+            inputHtmlFile.delete();
+        }
+    }
+
+    @Test
+    public void testNioInputsAndChannelOutput() throws IOException {
+        // 注释使文件超过内存映射阈值，但不增加排版工作量
+        StringBuilder padding = new StringBuilder("<!--");
+        while (padding.length() < HtmlToPdfConverter.MEMORY_MAP_THRESHOLD_BYTES) {
+            padding.append("padding ");
+        }
+        padding.append("-->");
+        String html = "<html><body>" + padding + "<p>Channel&nbsp;test</p></body></html>";
+        File inputHtmlFile = File.createTempFile("test_input_nio_", ".html");
+        try {
+            Files.write(inputHtmlFile.toPath(), html.getBytes(StandardCharsets.UTF_8));
+            try (InputStream mapped = HtmlToPdfConverter.openHtml(inputHtmlFile.toPath())) {
+                assertTrue("Large files should be memory mapped", mapped instanceof ByteBufferInputStream);
+            }
+
+            ByteArrayOutputStream fromPath = new ByteArrayOutputStream();
+            HtmlToPdfConverter.convertToPdf(inputHtmlFile.toPath(), null, fromPath, PageSize.A4, false);
+            ByteArrayOutputStream fromText = new ByteArrayOutputStream();
+            HtmlToPdfConverter.convertToPdf((CharSequence) new StringBuilder(html), null, fromText, PageSize.A4, false);
+            ByteBuffer direct = ByteBuffer.allocateDirect(html.length());
+            direct.put(html.getBytes(StandardCharsets.UTF_8)).flip();
+            ByteArrayOutputStream fromBuffer = new ByteArrayOutputStream();
+            HtmlToPdfConverter.convertToPdf(direct, null, fromBuffer, PageSize.A4, false);
+            assertEquals("Buffer position must not change", 0, direct.position());
+            File outputPdfFile = new File("test_outputs/test_channel_output.pdf");
+            try (FileChannel in = FileChannel.open(inputHtmlFile.toPath());
+                 FileChannel out = new FileOutputStream(outputPdfFile).getChannel()) {
+                HtmlToPdfConverter.convertToPdf(Channels.newInputStream(in), null, out, PageSize.A4, false);
+            }
+
+            for (byte[] pdf : new byte[][]{fromPath.toByteArray(), fromText.toByteArray(), fromBuffer.toByteArray(),
+                    Files.readAllBytes(outputPdfFile.toPath())}) {
+                try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+                    assertEquals(1, pdfDoc.getNumberOfPages());
+                    assertTrue(PdfTextExtractor.getTextFromPage(pdfDoc.getPage(1))
+                            .contains("Channel test"));
+                }
+            }
+        } finally {
+            inputHtmlFile.delete();
+        }
+    }
+
+    @Test
+    public void testNonBlockingChannelIsRejectedBeforeConversion() throws IOException {
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.sink().configureBlocking(false);
+            HtmlToPdfConverter.convertToPdf(HtmlToPdfConverter.getStringStream("<p>x</p>"), null, pipe.sink(), PageSize.A4, false);
+            fail("Non-blocking channel should be rejected");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("blocking mode"));
+            pipe.source().configureBlocking(false);
+            assertEquals("Nothing should be written", 0, pipe.source().read(ByteBuffer.allocate(16)));
+        } finally {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+    }
+
+    @Test
+    public void testInterruptStopsServiceJobBeforeNextPage() throws Exception {
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 1; i <= 50; i++) {
+            html.append("<p style='page-break-after: always'>Page ").append(i).append("</p>");
+        }
+        html.append("</body></html>");
+        AtomicInteger decoratedPages = new AtomicInteger();
+        PageDecoration interruptOnThirdPage = page -> {
+            decoratedPages.incrementAndGet();
+            if (page.getPageNumber() == 3) {
+                // 模拟任务被取消
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try {
+            // 转换服务的任务中，中断表示取消
+            HtmlToPdfConverter.stopOnInterrupt(() -> {
+                HtmlToPdfConverter.convertToPdf(HtmlToPdfConverter.getStringStream(html.toString()), null, new ByteArrayOutputStream(),
+                        PageSize.A4, Collections.singletonList(interruptOnThirdPage), null);
+                return null;
+            });
+            fail("Conversion should stop once the thread is interrupted");
+        } catch (CancellationException expected) {
+            assertTrue("Layout should stop at the next page, decorated " + decoratedPages.get(), decoratedPages.get() <= 4);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testDirectCallIgnoresCallersInterruptFlag() throws IOException {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        Thread.currentThread().interrupt();
+        try {
+            HtmlToPdfConverter.convertToPdf(HtmlToPdfConverter.getStringStream("<html><body><p>Still converted</p></body></html>"),
+                    null, pdf, PageSize.A4, false);
+        } finally {
+            assertTrue("Interrupt flag of the caller is kept", Thread.interrupted());
+        }
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf.toByteArray())))) {
+            assertTrue(PdfTextExtractor.getTextFromPage(pdfDoc.getPage(1)).contains("Still converted"));
+        }
+    }
+
     @After
     public void tearDown() {
         // This method can be used to clean up files if the tests are set to delete them.
@@ -0,0 +1,105 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LanedConversionServiceTest {
+
+    private static final byte[] RECEIPT = "<html><body><p>Receipt</p><img src='logo.png'/></body></html>".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testEstimateCountsElementsRowsAndImages() {
+        ConversionCost cost = ConversionCost.estimate(RECEIPT);
+
+        assertEquals(RECEIPT.length, cost.getInputBytes());
+        assertEquals(4, cost.getElements());
+        assertEquals(0, cost.getTableRows());
+        assertEquals(1, cost.getImages());
+
+        ConversionCost table = ConversionCost.estimate(table(3));
+        assertEquals(3, table.getTableRows());
+        // <thead>、<tbody> 等不算作行
+        assertEquals(0, ConversionCost.estimate("<thead><tbody><track>".getBytes(StandardCharsets.UTF_8)).getTableRows());
+    }
+
+    @Test
+    public void testJobsAreRoutedByCostAndMeasuredPerLane() throws Exception {
+        try (LanedConversionService service = LanedConversionService.builder()
+                .largeJobThreshold(Long.MAX_VALUE, 50)
+                .build()) {
+            assertEquals(LanedConversionService.Lane.SMALL, service.laneFor(ConversionCost.estimate(RECEIPT)));
+            assertEquals(LanedConversionService.Lane.LARGE, service.laneFor(ConversionCost.estimate(table(100))));
+
+            CompletableFuture<byte[]> large = service.submit(table(100));
+            List<CompletableFuture<byte[]>> small = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                small.add(service.submit(RECEIPT));
+            }
+            assertValidPdf(large.get(60, TimeUnit.SECONDS));
+            for (CompletableFuture<byte[]> receipt : small) {
+                assertValidPdf(receipt.get(60, TimeUnit.SECONDS));
+            }
+
+            assertEquals(4, service.getLaneStats(LanedConversionService.Lane.SMALL).getServiceNanos().getCount());
+            assertEquals(4, service.getLaneStats(LanedConversionService.Lane.SMALL).getQueueWaitNanos().getCount());
+            assertEquals(1, service.getLaneStats(LanedConversionService.Lane.LARGE).getServiceNanos().getCount());
+            assertEquals(0, service.getReservedMemoryBytes());
+        }
+    }
+
+    @Test
+    public void testJobsOverBudgetAreDeferredUntilMemoryIsReleased() throws Exception {
+        // 预算小于任何一个任务：任务只能逐个执行，但都能完成
+        try (LanedConversionService service = LanedConversionService.builder()
+                .smallLane(4, 16)
+                .memoryBudget(1)
+                .build()) {
+            List<CompletableFuture<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(service.submit(RECEIPT));
+            }
+            for (CompletableFuture<byte[]> result : results) {
+                assertValidPdf(result.get(60, TimeUnit.SECONDS));
+            }
+            assertEquals(0, service.getReservedMemoryBytes());
+        }
+    }
+
+    @Test
+    public void testBudgetAdmitsOversizedJobOnlyWhenEmpty() throws Exception {
+        LanedConversionService.MemoryBudget budget = new LanedConversionService.MemoryBudget(100);
+
+        assertTrue(budget.tryReserve(60));
+        assertFalse(budget.tryReserve(60));
+        assertTrue(budget.tryReserve(40));
+        budget.release(100);
+        assertTrue("An oversized job must still run when nothing else is reserved", budget.tryReserve(500));
+        assertFalse(budget.tryReserve(1));
+        budget.release(500);
+        assertEquals(0, budget.getReserved());
+    }
+
+    private static byte[] table(int rows) {
+        StringBuilder html = new StringBuilder("<html><body><table>");
+        for (int i = 0; i < rows; i++) {
+            html.append("<tr><td>Row ").append(i).append("</td></tr>");
+        }
+        return html.append("</table></body></html>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void assertValidPdf(byte[] pdf) throws Exception {
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            assertTrue(pdfDoc.getNumberOfPages() > 0);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * 大文档模式在固定堆大小下生成一万页以上的PDF
+ * <p>
+ * 耗时较长，默认不运行：{@code mvn test -P large-documents}，堆大小由该 profile 固定为 256 MB。
+ */
+public class LargeDocumentTest {
+
+    private static final int SECTIONS = 10_000;
+    private static final int REPORT_ROWS = 20_000;
+
+    private File htmlFile;
+    private File pdfFile;
+
+    @Before
+    public void setUp() throws IOException {
+        htmlFile = File.createTempFile("large-document-", ".html");
+        pdfFile = File.createTempFile("large-document-", ".pdf");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(htmlFile), StandardCharsets.UTF_8))) {
+            writer.write("<html><head><style>table { width: 100%; border-collapse: collapse; table-layout: fixed; }"
+                    + " td, th { border: 1px solid #999; }</style></head><body>\n");
+            for (int i = 1; i <= SECTIONS; i++) {
+                writer.write("<div style='page-break-after: always'><h2>Section " + i + "</h2>"
+                        + "<table><tr><td>Item&nbsp;" + i + "</td><td>12.50</td></tr></table></div>\n");
+            }
+            // 单个超大表格：不拆分时其排版状态会随行数增长
+            writer.write("<table><thead><tr><th>No.</th><th>Item</th><th>Amount</th></tr></thead><tbody>\n");
+            for (int i = 1; i <= REPORT_ROWS; i++) {
+                writer.write("<tr><td>" + i + "</td><td>Report row " + i + "</td><td>" + (i % 97) + ".00</td></tr>\n");
+            }
+            writer.write("</tbody></table></body></html>\n");
+        }
+    }
+
+    @After
+    public void tearDown() {
+        htmlFile.delete();
+        pdfFile.delete();
+    }
+
+    @Test
+    public void testTenThousandPagesUnderFixedHeap() throws IOException {
+        HistogramConversionListener listener = new HistogramConversionListener();
+        try (OutputStream pdfStream = new BufferedOutputStream(new FileOutputStream(pdfFile))) {
+            HtmlToPdfConverter.convertLargeDocumentToPdf(new FileInputStream(htmlFile), null, pdfStream, PageSize.A4, true, listener);
+        }
+
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(pdfFile))) {
+            int pages = pdfDoc.getNumberOfPages();
+            assertTrue("Expected at least " + SECTIONS + " pages, got " + pages, pages > SECTIONS);
+            assertEquals(pages, listener.getPageCount().getMax());
+            assertTrue(PdfTextExtractor.getTextFromPage(pdfDoc.getPage(SECTIONS)).contains("Section " + SECTIONS));
+            assertTrue(PdfTextExtractor.getTextFromPage(pdfDoc.getPage(pages)).contains("Report row " + REPORT_ROWS));
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.events.IEventHandler;
+import com.itextpdf.kernel.events.PdfDocumentEvent;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfIndirectReference;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PageEventHandlerTest {
+
+    private static final int PAGE_COUNT = 5;
+
+    @Test
+    public void testHandlersShareOneFontPerDocument() throws IOException {
+        ByteArrayOutputStream pdfBytes = new ByteArrayOutputStream();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfWriter(pdfBytes))) {
+            pdfDoc.addEventHandler(PdfDocumentEvent.END_PAGE, new PageHeaderEventHandler("页眉"));
+            pdfDoc.addEventHandler(PdfDocumentEvent.END_PAGE, new PageEnderEventHandler("页脚"));
+            pdfDoc.addEventHandler(PdfDocumentEvent.END_PAGE, new WaterMarkEventHandler("水印", 2, 2));
+            for (int i = 0; i < PAGE_COUNT; i++) {
+                pdfDoc.addNewPage();
+            }
+        }
+
+        Set<PdfIndirectReference> fontRefs = new HashSet<>();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdfBytes.toByteArray())))) {
+            assertEquals(PAGE_COUNT, pdfDoc.getNumberOfPages());
+            for (int i = 1; i <= PAGE_COUNT; i++) {
+                PdfDictionary fonts = pdfDoc.getPage(i).getResources().getResource(PdfName.Font);
+                assertNotNull("Every page should reference the decoration font", fonts);
+                for (PdfName name : fonts.keySet()) {
+                    fontRefs.add(fonts.get(name, false).getIndirectReference());
+                }
+            }
+        }
+        assertEquals("All handlers and pages should share one font dictionary", 1, fontRefs.size());
+    }
+
+    @Test
+    public void testSharedHandlersUseEachDocumentsOwnFont() throws Exception {
+        List<IEventHandler> handlers = Arrays.<IEventHandler>asList(new PageHeaderEventHandler("页眉"),
+                new PageEnderEventHandler("页脚"), new WaterMarkEventHandler("水印", 2, 2));
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int n = 0; n < 2; n++) {
+                results.add(executor.submit(() -> {
+                    ByteArrayOutputStream pdfBytes = new ByteArrayOutputStream();
+                    try (PdfDocument pdfDoc = new PdfDocument(new PdfWriter(pdfBytes))) {
+                        for (IEventHandler handler : handlers) {
+                            pdfDoc.addEventHandler(PdfDocumentEvent.END_PAGE, handler);
+                        }
+                        for (int i = 1; i <= PAGE_COUNT; i++) {
+                            pdfDoc.addNewPage();
+                            barrier.await(10, TimeUnit.SECONDS);
+                            pdfDoc.getPage(i).flush();
+                        }
+                    }
+                    return pdfBytes.toByteArray();
+                }));
+            }
+            // 字体若来自另一个文档，写出时 iText 会抛出异常
+            for (Future<byte[]> result : results) {
+                Set<PdfIndirectReference> fontRefs = new HashSet<>();
+                try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(result.get(30, TimeUnit.SECONDS))))) {
+                    for (int i = 1; i <= PAGE_COUNT; i++) {
+                        PdfDictionary fonts = pdfDoc.getPage(i).getResources().getResource(PdfName.Font);
+                        for (PdfName name : fonts.keySet()) {
+                            fontRefs.add(fonts.get(name, false).getIndirectReference());
+                        }
+                    }
+                }
+                assertEquals("Each document should get one decoration font of its own", 1, fontRefs.size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFormXObjectWaterMarkIsSharedByAllPages() throws IOException {
+        byte[] inline = writeWaterMarkedPdf(new WaterMarkEventHandler("水印", 5, 5));
+        byte[] stamped = writeWaterMarkedPdf(new WaterMarkEventHandler("水印", 5, 5).setUseFormXObject(true));
+
+        Set<PdfIndirectReference> xObjectRefs = new HashSet<>();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(stamped)))) {
+            for (int i = 1; i <= PAGE_COUNT; i++) {
+                PdfDictionary xObjects = pdfDoc.getPage(i).getResources().getResource(PdfName.XObject);
+                assertNotNull("Every page should reference the watermark XObject", xObjects);
+                for (PdfName name : xObjects.keySet()) {
+                    xObjectRefs.add(xObjects.get(name, false).getIndirectReference());
+                }
+            }
+        }
+        assertEquals("All pages should share one watermark XObject", 1, xObjectRefs.size());
+        assertTrue("Stamped watermark should be smaller than per-page layout", stamped.length < inline.length);
+    }
+
+    @Test
+    public void testPageNumbersShareOneTotalPlaceholder() throws IOException {
+        ByteArrayOutputStream pdfBytes = new ByteArrayOutputStream();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfWriter(pdfBytes))) {
+            PageNumberEventHandler pageNumbers = new PageNumberEventHandler();
+            pdfDoc.addEventHandler(PdfDocumentEvent.END_PAGE, pageNumbers);
+            for (int i = 0; i < PAGE_COUNT; i++) {
+                pdfDoc.addNewPage();
+                // 排版过程中提前写出的页面同样获得正确的页码
+                if (i == 1) {
+                    pdfDoc.getPage(1).flush();
+                }
+            }
+            pageNumbers.writeTotalPages(pdfDoc);
+        }
+
+        // 装饰字体为不带 ToUnicode 的 CJK 字体，这里检查结构而不是提取文本
+        Set<PdfIndirectReference> xObjectRefs = new HashSet<>();
+        Set<String> pageTexts = new HashSet<>();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdfBytes.toByteArray())))) {
+            for (int i = 1; i <= PAGE_COUNT; i++) {
+                PdfDictionary xObjects = pdfDoc.getPage(i).getResources().getResource(PdfName.XObject);
+                assertNotNull("Every page should reference the total-pages placeholder", xObjects);
+                for (PdfName name : xObjects.keySet()) {
+                    PdfStream placeholder = xObjects.getAsStream(name);
+                    assertTrue("Total pages should be written into the placeholder", placeholder.getBytes().length > 0);
+                    assertTrue(placeholder.getAsArray(PdfName.BBox).toRectangle().getWidth() > 1);
+                    xObjectRefs.add(xObjects.get(name, false).getIndirectReference());
+                }
+                pageTexts.add(new String(pdfDoc.getPage(i).getContentBytes(), StandardCharsets.ISO_8859_1));
+            }
+        }
+        assertEquals("All pages should share one total-pages placeholder", 1, xObjectRefs.size());
+        assertEquals("Every page should get its own page number", PAGE_COUNT, pageTexts.size());
+    }
+
+    @Test
+    public void testDecoratorWritesOneContentStreamPerPage() throws IOException {
+        ByteArrayOutputStream pdfBytes = new ByteArrayOutputStream();
+        PageDecorator decorator = new PageDecorator(new WaterMarkEventHandler("水印", 2, 2).setUseFormXObject(true),
+                new PageHeaderEventHandler("页眉"), new PageEnderEventHandler("页脚"), new PageNumberEventHandler());
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfWriter(pdfBytes))) {
+            pdfDoc.addEventHandler(PdfDocumentEvent.END_PAGE, decorator);
+            for (int i = 0; i < PAGE_COUNT; i++) {
+                pdfDoc.addNewPage();
+            }
+            decorator.finishDocument(pdfDoc);
+        }
+
+        Set<PdfIndirectReference> fontRefs = new HashSet<>();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdfBytes.toByteArray())))) {
+            for (int i = 1; i <= PAGE_COUNT; i++) {
+                // 一个装饰内容流加上页面原有的内容流
+                assertEquals(2, pdfDoc.getPage(i).getContentStreamCount());
+                PdfDictionary fonts = pdfDoc.getPage(i).getResources().getResource(PdfName.Font);
+                for (PdfName name : fonts.keySet()) {
+                    fontRefs.add(fonts.get(name, false).getIndirectReference());
+                }
+                assertEquals("Watermark and total-pages XObjects", 2, pdfDoc.getPage(i).getResources().getResource(PdfName.XObject).size());
+            }
+        }
+        assertEquals("All decorations should share one font dictionary", 1, fontRefs.size());
+    }
+
+    @Test
+    public void testConvertToPdfWithDecorations() throws IOException {
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 0; i < 3; i++) {
+            html.append("<p style='page-break-after: always'>Section ").append(i + 1).append("</p>");
+        }
+        html.append("</body></html>");
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        HtmlToPdfConverter.convertToPdf(HtmlToPdfConverter.getStringStream(html.toString()), null, plain, null,
+                Collections.<PageDecoration>emptyList(), null);
+        ByteArrayOutputStream decorated = new ByteArrayOutputStream();
+        HtmlToPdfConverter.convertToPdf(HtmlToPdfConverter.getStringStream(html.toString()), null, decorated, null,
+                Arrays.asList(new WaterMarkEventHandler("水印"), new PageHeaderEventHandler("页眉"), new PageNumberEventHandler()), null);
+
+        try (PdfDocument plainDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(plain.toByteArray())));
+             PdfDocument decoratedDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(decorated.toByteArray())))) {
+            assertEquals(plainDoc.getNumberOfPages(), decoratedDoc.getNumberOfPages());
+            for (int i = 1; i <= decoratedDoc.getNumberOfPages(); i++) {
+                assertEquals("Decorations should add exactly one content stream",
+                        plainDoc.getPage(i).getContentStreamCount() + 1, decoratedDoc.getPage(i).getContentStreamCount());
+            }
+        }
+    }
+
+    @Test
+    public void testOneHandlerInstanceOnConcurrentDocuments() throws Exception {
+        PageNumberEventHandler pageNumbers = new PageNumberEventHandler();
+        WaterMarkEventHandler waterMark = new WaterMarkEventHandler("水印", 2, 2).setUseFormXObject(true);
+        byte[] expected = writeNumberedPdf(pageNumbers, waterMark, null);
+
+        // 两个文档在两个线程中交替写出页面
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<byte[]> first = executor.submit(() -> writeNumberedPdf(pageNumbers, waterMark, barrier));
+            Future<byte[]> second = executor.submit(() -> writeNumberedPdf(pageNumbers, waterMark, barrier));
+            assertSamePages(expected, first.get(30, TimeUnit.SECONDS));
+            assertSamePages(expected, second.get(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] writeNumberedPdf(PageNumberEventHandler pageNumbers, WaterMarkEventHandler waterMark,
+                                           CyclicBarrier barrier) throws Exception {
+        ByteArrayOutputStream pdfBytes = new ByteArrayOutputStream();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfWriter(pdfBytes))) {
+            pdfDoc.addEventHandler(PdfDocumentEvent.END_PAGE, waterMark);
+            pdfDoc.addEventHandler(PdfDocumentEvent.END_PAGE, pageNumbers);
+            for (int i = 1; i <= PAGE_COUNT; i++) {
+                pdfDoc.addNewPage();
+                if (barrier != null) {
+                    barrier.await(10, TimeUnit.SECONDS);
+                }
+                pdfDoc.getPage(i).flush();
+            }
+            pageNumbers.writeTotalPages(pdfDoc);
+        }
+        return pdfBytes.toByteArray();
+    }
+
+    private static void assertSamePages(byte[] expected, byte[] actual) throws IOException {
+        try (PdfDocument expectedDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(expected)));
+             PdfDocument actualDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(actual)))) {
+            assertEquals(expectedDoc.getNumberOfPages(), actualDoc.getNumberOfPages());
+            for (int i = 1; i <= expectedDoc.getNumberOfPages(); i++) {
+                assertArrayEquals("Page " + i + " should be numbered as in a document of its own",
+                        expectedDoc.getPage(i).getContentBytes(), actualDoc.getPage(i).getContentBytes());
+            }
+        }
+    }
+
+    private static byte[] writeWaterMarkedPdf(WaterMarkEventHandler handler) {
+        ByteArrayOutputStream pdfBytes = new ByteArrayOutputStream();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfWriter(pdfBytes))) {
+            pdfDoc.addEventHandler(PdfDocumentEvent.END_PAGE, handler);
+            for (int i = 0; i < PAGE_COUNT; i++) {
+                pdfDoc.addNewPage();
+            }
+        }
+        return pdfBytes.toByteArray();
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PdfConversionServiceTest {
+
+    private static final byte[] HTML = "<html><body><p>Concurrent conversion test</p></body></html>".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testConcurrentJobsProduceValidPdfs() throws Exception {
+        try (PdfConversionService service = PdfConversionService.builder().threads(4).queueCapacity(16).build()) {
+            List<CompletableFuture<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(service.submit(HTML));
+            }
+            for (CompletableFuture<byte[]> result : results) {
+                try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(result.get(60, TimeUnit.SECONDS))))) {
+                    assertTrue(pdfDoc.getNumberOfPages() > 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPooledResultsReuseBuffers() throws Exception {
+        ByteBufferPool pool = ByteBufferPool.builder().build();
+        try (PdfConversionService service = PdfConversionService.builder().threads(1).bufferPool(pool).build()) {
+            for (int i = 0; i < 3; i++) {
+                try (PooledBuffer pdf = service.submitPooled(HTML).get(60, TimeUnit.SECONDS)) {
+                    ByteArrayOutputStream copy = new ByteArrayOutputStream();
+                    pdf.writeTo(copy);
+                    try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(copy.toByteArray())))) {
+                        assertEquals(1, pdfDoc.getNumberOfPages());
+                    }
+                }
+            }
+            assertNotNull(service.submit(HTML).get(60, TimeUnit.SECONDS));
+        }
+        // 第一次转换分配缓冲区，之后的转换复用归还的缓冲区
+        assertEquals(1, pool.getMisses());
+        assertEquals(3, pool.getHits());
+    }
+
+    @Test
+    public void testRejectsJobsWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (PdfConversionService service = PdfConversionService.builder().threads(1).queueCapacity(0).build()) {
+            CompletableFuture<byte[]> blocked = service.submit(new BlockingInputStream(release));
+            try {
+                service.submit(HTML);
+                fail("Second job should be rejected while the only slot is busy");
+            } catch (RejectedExecutionException expected) {
+                // backpressure
+            } finally {
+                release.countDown();
+            }
+            assertNotNull(blocked.get(60, TimeUnit.SECONDS));
+            assertNotNull("Slot should be free again once the job has finished", service.submit(HTML).get(60, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testJobTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (PdfConversionService service = PdfConversionService.builder().threads(1).jobTimeout(100, TimeUnit.MILLISECONDS).build()) {
+            CompletableFuture<byte[]> result = service.submit(new BlockingInputStream(release));
+            try {
+                result.get(60, TimeUnit.SECONDS);
+                fail("Job should time out");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof TimeoutException);
+            } finally {
+                release.countDown();
+            }
+        }
+    }
+
+    @Test
+    public void testPerJobDeadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (PdfConversionService service = PdfConversionService.builder().threads(1).build()) {
+            CompletableFuture<byte[]> result = service.submit(new BlockingInputStream(release));
+            CompletableFuture<byte[]> withDeadline = service.submit(HTML, 100, TimeUnit.MILLISECONDS);
+            try {
+                withDeadline.get(60, TimeUnit.SECONDS);
+                fail("Job should miss its deadline while queued");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof TimeoutException);
+            } finally {
+                release.countDown();
+            }
+            // 没有期限的任务不受影响
+            assertNotNull(result.get(60, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testInputOfJobCancelledWhileQueuedIsClosed() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        try (PdfConversionService service = PdfConversionService.builder().threads(1).queueCapacity(1).build()) {
+            CompletableFuture<byte[]> running = service.submit(new BlockingInputStream(release));
+            CompletableFuture<byte[]> queued = service.submit(new ByteArrayInputStream(HTML) {
+                @Override
+                public void close() {
+                    closed.countDown();
+                }
+            });
+            assertTrue(queued.cancel(true));
+            release.countDown();
+            assertNotNull(running.get(60, TimeUnit.SECONDS));
+            assertTrue("Input of a job that never ran should still be closed", closed.await(60, TimeUnit.SECONDS));
+
+            // 两个名额都已归还
+            CountDownLatch releaseAgain = new CountDownLatch(1);
+            CompletableFuture<byte[]> first = service.submit(new BlockingInputStream(releaseAgain));
+            CompletableFuture<byte[]> second = service.submit(HTML);
+            releaseAgain.countDown();
+            assertNotNull(first.get(60, TimeUnit.SECONDS));
+            assertNotNull(second.get(60, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testStreamDeliversPdfInChunks() throws Exception {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        List<Integer> chunkSizes = new ArrayList<>();
+        try (PdfConversionService service = PdfConversionService.builder().threads(1).build()) {
+            service.stream(new ByteArrayInputStream(HTML), chunk -> {
+                assertTrue(chunk.isReadOnly());
+                chunkSizes.add(chunk.remaining());
+                byte[] bytes = new byte[chunk.remaining()];
+                chunk.get(bytes);
+                pdf.write(bytes, 0, bytes.length);
+            }).get(60, TimeUnit.SECONDS);
+        }
+
+        assertFalse(chunkSizes.isEmpty());
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf.toByteArray())))) {
+            assertEquals(1, pdfDoc.getNumberOfPages());
+        }
+    }
+
+    @Test
+    public void testStreamStopsDeliveringChunksAfterCancel() throws Exception {
+        CountDownLatch firstChunk = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        AtomicInteger chunks = new AtomicInteger();
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 0; i < 2000; i++) {
+            html.append("<p>Paragraph ").append(i).append("</p>");
+        }
+        html.append("</body></html>");
+        CompletableFuture<Void> result;
+        try (PdfConversionService service = PdfConversionService.builder().threads(1).build()) {
+            result = service.stream(new ByteArrayInputStream(html.toString().getBytes(StandardCharsets.UTF_8)), chunk -> {
+                chunks.incrementAndGet();
+                firstChunk.countDown();
+                awaitIgnoringInterrupts(cancelled);
+            });
+            assertTrue(firstChunk.await(60, TimeUnit.SECONDS));
+            assertTrue(result.cancel(true));
+            cancelled.countDown();
+        }
+
+        assertTrue(result.isCancelled());
+        assertEquals("No chunk should be delivered after the result was cancelled", 1, chunks.get());
+    }
+
+    /**
+     * Waits like a consumer that swallows interrupts, so only the result state can stop further chunks.
+     */
+    private static void awaitIgnoringInterrupts(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // 有意丢弃中断
+            }
+        }
+    }
+
+    /**
+     * Delivers {@link #HTML} only after the latch is released, keeping a worker busy.
+     */
+    private static final class BlockingInputStream extends InputStream {
+        private final CountDownLatch release;
+        private final InputStream html = new ByteArrayInputStream(HTML);
+
+        private BlockingInputStream(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public int read() throws IOException {
+            awaitRelease();
+            return html.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            awaitRelease();
+            return html.read(b, off, len);
+        }
+
+        private void awaitRelease() throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for test input", e);
+            }
+        }
+    }
+}
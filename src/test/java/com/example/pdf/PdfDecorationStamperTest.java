@@ -0,0 +1,123 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.LineSegment;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.geom.Vector;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.parser.EventType;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfCanvasProcessor;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
+import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IEventListener;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PdfDecorationStamperTest {
+
+    @Test
+    public void testStampAppendsDecorationsWithoutRewritingOriginal() throws IOException {
+        StringBuilder html = new StringBuilder("<html><head><style>p { page-break-after: always; }</style></head><body>");
+        for (int i = 1; i <= 3; i++) {
+            html.append("<p>Page ").append(i).append("</p>");
+        }
+        html.append("</body></html>");
+        ByteArrayOutputStream original = new ByteArrayOutputStream();
+        HtmlToPdfConverter.convertToPdf(HtmlToPdfConverter.getStringStream(html.toString()), null, original, PageSize.A4, false);
+        byte[] originalBytes = original.toByteArray();
+
+        ByteArrayOutputStream stamped = new ByteArrayOutputStream();
+        int pages = PdfDecorationStamper.stamp(new ByteArrayInputStream(originalBytes), stamped,
+                Arrays.asList(new WaterMarkEventHandler("DRAFT"), new PageNumberEventHandler()));
+        byte[] stampedBytes = stamped.toByteArray();
+
+        // 增量更新：原文件字节原样保留在开头，之后是追加部分
+        assertTrue(stampedBytes.length > originalBytes.length);
+        assertArrayEquals(originalBytes, Arrays.copyOf(stampedBytes, originalBytes.length));
+
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(stampedBytes)))) {
+            assertEquals(pages, pdfDoc.getNumberOfPages());
+            for (int i = 1; i <= pages; i++) {
+                assertEquals(2, pdfDoc.getPage(i).getContentStreamCount());
+                String text = PdfTextExtractor.getTextFromPage(pdfDoc.getPage(i));
+                assertTrue(text.contains("Page " + i));
+                assertTrue(text.contains("DRAFT"));
+            }
+        }
+    }
+
+    @Test
+    public void testDecorationsFollowPageRotationAndCropBox() throws IOException {
+        Rectangle crop = new Rectangle(50, 80, 400, 600);
+        ByteArrayOutputStream original = new ByteArrayOutputStream();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfWriter(original))) {
+            for (int rotation = 0; rotation < 360; rotation += 90) {
+                PdfPage page = pdfDoc.addNewPage(PageSize.A4);
+                page.setCropBox(crop);
+                page.setRotation(rotation);
+            }
+        }
+
+        ByteArrayOutputStream stamped = new ByteArrayOutputStream();
+        PdfDecorationStamper.stamp(new ByteArrayInputStream(original.toByteArray()), stamped,
+                Arrays.asList(new PageNumberEventHandler()));
+
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(stamped.toByteArray())))) {
+            for (int i = 1; i <= pdfDoc.getNumberOfPages(); i++) {
+                PdfPage page = pdfDoc.getPage(i);
+                int rotation = page.getRotation();
+                List<LineSegment> baselines = new ArrayList<>();
+                new PdfCanvasProcessor(new IEventListener() {
+                    @Override
+                    public void eventOccurred(IEventData data, EventType type) {
+                        baselines.add(((TextRenderInfo) data).getBaseline());
+                    }
+
+                    @Override
+                    public Set<EventType> getSupportedEvents() {
+                        return Collections.singleton(EventType.RENDER_TEXT);
+                    }
+                }).processPageContent(page);
+                assertFalse(baselines.isEmpty());
+
+                // 换算到阅读器中转正后的坐标：页码应水平排列，位于可见区域底部居中
+                float[] start = toUpright(baselines.get(0).getStartPoint(), crop, rotation);
+                float[] end = toUpright(baselines.get(0).getEndPoint(), crop, rotation);
+                float uprightWidth = rotation % 180 == 0 ? crop.getWidth() : crop.getHeight();
+                assertTrue("Rotation " + rotation + ": text should run left to right", end[0] > start[0]);
+                assertEquals("Rotation " + rotation + ": text should be horizontal", start[1], end[1], 0.01);
+                assertTrue("Rotation " + rotation + ": near the bottom", start[1] > 0 && start[1] < 50);
+                assertTrue("Rotation " + rotation + ": near the center", start[0] > uprightWidth / 4 && start[0] < uprightWidth / 2);
+            }
+        }
+    }
+
+    private static float[] toUpright(Vector point, Rectangle crop, int rotation) {
+        float x = point.get(Vector.I1) - crop.getLeft();
+        float y = point.get(Vector.I2) - crop.getBottom();
+        switch (rotation) {
+            case 90:
+                return new float[]{y, crop.getWidth() - x};
+            case 180:
+                return new float[]{crop.getWidth() - x, crop.getHeight() - y};
+            case 270:
+                return new float[]{crop.getHeight() - y, x};
+            default:
+                return new float[]{x, y};
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PdfSizeReportTest {
+
+    private static final String HTML = "<html><body style='font-family: Microsoft YaHei'>"
+            + "<p>中文测试段落 Chinese test paragraph</p><p><b>粗体文字</b></p>"
+            + "</body></html>";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        FontRegistry.invalidateAll();
+    }
+
+    @Test
+    public void testEmbeddedFontsAreSubsetByDefault() throws IOException {
+        String fontDir = yaheiFontDir();
+
+        PdfSizeReport subset = PdfSizeReport.analyze(convert(fontDir, true));
+        PdfSizeReport full = PdfSizeReport.analyze(convert(fontDir, false));
+
+        PdfSizeReport.FontEntry subsetFont = embeddedFont(subset);
+        PdfSizeReport.FontEntry fullFont = embeddedFont(full);
+        assertTrue(subsetFont.isSubset());
+        assertFalse(fullFont.isSubset());
+        assertTrue("Subset should be much smaller than the full font: " + subset + " / " + full,
+                subsetFont.getEmbeddedBytes() * 4 < fullFont.getEmbeddedBytes());
+        assertTrue(subset.getFontBytes() >= subsetFont.getEmbeddedBytes());
+    }
+
+    @Test
+    public void testDecorationsShareOneFontDictionary() throws IOException {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        HtmlToPdfConverter.convertToPdf(HtmlToPdfConverter.getStringStream(HTML), yaheiFontDir(), pdf, PageSize.A4,
+                Arrays.asList(new PageHeaderEventHandler("页眉"), new PageEnderEventHandler("页脚"), new PageNumberEventHandler()), null);
+
+        PdfSizeReport report = PdfSizeReport.analyze(pdf.toByteArray());
+
+        // 正文字体加上所有装饰共用的一个 STSongStd-Light
+        assertEquals(report.toString(), 2, report.getFonts().size());
+        assertTrue(report.getDuplicateFontNames().isEmpty());
+        assertEquals(pdf.size(), report.getTotalBytes());
+        assertTrue(report.getContentStreamBytes() > 0);
+        assertTrue(report.getOtherBytes() > 0);
+    }
+
+    private static byte[] convert(String fontDir, boolean subsetFonts) throws IOException {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        HtmlToPdfConverter.convertWithProperties(HtmlToPdfConverter.getStringStream(HTML),
+                HtmlToPdfConverter.newConverterProperties(fontDir, subsetFonts), pdf, PageSize.A4,
+                HtmlToPdfConverter.pageFoot(false), null);
+        return pdf.toByteArray();
+    }
+
+    private static PdfSizeReport.FontEntry embeddedFont(PdfSizeReport report) {
+        for (PdfSizeReport.FontEntry font : report.getFonts()) {
+            if (font.isEmbedded()) {
+                return font;
+            }
+        }
+        fail("No embedded font in " + report);
+        return null;
+    }
+
+    /**
+     * 用仓库中的测试字体充当微软雅黑
+     */
+    private String yaheiFontDir() throws IOException {
+        File fontDir = temporaryFolder.newFolder("fonts");
+        Files.copy(Paths.get("src/fonts/ht.ttf"), new File(fontDir, "msyh.ttf").toPath());
+        Files.copy(Paths.get("src/fonts/ht.ttf"), new File(fontDir, "msyhbd.ttf").toPath());
+        return fontDir.getPath();
+    }
+}
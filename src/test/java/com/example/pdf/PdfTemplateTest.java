@@ -0,0 +1,67 @@
+package com.example.pdf;
+
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PdfTemplateTest {
+
+    private static final String TEMPLATE = "<html><body>"
+            + "<h1 title=\"Invoice ${number}\">Invoice ${number}</h1>"
+            + "<p>Customer:&nbsp;${customer}</p>"
+            + "<p>Total: ${total} EUR</p>"
+            + "</body></html>";
+
+    @Test
+    public void testPlaceholdersAreCollectedOnce() throws IOException {
+        PdfTemplate template = compile(TEMPLATE);
+
+        assertEquals(Arrays.asList("number", "customer", "total"), Arrays.asList(template.getPlaceholderNames().toArray()));
+    }
+
+    @Test
+    public void testRenderBindsValuesAsText() throws IOException {
+        PdfTemplate template = compile(TEMPLATE);
+
+        String first = renderText(template, "A-1", "<b>ACME</b>", 42);
+        String second = renderText(template, "B-2", "Globex", 7);
+
+        assertTrue(first.contains("Invoice A-1"));
+        assertTrue("Values must not be parsed as markup", first.contains("Customer: <b>ACME</b>"));
+        assertTrue(first.contains("Total: 42 EUR"));
+        assertTrue("Renders must not leak into each other", second.contains("Invoice B-2"));
+        assertFalse(second.contains("A-1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingValueIsRejected() throws IOException {
+        compile(TEMPLATE).render(new HashMap<String, Object>(), new ByteArrayOutputStream());
+    }
+
+    private static PdfTemplate compile(String html) throws IOException {
+        return PdfTemplate.compile(HtmlToPdfConverter.getStringStream(html), null, PageSize.A4, false);
+    }
+
+    private static String renderText(PdfTemplate template, String number, String customer, int total) throws IOException {
+        Map<String, Object> data = new HashMap<>();
+        data.put("number", number);
+        data.put("customer", customer);
+        data.put("total", total);
+        ByteArrayOutputStream pdfBytes = new ByteArrayOutputStream();
+        template.render(data, pdfBytes);
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdfBytes.toByteArray())))) {
+            return PdfTextExtractor.getTextFromPage(pdfDoc.getPage(1));
+        }
+    }
+}